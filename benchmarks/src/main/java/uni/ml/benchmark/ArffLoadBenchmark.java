@@ -0,0 +1,56 @@
+package uni.ml.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uni.ml.dataset.Dataset;
+
+/**
+ * Parsing an ARFF file into a dataset, optionally including the column encoding used for training.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArffLoadBenchmark {
+
+	@Param({"weather", "car", "car-x10", "car-x100", "synthetic-100000"})
+	public String dataset;
+	
+	private File file;
+	
+	@Setup
+	public void setup() {
+		file = BenchmarkData.file(dataset);
+	}
+	
+	@Benchmark
+	public Dataset load() throws IOException {
+		Dataset dataset = new Dataset();
+		dataset.loadFromFile(file);
+		return dataset;
+	}
+	
+	@Benchmark
+	public Object loadAndEncode() throws IOException {
+		Dataset dataset = new Dataset();
+		dataset.loadFromFile(file);
+		return dataset.columnStore();
+	}
+	
+}
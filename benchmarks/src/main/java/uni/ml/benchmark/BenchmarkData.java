@@ -0,0 +1,118 @@
+package uni.ml.benchmark;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import uni.ml.dataset.Dataset;
+import uni.ml.io.SyntheticDataGenerator;
+
+/**
+ * Resolves the datasets used by the benchmarks.
+ * <ul>
+ * <li><code>weather</code> and <code>car</code> are the bundled ARFF files, which are looked up in the directory
+ * given by the system property <code>uni.ml.data</code> (default: the parent directory of the benchmark module).</li>
+ * <li><code>car-xN</code> is car.arff with its data rows repeated N times, written to a temporary file once per JVM.</li>
+ * <li><code>synthetic-N</code> is a generated dataset with N rows (10 attributes with 3 values, 2 classes),
+ * written to a temporary file once per JVM.</li>
+ * </ul>
+ */
+public class BenchmarkData {
+	
+	private static final String SCALED = "-x";
+	private static final String SYNTHETIC = "synthetic-";
+	
+	public static File dataDirectory() {
+		return new File(System.getProperty("uni.ml.data", ".."));
+	}
+	
+	/**
+	 * @return The ARFF file of the named dataset.
+	 */
+	public static synchronized File file(String name) {
+		int scaled = name.indexOf(SCALED);
+		boolean synthetic = name.startsWith(SYNTHETIC);
+		if (scaled < 0 && !synthetic) {
+			return arff(name);
+		}
+		File file = new File(System.getProperty("java.io.tmpdir"), "uni-ml-" + name + ".arff");
+		if (!file.exists()) {
+			try {
+				if (synthetic) {
+					new SyntheticDataGenerator()
+						.numRows(Long.parseLong(name.substring(SYNTHETIC.length())))
+						.writeArff(file);
+				} else {
+					scale(arff(name.substring(0, scaled)), Integer.parseInt(name.substring(scaled+SCALED.length())), file);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			file.deleteOnExit();
+		}
+		return file;
+	}
+	
+	/**
+	 * Loads the named dataset.
+	 */
+	public static Dataset load(String name) {
+		Dataset dataset = new Dataset();
+		try {
+			dataset.loadFromFile(file(name));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return dataset;
+	}
+	
+	private static File arff(String name) {
+		File file = new File(dataDirectory(), name.equals("weather")? "weather.nominal.arff" : name + ".arff");
+		if (!file.isFile())
+			throw new IllegalArgumentException("Dataset not found: " + file.getAbsolutePath());
+		return file;
+	}
+	
+	/**
+	 * Writes the header of an ARFF file and its data rows repeated factor times.
+	 */
+	private static void scale(File source, int factor, File target) throws IOException {
+		List<String> header = new ArrayList<>();
+		List<String> rows = new ArrayList<>();
+		try (BufferedReader r = new BufferedReader(new FileReader(source))) {
+			boolean data = false;
+			String line;
+			while ((line = r.readLine()) != null) {
+				if (data) {
+					if (!line.trim().isEmpty())
+						rows.add(line);
+				} else {
+					header.add(line);
+					data = line.trim().startsWith("@data");
+				}
+			}
+		}
+		File tmp = new File(target.getPath() + ".tmp");
+		try (BufferedWriter w = new BufferedWriter(new FileWriter(tmp))) {
+			for (String line : header) {
+				w.write(line);
+				w.newLine();
+			}
+			for (int i = 0; i < factor; i++) {
+				for (String row : rows) {
+					w.write(row);
+					w.newLine();
+				}
+			}
+		}
+		if (!tmp.renameTo(target))
+			throw new IOException("Could not create " + target);
+	}
+
+}
@@ -0,0 +1,28 @@
+package uni.ml.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, which reports the allocation rate (gc.alloc.rate.norm: bytes per operation).
+ * Accepts the usual JMH command line options, e.g. a benchmark regex or <code>-p dataset=car -p maxDepth=3</code>.
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		ChainedOptionsBuilder options = new OptionsBuilder()
+				.parent(commandLine)
+				.addProfiler(GCProfiler.class);
+		if (commandLine.getIncludes().isEmpty()) {
+			options.include(BenchmarkRunner.class.getPackage().getName() + ".*");
+		}
+		new Runner(options.build()).run();
+	}
+
+}
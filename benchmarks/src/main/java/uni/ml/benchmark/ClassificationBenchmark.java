@@ -0,0 +1,126 @@
+package uni.ml.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uni.ml.dataset.Dataset;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.Instance;
+import uni.ml.dataset.Value;
+import uni.ml.learning.Boosting;
+import uni.ml.learning.BoostingForestModel;
+import uni.ml.learning.DecisionTreeModel;
+import uni.ml.tree.Classifier;
+import uni.ml.tree.CompiledForest;
+
+/**
+ * Classifying single instances and whole datasets with a boosted forest, 
+ * by walking the node objects, by the compiled forest and by the compiled forest loaded (memory-mapped) from a model file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassificationBenchmark {
+
+	@Param({"weather", "car", "car-x10", "synthetic-100000"})
+	public String dataset;
+	
+	@Param({"1", "3", "6"})
+	public int maxDepth;
+	
+	@Param({"10"})
+	public int numIterations;
+	
+	private Dataset data;
+	private EnumAttribute<?> classAttribute;
+	private List<DecisionTreeModel> trees;
+	private Classifier tree;
+	private CompiledForest forest, mapped;
+	private File file;
+	private int next;
+	
+	@Setup
+	public void setup() throws IOException {
+		data = BenchmarkData.load(dataset);
+		classAttribute = data.lastAttribute();
+		BoostingForestModel model = new BoostingForestModel(numIterations, maxDepth).seed(1);
+		model.trainModel(data, classAttribute);
+		trees = new ArrayList<>();
+		model.forEach(trees::add);
+		tree = trees.get(0).classifier();
+		forest = model.forest();
+		file = File.createTempFile("uni-ml-", ".forest");
+		file.deleteOnExit();
+		model.save(file);
+		mapped = CompiledForest.load(file);
+		data.columnStore();
+	}
+	
+	private Instance nextInstance() {
+		Instance instance = data.instanceAt(next);
+		next = next+1 < data.numInstances()? next+1 : 0;
+		return instance;
+	}
+	
+	@Benchmark
+	public Value<?> singleTree() {
+		return tree.classify(nextInstance(), classAttribute);
+	}
+	
+	@Benchmark
+	public Value<?> singleForest() {
+		return Boosting.classification(trees, nextInstance(), classAttribute);
+	}
+	
+	@Benchmark
+	public Value<?> singleCompiled() {
+		return forest.classify(nextInstance(), classAttribute);
+	}
+	
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public Value<?>[] batchForest() {
+		Value<?>[] predictions = new Value<?>[data.numInstances()];
+		for (int i = 0; i < predictions.length; i++) {
+			predictions[i] = Boosting.classification(trees, data.instanceAt(i), classAttribute);
+		}
+		return predictions;
+	}
+	
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public int[] batchCompiled() {
+		return forest.classify(data);
+	}
+	
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public int[] batchMapped() {
+		return mapped.classify(data);
+	}
+	
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public CompiledForest loadModel() throws IOException {
+		return CompiledForest.load(file);
+	}
+	
+}
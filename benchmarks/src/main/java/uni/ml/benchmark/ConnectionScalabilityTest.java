@@ -0,0 +1,180 @@
+package uni.ml.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import uni.ml.dataset.Dataset;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.Instance;
+import uni.ml.learning.BoostingForestModel;
+import uni.ml.serving.LatencyHistogram;
+import uni.ml.serving.RequestExecutors;
+import uni.ml.serving.ScoringServer;
+import uni.ml.tree.CompiledForest;
+
+/**
+ * Measures how the scoring server scales with the number of open client connections, 
+ * once with a bounded pool of request threads and once with a virtual thread per request.
+ * Each client keeps a persistent connection and sends one instance per request, 
+ * so a request holds its handler thread while it waits for its micro-batch. 
+ * With the bounded pool, at most pool size requests are in progress and batched together, 
+ * with virtual threads all connections can have a request in progress.
+ * <p>
+ * Optionally, the clients send the second half of each body after a delay to simulate slow clients, 
+ * which hold their handler thread while the body is read. Note that on Java 21 to 23 the body stream of the 
+ * JDK HTTP server pins the virtual thread to its carrier while it blocks (synchronized read), 
+ * so slow bodies only scale with virtual threads from Java 24 on.
+ * <p>
+ * Virtual threads require Java 21+, on older JVMs the virtual mode falls back to the pool and is reported as such.
+ * The clients always use platform threads, so they do not compete with the server for the carrier threads.
+ * <p>
+ * Usage: [dataset (default car)] [connections, comma separated (default 16,256,1024)] [seconds per run (default 5)] 
+ * [send delay in milliseconds (default 0)] [pool size (default 64)]
+ */
+public class ConnectionScalabilityTest {
+	
+	public static void main(String[] args) throws Exception {
+		ScoringServer.enableTcpNoDelay();
+		String name = args.length > 0? args[0] : "car";
+		String connections = args.length > 1? args[1] : "16,256,1024";
+		int seconds = args.length > 2? Integer.parseInt(args[2]) : 5;
+		long delayMillis = args.length > 3? Long.parseLong(args[3]) : 0;
+		int poolSize = args.length > 4? Integer.parseInt(args[4]) : 64;
+		
+		// the JDK HTTP server closes idle persistent connections beyond this limit (default 200)
+		int maxConnections = 0;
+		for (String count : connections.split(",")) {
+			maxConnections = Math.max(maxConnections, Integer.parseInt(count.trim()));
+		}
+		if (System.getProperty("sun.net.httpserver.maxIdleConnections") == null) {
+			System.setProperty("sun.net.httpserver.maxIdleConnections", Integer.toString(maxConnections));
+		}
+		
+		Dataset dataset = BenchmarkData.load(name);
+		EnumAttribute<?> classAttribute = dataset.lastAttribute();
+		BoostingForestModel model = new BoostingForestModel(50, 4).seed(1);
+		model.trainModel(dataset, classAttribute);
+		CompiledForest forest = model.forest();
+		
+		// one instance per request
+		byte[][] bodies = new byte[dataset.numInstances()][];
+		String[] expected = new String[dataset.numInstances()];
+		for (int i = 0; i < dataset.numInstances(); i++) {
+			Instance instance = dataset.instanceAt(i);
+			StringBuilder body = new StringBuilder();
+			for (int c = 0; c < forest.numColumns(); c++) {
+				body.append(c > 0? "," : "").append(instance.value(forest.attributeAt(c)).value());
+			}
+			bodies[i] = body.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+			expected[i] = forest.classify(instance, classAttribute).value() + "\n";
+		}
+		
+		System.out.println(dataset.name() + ": send delay " + delayMillis + " ms, pool size " + poolSize 
+				+ ", virtual threads " + (RequestExecutors.virtualThreadsAvailable()? "available" : "not available (falling back to the pool)"));
+		for (String count : connections.split(",")) {
+			int clients = Integer.parseInt(count.trim());
+			for (boolean virtual : new boolean[] {false, true}) {
+				try (ScoringServer server = new ScoringServer(forest).port(0).requestThreads(poolSize).virtualThreads(virtual).start()) {
+					run(server, clients, seconds, delayMillis, bodies, expected);
+				}
+			}
+		}
+	}
+	
+	private static void run(ScoringServer server, int clients, int seconds, long delayMillis, byte[][] bodies, String[] expected) throws Exception {
+		LatencyHistogram latency = new LatencyHistogram();
+		LongAdder errors = new LongAdder();
+		long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+		ExecutorService executor = Executors.newFixedThreadPool(clients);
+		List<Future<?>> results = new ArrayList<>();
+		for (int t = 0; t < clients; t++) {
+			int offset = t;
+			results.add(executor.submit(() -> {
+				try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.boundPort())) {
+					socket.setTcpNoDelay(true);
+					OutputStream out = socket.getOutputStream();
+					InputStream in = new BufferedInputStream(socket.getInputStream());
+					for (int r = offset % bodies.length; System.nanoTime() < end; r = (r+clients) % bodies.length) {
+						long start = System.nanoTime();
+						String response = post(out, in, bodies[r], delayMillis);
+						latency.record(System.nanoTime()-start);
+						if (!expected[r].equals(response)) {
+							errors.increment();
+						}
+					}
+				}
+				return null;
+			}));
+		}
+		for (Future<?> result : results) {
+			result.get();
+		}
+		executor.shutdown();
+		
+		System.out.printf("%5d connections, %-7s: %8.0f requests/s, %d wrong responses, latency %s%n", clients, 
+				server.usesVirtualThreads()? "virtual" : "pool", (double) latency.count()/seconds, errors.sum(), latency);
+	}
+	
+	/**
+	 * Sends a request on a persistent connection, the second half of the body after a delay if positive, and reads the response body.
+	 */
+	private static String post(OutputStream out, InputStream in, byte[] body, long delayMillis) throws IOException, InterruptedException {
+		String header = "POST /classify HTTP/1.1\r\nHost: localhost\r\nContent-Length: " + body.length + "\r\n\r\n";
+		out.write(header.getBytes(StandardCharsets.US_ASCII));
+		if (delayMillis > 0) {
+			out.write(body, 0, body.length/2);
+			out.flush();
+			Thread.sleep(delayMillis);
+			out.write(body, body.length/2, body.length-body.length/2);
+		} else {
+			out.write(body);
+		}
+		out.flush();
+		
+		String status = readLine(in);
+		if (!status.startsWith("HTTP/1.1 200"))
+			throw new IOException(status);
+		int length = -1;
+		for (String line = readLine(in); !line.isEmpty(); line = readLine(in)) {
+			if (line.toLowerCase().startsWith("content-length:")) {
+				length = Integer.parseInt(line.substring(line.indexOf(':')+1).trim());
+			}
+		}
+		if (length < 0)
+			throw new IOException("Missing content length");
+		byte[] response = new byte[length];
+		for (int n = 0; n < length; ) {
+			int read = in.read(response, n, length-n);
+			if (read < 0)
+				throw new IOException("Connection closed");
+			n += read;
+		}
+		return new String(response, StandardCharsets.UTF_8);
+	}
+	
+	private static String readLine(InputStream in) throws IOException {
+		ByteArrayOutputStream line = new ByteArrayOutputStream();
+		for (int b = in.read(); b != '\n'; b = in.read()) {
+			if (b < 0)
+				throw new IOException("Connection closed");
+			if (b != '\r') {
+				line.write(b);
+			}
+		}
+		return new String(line.toByteArray(), StandardCharsets.US_ASCII);
+	}
+
+}
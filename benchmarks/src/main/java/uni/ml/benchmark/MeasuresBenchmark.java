@@ -0,0 +1,88 @@
+package uni.ml.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uni.ml.dataset.ColumnStore;
+import uni.ml.dataset.Dataset;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.learning.Measures;
+
+/**
+ * Entropy and information gain of the first attribute, computed on dataset views (as the original learner does) 
+ * and from count tables (as the tree builder does).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MeasuresBenchmark {
+
+	@Param({"weather", "car", "car-x10", "synthetic-100000"})
+	public String dataset;
+	
+	private Dataset data;
+	private EnumAttribute<?> classAttribute, splitAttribute;
+	private ColumnStore store;
+	private int[] rows, columns;
+	private int classColumn;
+	private int[][][] tables;
+	private int[] classCounts;
+	
+	@Setup
+	public void setup() {
+		data = BenchmarkData.load(dataset);
+		classAttribute = data.lastAttribute();
+		splitAttribute = data.attributeAt(0);
+		store = data.columnStore();
+		rows = IntStream.range(0, data.numInstances()).toArray();
+		classColumn = data.numAttributes()-1;
+		columns = new int[] {0};
+		tables = new int[][][] {new int[splitAttribute.numValues()][classAttribute.numValues()]};
+		classCounts = new int[classAttribute.numValues()];
+		for (int row : rows) {
+			classCounts[store.ordinal(row, classColumn)]++;
+		}
+		store.countTables(rows, 0, rows.length, columns, classColumn, tables);
+	}
+	
+	@Benchmark
+	public float entropyView() {
+		return Measures.entropy(data, classAttribute);
+	}
+	
+	@Benchmark
+	public float informationGainView() {
+		return Measures.informationGain(data, classAttribute, splitAttribute);
+	}
+	
+	@Benchmark
+	public int[][][] countTables() {
+		for (int[] counts : tables[0]) {
+			Arrays.fill(counts, 0);
+		}
+		store.countTables(rows, 0, rows.length, columns, classColumn, tables);
+		return tables;
+	}
+	
+	@Benchmark
+	public float informationGainCounts() {
+		return Measures.informationGain(tables[0], classCounts, rows.length);
+	}
+	
+}
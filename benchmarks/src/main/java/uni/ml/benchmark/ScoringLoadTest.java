@@ -0,0 +1,128 @@
+package uni.ml.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import uni.ml.dataset.Dataset;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.Instance;
+import uni.ml.learning.BoostingForestModel;
+import uni.ml.serving.LatencyHistogram;
+import uni.ml.serving.ScoringServer;
+import uni.ml.tree.CompiledForest;
+
+/**
+ * A load generator for the scoring server over localhost. 
+ * Trains a boosted forest, starts the server in this JVM and lets a number of clients send requests for a fixed time.
+ * Each response is checked against the local classification of the forest.
+ * Prints the throughput, the client-side latency and the server metrics.
+ * <p>
+ * Usage: [dataset (default car)] [clients (default 16)] [seconds (default 10)] [instances per request (default 1)] 
+ * [batch size (default 64)] [max wait in microseconds (default 500)]
+ */
+public class ScoringLoadTest {
+	
+	public static void main(String[] args) throws Exception {
+		ScoringServer.enableTcpNoDelay();
+		String name = args.length > 0? args[0] : "car";
+		int clients = args.length > 1? Integer.parseInt(args[1]) : 16;
+		int seconds = args.length > 2? Integer.parseInt(args[2]) : 10;
+		int instancesPerRequest = args.length > 3? Integer.parseInt(args[3]) : 1;
+		int batchSize = args.length > 4? Integer.parseInt(args[4]) : 64;
+		long maxWaitMicros = args.length > 5? Long.parseLong(args[5]) : 500;
+		
+		Dataset dataset = BenchmarkData.load(name);
+		EnumAttribute<?> classAttribute = dataset.lastAttribute();
+		BoostingForestModel model = new BoostingForestModel(50, 4).seed(1);
+		model.trainModel(dataset, classAttribute);
+		CompiledForest forest = model.forest();
+		
+		// request bodies and expected responses
+		int numRequests = Math.max(1, dataset.numInstances()/instancesPerRequest);
+		byte[][] bodies = new byte[numRequests][];
+		String[] expected = new String[numRequests];
+		for (int r = 0; r < numRequests; r++) {
+			StringBuilder body = new StringBuilder(), response = new StringBuilder();
+			for (int i = r*instancesPerRequest; i < (r+1)*instancesPerRequest; i++) {
+				Instance instance = dataset.instanceAt(i % dataset.numInstances());
+				for (int c = 0; c < forest.numColumns(); c++) {
+					body.append(c > 0? "," : "").append(instance.value(forest.attributeAt(c)).value());
+				}
+				body.append('\n');
+				response.append(forest.classify(instance, classAttribute).value()).append('\n');
+			}
+			bodies[r] = body.toString().getBytes(StandardCharsets.UTF_8);
+			expected[r] = response.toString();
+		}
+		
+		try (ScoringServer server = new ScoringServer(forest).port(0).batchSize(batchSize).maxWaitMicros(maxWaitMicros)
+				.requestThreads(clients).start()) {
+			URL url = new URL("http://localhost:" + server.boundPort() + "/classify");
+			LatencyHistogram latency = new LatencyHistogram();
+			LongAdder errors = new LongAdder();
+			long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+			ExecutorService executor = Executors.newFixedThreadPool(clients);
+			List<Future<?>> results = new ArrayList<>();
+			for (int t = 0; t < clients; t++) {
+				int offset = t;
+				results.add(executor.submit(() -> {
+					for (int r = offset; System.nanoTime() < end; r = (r+clients) % numRequests) {
+						long start = System.nanoTime();
+						String response = post(url, bodies[r]);
+						latency.record(System.nanoTime()-start);
+						if (!expected[r].equals(response)) {
+							errors.increment();
+						}
+					}
+					return null;
+				}));
+			}
+			for (Future<?> result : results) {
+				result.get();
+			}
+			executor.shutdown();
+			
+			System.out.println(dataset.name() + ": " + clients + " clients, " + instancesPerRequest + " instances per request, batch size " 
+					+ batchSize + ", max wait " + maxWaitMicros + " us");
+			System.out.printf("Throughput: %.0f requests/s, %.0f instances/s, %d wrong responses%n", 
+					(double) latency.count()/seconds, (double) latency.count()*instancesPerRequest/seconds, errors.sum());
+			System.out.println("Client latency: " + latency);
+			System.out.println("Server latency: " + server.latency());
+			System.out.printf("Mean batch size: %.1f%n", (double) server.batcher().numRows()/Math.max(1, server.batcher().numBatches()));
+		}
+	}
+	
+	private static String post(URL url, byte[] body) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		connection.setFixedLengthStreamingMode(body.length);
+		try (OutputStream out = connection.getOutputStream()) {
+			out.write(body);
+		}
+		if (connection.getResponseCode() != 200)
+			throw new IOException("HTTP " + connection.getResponseCode());
+		try (InputStream in = connection.getInputStream()) {
+			ByteArrayOutputStream response = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int n;
+			while ((n = in.read(buffer)) > 0) {
+				response.write(buffer, 0, n);
+			}
+			return new String(response.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+
+}
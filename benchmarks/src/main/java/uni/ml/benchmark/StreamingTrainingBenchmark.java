@@ -0,0 +1,70 @@
+package uni.ml.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uni.ml.dataset.Dataset;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.learning.HoeffdingTreeModel;
+
+/**
+ * Learning a Hoeffding tree from a stream of encoded rows, reported in instances per second.
+ * The rows of the dataset are replayed endlessly into the same model, so the tree keeps growing 
+ * as it would on an unbounded stream.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StreamingTrainingBenchmark {
+
+	private static final int BATCH = 10000;
+
+	@Param({"car", "synthetic-100000"})
+	public String dataset;
+	
+	private int[][] rows;
+	private HoeffdingTreeModel model;
+	private int next;
+	
+	@Setup
+	public void setup() {
+		Dataset data = BenchmarkData.load(dataset);
+		EnumAttribute<?>[] attributes = new EnumAttribute<?>[data.numAttributes()];
+		for (int c = 0; c < attributes.length; c++) {
+			attributes[c] = data.attributeAt(c);
+		}
+		rows = new int[data.numInstances()][attributes.length];
+		for (int i = 0; i < rows.length; i++) {
+			for (int c = 0; c < attributes.length; c++) {
+				rows[i][c] = data.ordinalAt(i, c);
+			}
+		}
+		model = new HoeffdingTreeModel().reset(attributes, data.lastAttribute());
+	}
+	
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public HoeffdingTreeModel learn() {
+		for (int i = 0; i < BATCH; i++) {
+			model.learn(rows[next]);
+			next = next+1 < rows.length? next+1 : 0;
+		}
+		return model;
+	}
+	
+}
@@ -0,0 +1,67 @@
+package uni.ml.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uni.ml.dataset.Dataset;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.learning.BoostingForestModel;
+import uni.ml.learning.DecisionTreeModel;
+
+/**
+ * Training a single decision tree and a boosted forest with a fixed seed. 
+ * The dataset is encoded once during setup, as it is when a model is trained repeatedly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrainingBenchmark {
+
+	@Param({"weather", "car", "car-x10", "car-x100", "synthetic-100000"})
+	public String dataset;
+	
+	@Param({"1", "3", "6"})
+	public int maxDepth;
+	
+	@Param({"10"})
+	public int numIterations;
+	
+	private Dataset data;
+	private EnumAttribute<?> classAttribute;
+	
+	@Setup
+	public void setup() {
+		data = BenchmarkData.load(dataset);
+		classAttribute = data.lastAttribute();
+		data.columnStore();
+	}
+	
+	@Benchmark
+	public DecisionTreeModel tree() {
+		DecisionTreeModel model = new DecisionTreeModel(maxDepth).seed(1);
+		model.trainModel(data, classAttribute);
+		return model;
+	}
+	
+	@Benchmark
+	public BoostingForestModel boosting() {
+		BoostingForestModel model = new BoostingForestModel(numIterations, maxDepth).seed(1);
+		model.trainModel(data, classAttribute);
+		return model;
+	}
+	
+}
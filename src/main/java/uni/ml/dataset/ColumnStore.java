@@ -0,0 +1,44 @@
+package uni.ml.dataset;
+
+/**
+ * Stores the instances of a dataset dictionary-encoded by columns: 
+ * each value is represented by its ordinal within the allowed values of its attribute.
+ * Missing or unknown values are represented by -1.
+ * Column stores are read-only and can be shared between threads.
+ * @see EnumAttribute#indexOf(Value)
+ */
+public interface ColumnStore {
+	
+	public int numRows();
+	public int numColumns();
+	
+	/**
+	 * @return The value ordinal of the specified row and column or -1 if the value is missing.
+	 */
+	public int ordinal(int row, int column);
+	
+	/**
+	 * Counts the class values per attribute value within a set of rows in a single pass.
+	 * Rows with a missing class value or a missing attribute value are not counted.
+	 * @param rows The row indices, the rows from (inclusive) to (exclusive) are counted.
+	 * @param columns The columns to count.
+	 * @param classColumn The column of the classification attribute.
+	 * @param tables The count tables to add to, tables[i][v][c] is the number of rows 
+	 * with value ordinal v in columns[i] and class ordinal c.
+	 */
+	public default void countTables(int[] rows, int from, int to, int[] columns, int classColumn, int[][][] tables) {
+		for (int r = from; r < to; r++) {
+			int row = rows[r];
+			int c = ordinal(row, classColumn);
+			if (c < 0)
+				continue;
+			for (int i = 0; i < columns.length; i++) {
+				int v = ordinal(row, columns[i]);
+				if (v >= 0) {
+					tables[i][v][c]++;
+				}
+			}
+		}
+	}
+	
+}
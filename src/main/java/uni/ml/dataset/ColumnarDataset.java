@@ -0,0 +1,129 @@
+package uni.ml.dataset;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.experimental.Accessors;
+
+/**
+ * A dataset that only exists in encoded form in a column store, e.g. on disk or off-heap, 
+ * so it can be larger than the heap. The learners read it through {@link #columnStore()}.
+ * Instances are created on access from their value ordinals and share the value objects of the attributes.
+ * Their weights are not stored unless a weight vector is attached by {@link #weights(OffHeapWeights)},
+ * otherwise weights have to be kept separately (as by {@link uni.ml.learning.Boosting}).
+ */
+@Accessors(fluent=true)
+public class ColumnarDataset extends DatasetView implements Closeable {
+
+	@Getter
+	private final String name;
+	private final EnumAttribute<?>[] attributes;
+	private final ColumnStore store;
+	/**
+	 * The instance weights or null if they are not stored.
+	 */
+	@Getter
+	private OffHeapWeights weights;
+
+	/**
+	 * @param attributes The attributes of the columns of the store.
+	 */
+	public ColumnarDataset(String name, @NonNull EnumAttribute<?>[] attributes, @NonNull ColumnStore store) {
+		if (attributes.length != store.numColumns())
+			throw new IllegalArgumentException("Expected " + store.numColumns() + " attributes");
+		this.name = name;
+		this.attributes = attributes.clone();
+		this.store = store;
+	}
+
+	/**
+	 * Attaches a weight vector, which is closed together with this dataset.
+	 * The weights are read by {@link #instanceAt(int)} and modified by the weight methods of {@link DatasetView}.
+	 * @return This dataset.
+	 */
+	public ColumnarDataset weights(OffHeapWeights weights) {
+		if (weights != null && weights.size() != store.numRows())
+			throw new IllegalArgumentException("Expected " + store.numRows() + " weights");
+		this.weights = weights;
+		return this;
+	}
+
+	@Override
+	public int numAttributes() {
+		return attributes.length;
+	}
+
+	@Override
+	public int numInstances() {
+		return store.numRows();
+	}
+
+	@Override
+	public EnumAttribute<?> attributeAt(int index) {
+		return attributes[index];
+	}
+
+	@Override
+	public Instance instanceAt(int index) {
+		Instance instance = new Instance();
+		for (int c = 0; c < attributes.length; c++) {
+			int v = store.ordinal(index, c);
+			if (v >= 0) {
+				instance.addUnchecked(attributes[c], attributes[c].valueAt(v));
+			}
+		}
+		if (weights != null) {
+			instance.weight(weights.get(index));
+		}
+		return instance;
+	}
+
+	@Override
+	public void assignEqualWeights() {
+		if (weights == null) {
+			super.assignEqualWeights();
+		} else {
+			weights.fill(1.0f/numInstances());
+		}
+	}
+
+	@Override
+	public void normalizeWeights() {
+		if (weights == null) {
+			super.normalizeWeights();
+		} else {
+			weights.normalize();
+		}
+	}
+
+	@Override
+	public float sumWeights() {
+		return weights == null? super.sumWeights() : weights.sum();
+	}
+
+	@Override
+	public int ordinalAt(int index, int attributeIndex) {
+		return store.ordinal(index, attributeIndex);
+	}
+
+	@Override
+	public ColumnStore columnStore() {
+		return store;
+	}
+
+	/**
+	 * Releases the weights and closes the column store if it holds resources.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (weights != null) {
+			weights.close();
+		}
+		if (store instanceof Closeable) {
+			((Closeable) store).close();
+		}
+	}
+
+}
@@ -9,8 +9,12 @@ import java.util.Arrays;
 import java.util.List;
 
 import lombok.Getter;
+import lombok.NonNull;
 import lombok.Setter;
 import lombok.experimental.Accessors;
+import uni.ml.jfr.ArffLoadEvent;
+import uni.ml.jfr.Events;
+import uni.ml.util.FieldTokenizer;
 
 /**
  * A dataset stores the attributes (e.g. the header/column labels of a table) and
@@ -27,27 +31,96 @@ public class Dataset extends DatasetView {
 	private String name;
 	private List<EnumAttribute<?>> attributes = new ArrayList<>();
 	private List<Instance> instances = new ArrayList<>();
+	private volatile ColumnStore encoding;
+	/**
+	 * Whether the instances are encoded sparsely ({@link SparseColumnStore}), set when a sparse ARFF row is loaded.
+	 */
+	@Getter
+	private boolean sparse;
+	private Instance defaults;
+	
+	private String parseRelation(String line) throws IOException {
+		try {
+			FieldTokenizer words = new FieldTokenizer(line, true);
+			words.nextWord();
+			return words.nextWord();
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Invalid relation: " + e.getMessage());
+		}
+	}
 	
-	private EnumAttribute<String> parseAttribute(String line) {
-		String[] parts = line.split("\\{");
-		String attrName = parts[0].trim().split(" ")[1].trim();
-		String[] values = parts[1].substring(0, parts[1].length()-1).split(",");
-		for (int i = 0; i < values.length; i++) {
-			values[i] = values[i].trim();
+	/**
+	 * Parses a nominal attribute: <code>@attribute name {value, ...}</code>, the name and values may be quoted.
+	 */
+	private EnumAttribute<String> parseAttribute(String line) throws IOException {
+		try {
+			FieldTokenizer words = new FieldTokenizer(line, true);
+			words.nextWord();
+			String attrName = words.nextWord();
+			int open = words.hasNext()? words.position() : line.length(), close = line.lastIndexOf('}');
+			if (open == line.length() || line.charAt(open) != '{' || close < open)
+				throw new IOException("Only nominal attributes are supported: " + line);
+			List<String> values = new ArrayList<>();
+			FieldTokenizer fields = new FieldTokenizer(line, open+1, close, true);
+			while (fields.hasNext()) {
+				values.add(fields.next());
+			}
+			return new EnumAttribute<>(attrName, values.toArray(new String[values.size()]));
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Invalid attribute: " + e.getMessage());
 		}
-		
-		return new EnumAttribute<>(attrName, values);
 	}
 	
-	private Instance parseInstance(String line) {
-		String[] values = line.split(",");
+	private Instance parseInstance(String line) throws IOException {
 		Instance instance = new Instance();
-		for (int i = 0; i < numAttributes(); i++) {
-			instance.addUnchecked(attributes.get(i), new Value<String>(values[i]));
+		try {
+			FieldTokenizer fields = new FieldTokenizer(line, true);
+			for (int i = 0; i < numAttributes(); i++) {
+				if (!fields.hasNext())
+					throw new IOException("Expected " + numAttributes() + " values: " + line);
+				instance.addUnchecked(attributes.get(i), new Value<String>(fields.next()));
+			}
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Invalid instance: " + e.getMessage());
 		}
 		return instance;		
 	}
 	
+	/**
+	 * Parses a row in sparse ARFF format: <code>{index value, ...}</code>, attributes not listed have their first value.
+	 */
+	private Instance parseSparseInstance(String line) throws IOException {
+		if (defaults == null) {
+			defaults = new Instance();
+			for (EnumAttribute<?> attribute : attributes) {
+				if (attribute.numValues() > 0) {
+					defaults.addUnchecked(attribute, attribute.valueAt(0));
+				}
+			}
+		}
+		Instance instance = new Instance(defaults);
+		int end = line.lastIndexOf('}');
+		if (end < 0)
+			throw new IOException("Unterminated sparse instance: " + line);
+		FieldTokenizer entries = new FieldTokenizer(line, 1, end, true);
+		while (entries.hasNext()) {
+			int start = entries.position(), stop = line.indexOf(',', start);
+			String entry = line.substring(start, stop < 0 || stop > end? end : stop).trim();
+			try {
+				int attributeIndex = Integer.parseInt(entries.nextWord());
+				if (attributeIndex < 0 || attributeIndex >= numAttributes())
+					throw new IOException("Attribute index out of range in sparse entry: " + entry);
+				if (!entries.hasNext() || line.charAt(entries.position()) == ',')
+					throw new IOException("Missing value in sparse entry: " + entry);
+				instance.addUnchecked(attributes.get(attributeIndex), new Value<String>(entries.next()));
+			} catch (IllegalArgumentException e) {
+				// NumberFormatException or unterminated quoted value
+				throw new IOException("Invalid sparse entry: " + entry, e);
+			}
+		}
+		return instance;
+	}
+	
 	public Dataset(EnumAttribute<?>...attributes) {
 		this.attributes = new ArrayList<>(Arrays.asList(attributes));
 	}
@@ -60,6 +133,7 @@ public class Dataset extends DatasetView {
      *
      */
     public void loadFromFile(File file) throws IOException {
+		ArffLoadEvent event = Events.AVAILABLE? new ArffLoadEvent() : null;
 		String line = null;
 		BufferedReader r = new BufferedReader(new FileReader(file));
 	
@@ -69,18 +143,24 @@ public class Dataset extends DatasetView {
 		    if (!line.isEmpty()) {
 			    if (header) {
 					if (line.startsWith("@relation")) {
-					    name = line.split(" ")[1];
+					    name = parseRelation(line);
 					} else if (line.startsWith("@attribute")) {
 					    addAttribute(parseAttribute(line));
 					} else if (line.startsWith("@data")) {
 						header = false;
 					}
+			    } else if (line.startsWith("{")) {
+			    	sparse = true;
+				    addInstance(parseSparseInstance(line));
 			    } else {
 				    addInstance(parseInstance(line));
 			    }
 		    }
 		}
 		r.close();
+		if (event != null) {
+			event.end(file.getPath(), file.length(), numAttributes(), numInstances());
+		}
     }
     
     /**
@@ -88,6 +168,7 @@ public class Dataset extends DatasetView {
 	 */
 	public void addInstance(Instance instance) {
 		instances.add(instance);
+		encoding = null;
 	}
 	
 	/**
@@ -95,6 +176,7 @@ public class Dataset extends DatasetView {
 	 */
 	public void addInstances(Instance... instances) {
 		this.instances.addAll(Arrays.asList(instances));
+		encoding = null;
 	}
 	
 	/**
@@ -102,6 +184,7 @@ public class Dataset extends DatasetView {
 	 */
 	public void addAttribute(EnumAttribute<?> attribute) {
 		attributes.add(attribute);
+		encoding = null;
 	}
 	
 	/**
@@ -109,6 +192,7 @@ public class Dataset extends DatasetView {
 	 */
 	public void addAttributes(EnumAttribute<?>... attributes) {
 		this.attributes.addAll(Arrays.asList(attributes));
+		encoding = null;
 	}	
 	
 	@Override
@@ -130,6 +214,51 @@ public class Dataset extends DatasetView {
 	public Instance instanceAt(int index) {
 		return instances.get(index);
 	}
+	
+	/**
+	 * Returns the dictionary-encoded instances of this dataset. 
+	 * The encoding is computed once on first access and shared by all views on this dataset (e.g. training and test sets).
+	 * Adding instances or attributes discards the encoding, whereas modifying the values of an instance afterwards
+	 * is not reflected by the encoding.
+	 */
+	@Override
+	public ColumnStore columnStore() {
+		ColumnStore encoding = this.encoding;
+		if (encoding == null) {
+			synchronized (this) {
+				encoding = this.encoding;
+				if (encoding == null) {
+					this.encoding = encoding = sparse? SparseColumnStore.encode(this) : HeapColumnStore.encode(this);
+				}
+			}
+		}
+		return encoding;
+	}
+	
+	/**
+	 * Sets whether the instances are encoded sparsely, i.e. only the values that are not the first value of their attribute are stored
+	 * ({@link SparseColumnStore}). This pays off if most values are the first value of their attribute.
+	 */
+	public void sparse(boolean sparse) {
+		this.sparse = sparse;
+		encoding = null;
+	}
+	
+	/**
+	 * Sets the encoding of the instances, e.g. if they have been read in encoded form, so it is not computed from the instances.
+	 * @see #columnStore()
+	 * @throws IllegalArgumentException If the encoding does not have one row per instance and one column per attribute.
+	 */
+	public void columnStore(@NonNull ColumnStore encoding) {
+		if (encoding.numRows() != numInstances() || encoding.numColumns() != numAttributes())
+			throw new IllegalArgumentException("Expected " + numInstances() + " rows and " + numAttributes() + " columns");
+		this.encoding = encoding;
+	}
+	
+	@Override
+	public int ordinalAt(int index, int attributeIndex) {
+		return columnStore().ordinal(index, attributeIndex);
+	}
 
 
 }
@@ -1,27 +1,30 @@
 package uni.ml.dataset;
 
-import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
 
-import lombok.AllArgsConstructor;
 /**
  * A view on a dataset, that only includes instances with specific (row) indices.
  * @author Julian Brummer
  *
  */
-@AllArgsConstructor
 public class DatasetIndexedView extends DatasetView {
 
 	private DatasetView baseView;
-	private List<Integer> indices;
+	private int[] indices;
+	
+	/**
+	 * Decorates the given dataset(-view) with an index list to select instances.
+	 */
+	public DatasetIndexedView(DatasetView baseView, List<Integer> indices) {
+		this(baseView, indices.stream().mapToInt(i->i).toArray());
+	}
 	
 	/**
 	 * Decorates the given dataset(-view) with an index list to select instances.
 	 */
 	public DatasetIndexedView(DatasetView baseView, int... indices) {
 		this.baseView = baseView;
-		this.indices = Arrays.stream(indices).boxed().collect(Collectors.toList());
+		this.indices = indices;
 	}
 	
 	@Override
@@ -31,7 +34,7 @@ public class DatasetIndexedView extends DatasetView {
 	
 	@Override
 	public int numInstances() {
-		return indices.size();
+		return indices.length;
 	}
 	
 	@Override
@@ -41,7 +44,22 @@ public class DatasetIndexedView extends DatasetView {
 	
 	@Override
 	public Instance instanceAt(int index) {
-		return baseView.instanceAt(indices.get(index));
+		return baseView.instanceAt(indices[index]);
+	}
+	
+	@Override
+	public int ordinalAt(int index, int attributeIndex) {
+		return baseView.ordinalAt(indices[index], attributeIndex);
+	}
+	
+	@Override
+	public ColumnStore columnStore() {
+		return baseView.columnStore();
+	}
+	
+	@Override
+	public int baseIndex(int index) {
+		return baseView.baseIndex(indices[index]);
 	}
 
 }
@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.SplittableRandom;
 
 import uni.ml.util.Interval;
 import uni.ml.util.Interval.Type;
@@ -146,6 +147,32 @@ public abstract class DatasetView {
 		return new InstanceIterator();
 	}
 	
+// access methods for encoded values
+	
+	/**
+	 * @return The ordinal of the value of the instance (row) at the specified attribute (column), or -1 if the value is missing.
+	 * @see EnumAttribute#indexOf(Value)
+	 */
+	public int ordinalAt(int index, int attributeIndex) {
+		EnumAttribute<?> attribute = attributeAt(attributeIndex);
+		return attribute.indexOf(instanceAt(index).value(attribute));
+	}
+	
+	/**
+	 * @return The column store of the underlying dataset or null if the dataset is not encoded.
+	 * The rows of the column store are addressed by {@link #baseIndex(int)}.
+	 */
+	public ColumnStore columnStore() {
+		return null;
+	}
+	
+	/**
+	 * @return The index of the instance (row) within the underlying dataset.
+	 */
+	public int baseIndex(int index) {
+		return index;
+	}
+	
 //
     
 	
@@ -161,6 +188,17 @@ public abstract class DatasetView {
 		return attrSet;
 	}
 	
+	/**
+	 * @return The index (column) of the specified attribute or -1 if the dataset(-view) does not contain the attribute.
+	 */
+	public int indexOf(Attribute<?> attribute) {
+		for (int i = 0; i < numAttributes(); i++) {
+			if (attributeAt(i).equals(attribute))
+				return i;
+		}
+		return -1;
+	}
+	
 	/**
 	 * A convenience method to access the last attribute, e.g for classification.
 	 * @return the last attribute or null if the dataset view has no attributes.
@@ -175,14 +213,48 @@ public abstract class DatasetView {
 	 * @return The training and test set.
 	 */
 	public DatasetSplit randomSplit(float ratio) {
-		Sampling.Split split = Sampling.randomSplit(ratio, numInstances());
+		return randomSplit(ratio, new SplittableRandom());
+	}
+	
+	/**
+	 * Splits the dataset(-view) randomly into a training- and a test set.
+	 * @param ratio The ratio of the training set. Must be between 0 and 1.
+	 * @param seed The seed of the random split.
+	 * @return The training and test set.
+	 */
+	public DatasetSplit randomSplit(float ratio, long seed) {
+		return randomSplit(ratio, new SplittableRandom(seed));
+	}
+	
+	/**
+	 * Splits the dataset(-view) randomly into a training- and a test set.
+	 * @param ratio The ratio of the training set. Must be between 0 and 1.
+	 * @return The training and test set.
+	 */
+	public DatasetSplit randomSplit(float ratio, SplittableRandom random) {
+		Sampling.Split split = Sampling.randomSplit(ratio, numInstances(), random);
 		return new DatasetSplit(new DatasetIndexedView(this, split.first()), new DatasetIndexedView(this, split.second()));
 	}
 	
+	/**
+	 * Samples instances uniformly from the dataset(-view) with replacement.
+	 * The instance weights are neither used nor modified.
+	 */
+	public DatasetView bootstrapSampling(SplittableRandom random) {
+		return new DatasetIndexedView(this, Sampling.bootstrap(numInstances(), random));
+	}
+	
 	/**
 	 * Normalizes the weights and samples instances from the weighted dataset(-view) with replacement.
 	 */
 	public DatasetView weightedBootstrapSampling() {
+		return weightedBootstrapSampling(new SplittableRandom());
+	}
+	
+	/**
+	 * Normalizes the weights and samples instances from the weighted dataset(-view) with replacement.
+	 */
+	public DatasetView weightedBootstrapSampling(SplittableRandom random) {
 		normalizeWeights();
 		List<Interval> distribution = new ArrayList<>();
 		float margin = 0.0f;
@@ -190,7 +262,7 @@ public abstract class DatasetView {
 			distribution.add(new Interval(margin, margin+instance.weight(), Type.R_OPEN));
 			margin += instance.weight();
 		}
-		return new DatasetIndexedView(this, Sampling.weightedBootstrap(distribution));
+		return new DatasetIndexedView(this, Sampling.weightedBootstrap(distribution, random));
 	}
 	
 	
@@ -225,7 +297,10 @@ public abstract class DatasetView {
 		return sumWeights;
 	}
 	
-	
+	/**
+	 * Builds the attributes and all instances into one string, which is only suitable for small views.
+	 * Large views should be written with {@link uni.ml.io.CsvWriter} or {@link uni.ml.io.ArffWriter} instead.
+	 */
 	@Override
 	public String toString() {
 		// get list of attributes visible in view
@@ -0,0 +1,59 @@
+package uni.ml.dataset;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * Releases the memory of direct buffers explicitly instead of waiting for the garbage collector.
+ * There is no public API for this before the foreign memory API, so the cleaner is invoked by reflection 
+ * (Unsafe.invokeCleaner on Java 9+, DirectByteBuffer.cleaner() on Java 8). If neither is accessible, 
+ * the memory is released by the garbage collector as usual.
+ */
+final class DirectBuffers {
+	
+	private static final Object UNSAFE;
+	private static final Method INVOKE_CLEANER;
+	
+	static {
+		Object unsafe = null;
+		Method invokeCleaner = null;
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			Field field = unsafeClass.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			unsafe = field.get(null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			invokeCleaner = null; // Java 8
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+	}
+	
+	private DirectBuffers() {
+	}
+	
+	/**
+	 * Releases the memory of a direct buffer, which must not be accessed afterwards (including views on it).
+	 */
+	static void free(ByteBuffer buffer) {
+		if (buffer == null || !buffer.isDirect())
+			return;
+		try {
+			if (INVOKE_CLEANER != null) {
+				INVOKE_CLEANER.invoke(UNSAFE, buffer);
+			} else {
+				Method cleaner = buffer.getClass().getMethod("cleaner");
+				cleaner.setAccessible(true);
+				Object c = cleaner.invoke(buffer);
+				if (c != null) {
+					c.getClass().getMethod("clean").invoke(c);
+				}
+			}
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// released by the garbage collector
+		}
+	}
+
+}
@@ -1,9 +1,10 @@
 package uni.ml.dataset;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import lombok.NonNull;
 
@@ -16,7 +17,8 @@ import lombok.NonNull;
  */
 public class EnumAttribute<T extends Comparable<T>> extends Attribute<T> implements Iterable<Value<T>> {
 
-	private List<Value<T>> values;
+	private List<Value<T>> values = new ArrayList<>();
+	private Map<Value<?>, Integer> ordinals = new HashMap<>();
 	
 	/**
 	 * Creates an Attribute with a list of allowed values.
@@ -25,7 +27,9 @@ public class EnumAttribute<T extends Comparable<T>> extends Attribute<T> impleme
 	@SafeVarargs
 	public EnumAttribute(@NonNull String name, Value<T>... values) {
 		super(name);
-		this.values = Arrays.asList(values);
+		for (Value<T> v : values) {
+			addValue(v);
+		}
 	}
 	
 	/**
@@ -35,9 +39,8 @@ public class EnumAttribute<T extends Comparable<T>> extends Attribute<T> impleme
 	@SafeVarargs
 	public EnumAttribute(@NonNull String name, T... values) {
 		super(name);
-		this.values = new ArrayList<>();
 		for (T v : values) {
-			this.values.add(new Value<T>(v));
+			addValue(new Value<T>(v));
 		}
 	}
 	
@@ -46,12 +49,38 @@ public class EnumAttribute<T extends Comparable<T>> extends Attribute<T> impleme
 	 * @param value
 	 */
 	public void addValue(Value<T> value) {
+		ordinals.putIfAbsent(value, values.size());
 		values.add(value);
 	}
 	
 	@Override
 	public boolean isAllowed(Value<?> value) {
-		return values.contains(value);
+		return ordinals.containsKey(value);
+	}
+	
+	/**
+	 * @return The number of allowed values.
+	 */
+	public int numValues() {
+		return values.size();
+	}
+	
+	/**
+	 * @return The allowed value at the specified position (ordinal).
+	 */
+	public Value<T> valueAt(int ordinal) {
+		return values.get(ordinal);
+	}
+	
+	/**
+	 * Maps a value to its position (ordinal) within the list of allowed values.
+	 * @return The ordinal of the value or -1 if the value is not allowed (or null).
+	 */
+	public int indexOf(Value<?> value) {
+		if (value == null)
+			return -1;
+		Integer ordinal = ordinals.get(value);
+		return ordinal == null? -1 : ordinal;
 	}
 
 	@Override
@@ -0,0 +1,67 @@
+package uni.ml.dataset;
+
+/**
+ * A column store keeping one int array per column on the heap.
+ */
+public class HeapColumnStore implements ColumnStore {
+
+	private final int[][] columns;
+	private final int numRows;
+	
+	/**
+	 * @param columns The value ordinals per column, all columns must have the same length.
+	 */
+	public HeapColumnStore(int[][] columns, int numRows) {
+		this.columns = columns;
+		this.numRows = numRows;
+	}
+	
+	/**
+	 * Encodes all instances of a dataset(-view).
+	 */
+	public static HeapColumnStore encode(DatasetView dataset) {
+		int n = dataset.numInstances();
+		int[][] columns = new int[dataset.numAttributes()][n];
+		for (int i = 0; i < n; i++) {
+			Instance instance = dataset.instanceAt(i);
+			for (int c = 0; c < columns.length; c++) {
+				EnumAttribute<?> attribute = dataset.attributeAt(c);
+				columns[c][i] = attribute.indexOf(instance.value(attribute));
+			}
+		}
+		return new HeapColumnStore(columns, n);
+	}
+	
+	@Override
+	public int numRows() {
+		return numRows;
+	}
+
+	@Override
+	public int numColumns() {
+		return columns.length;
+	}
+
+	@Override
+	public int ordinal(int row, int column) {
+		return columns[column][row];
+	}
+	
+	@Override
+	public void countTables(int[] rows, int from, int to, int[] columns, int classColumn, int[][][] tables) {
+		int[] classes = this.columns[classColumn];
+		for (int i = 0; i < columns.length; i++) {
+			int[] values = this.columns[columns[i]];
+			int[][] table = tables[i];
+			for (int r = from; r < to; r++) {
+				int row = rows[r];
+				int c = classes[row];
+				int v = values[row];
+				if (c >= 0 && v >= 0) {
+					table[v][c]++;
+				}
+			}
+		}
+	}
+
+}
@@ -18,6 +18,10 @@ import lombok.experimental.Accessors;
 public class Instance {	
 
 	private Map<Attribute<?>, Value<?>> values = new HashMap<>();
+	/**
+	 * The values of attributes without an entry in a sparse instance, or null.
+	 */
+	private final Instance defaults;
 	@Getter @Setter
 	private float weight = 1.0f;
 	
@@ -25,23 +29,33 @@ public class Instance {
 	 * Creates an instance with a initial list of entries.
 	 */
 	public Instance(Entry<?>... entries) {
+		defaults = null;
 		for (Entry<?> entry : entries) {
 			add(entry);
 		}
 	}
 	
+	/**
+	 * Creates a sparse instance, which only holds the entries that differ from the specified default values
+	 * (e.g. a row of a sparse ARFF file). The defaults are usually shared by all instances of a dataset.
+	 */
+	public Instance(Instance defaults) {
+		this.defaults = defaults;
+	}
+	
 	/**
 	 * Returns whether an entry for the specified attribute is present within this instance.
 	 */
 	public boolean hasAttribute(Attribute<?> attribute) {
-		return values.containsKey(attribute);
+		return values.containsKey(attribute) || (defaults != null && defaults.hasAttribute(attribute));
 	}
 	
 	/**
 	 * @return The value within the instance (row) at the specified attribute (column).
 	 */
 	public Value<?> value(Attribute<?> attribute) {
-		return values.get(attribute);
+		Value<?> value = values.get(attribute);
+		return value != null || defaults == null? value : defaults.value(attribute);
 	}
 	
 	/**
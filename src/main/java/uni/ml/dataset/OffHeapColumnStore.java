@@ -0,0 +1,143 @@
+package uni.ml.dataset;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+
+/**
+ * A column store keeping one direct buffer per column outside of the heap, 
+ * so large long-lived datasets neither fill the old generation nor lengthen full garbage collections.
+ * Each value ordinal takes 1, 2 or 4 bytes depending on the number of values of the attributes.
+ * The columns may also be read-only mappings of a file shared between processes (see {@link uni.ml.io.SharedDatasetFile}).
+ * The memory is released (or unmapped) by {@link #close()}, after which the store must not be used anymore.
+ */
+public class OffHeapColumnStore implements ColumnStore, Closeable {
+
+	private ByteBuffer[] columns;
+	private final int valueWidth;
+	private final int numRows;
+
+	/**
+	 * @param columns The value ordinals per column (direct or mapped buffers with at least numRows values), owned by this store.
+	 * @param valueWidth The number of bytes per value ordinal (1, 2 or 4).
+	 */
+	public OffHeapColumnStore(ByteBuffer[] columns, int valueWidth, int numRows) {
+		if (valueWidth != 1 && valueWidth != 2 && valueWidth != 4)
+			throw new IllegalArgumentException("Invalid value width " + valueWidth);
+		this.columns = columns;
+		this.valueWidth = valueWidth;
+		this.numRows = numRows;
+	}
+
+	/**
+	 * @return The smallest value width (in bytes) that can hold all value ordinals of the attributes.
+	 */
+	public static int valueWidth(EnumAttribute<?>[] attributes) {
+		int maxValues = 0;
+		for (EnumAttribute<?> attribute : attributes) {
+			maxValues = Math.max(maxValues, attribute.numValues());
+		}
+		return maxValues <= Byte.MAX_VALUE? 1 : maxValues <= Short.MAX_VALUE? 2 : 4;
+	}
+
+	/**
+	 * Allocates zeroed direct buffers for the columns.
+	 */
+	public static ByteBuffer[] allocate(int numColumns, int numRows, int valueWidth) {
+		ByteBuffer[] columns = new ByteBuffer[numColumns];
+		for (int c = 0; c < numColumns; c++) {
+			columns[c] = ByteBuffer.allocateDirect(Math.multiplyExact(numRows, valueWidth));
+		}
+		return columns;
+	}
+
+	/**
+	 * Writes a value ordinal into a column buffer.
+	 */
+	public static void put(ByteBuffer column, int valueWidth, int row, int ordinal) {
+		switch (valueWidth) {
+		case 1: column.put(row, (byte) ordinal); break;
+		case 2: column.putShort(2*row, (short) ordinal); break;
+		default: column.putInt(4*row, ordinal);
+		}
+	}
+
+	/**
+	 * Copies the (encoded) instances of a dataset(-view) off the heap.
+	 */
+	public static OffHeapColumnStore encode(DatasetView dataset) {
+		EnumAttribute<?>[] attributes = new EnumAttribute<?>[dataset.numAttributes()];
+		for (int c = 0; c < attributes.length; c++) {
+			attributes[c] = dataset.attributeAt(c);
+		}
+		int width = valueWidth(attributes), n = dataset.numInstances();
+		ByteBuffer[] columns = allocate(attributes.length, n, width);
+		for (int c = 0; c < columns.length; c++) {
+			for (int i = 0; i < n; i++) {
+				put(columns[c], width, i, dataset.ordinalAt(i, c));
+			}
+		}
+		return new OffHeapColumnStore(columns, width, n);
+	}
+
+	@Override
+	public int numRows() {
+		return numRows;
+	}
+
+	@Override
+	public int numColumns() {
+		return columns.length;
+	}
+
+	/**
+	 * @return The number of bytes allocated off the heap.
+	 */
+	public long sizeInBytes() {
+		return (long) columns.length*numRows*valueWidth;
+	}
+
+	private int get(ByteBuffer column, int row) {
+		switch (valueWidth) {
+		case 1: return column.get(row);
+		case 2: return column.getShort(2*row);
+		default: return column.getInt(4*row);
+		}
+	}
+
+	@Override
+	public int ordinal(int row, int column) {
+		return get(columns[column], row);
+	}
+
+	@Override
+	public void countTables(int[] rows, int from, int to, int[] columns, int classColumn, int[][][] tables) {
+		ByteBuffer classes = this.columns[classColumn];
+		for (int i = 0; i < columns.length; i++) {
+			ByteBuffer values = this.columns[columns[i]];
+			int[][] table = tables[i];
+			for (int r = from; r < to; r++) {
+				int row = rows[r];
+				int c = get(classes, row);
+				int v = get(values, row);
+				if (c >= 0 && v >= 0) {
+					table[v][c]++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Releases the memory of the columns.
+	 */
+	@Override
+	public void close() {
+		ByteBuffer[] columns = this.columns;
+		this.columns = null;
+		if (columns != null) {
+			for (ByteBuffer column : columns) {
+				DirectBuffers.free(column);
+			}
+		}
+	}
+
+}
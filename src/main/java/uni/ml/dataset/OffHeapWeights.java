@@ -0,0 +1,85 @@
+package uni.ml.dataset;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * A vector of instance weights in a direct buffer outside of the heap, e.g. for a {@link ColumnarDataset}.
+ * The memory is released by {@link #close()}, after which the vector must not be used anymore.
+ */
+public class OffHeapWeights implements Closeable {
+
+	private ByteBuffer buffer;
+	private FloatBuffer weights;
+	private final int size;
+
+	/**
+	 * Allocates a vector of weights, all 1.
+	 */
+	public OffHeapWeights(int size) {
+		this.size = size;
+		buffer = ByteBuffer.allocateDirect(Math.multiplyExact(size, 4)).order(ByteOrder.nativeOrder());
+		weights = buffer.asFloatBuffer();
+		fill(1.0f);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public float get(int index) {
+		return weights.get(index);
+	}
+
+	public void set(int index, float weight) {
+		weights.put(index, weight);
+	}
+
+	/**
+	 * Multiplies a weight with a factor.
+	 * @return The new weight.
+	 */
+	public float multiply(int index, float factor) {
+		float weight = weights.get(index)*factor;
+		weights.put(index, weight);
+		return weight;
+	}
+
+	public void fill(float weight) {
+		for (int i = 0; i < size; i++) {
+			weights.put(i, weight);
+		}
+	}
+
+	public float sum() {
+		float sum = 0.0f;
+		for (int i = 0; i < size; i++) {
+			sum += weights.get(i);
+		}
+		return sum;
+	}
+
+	/**
+	 * Scales the weights, such that the sum is one.
+	 */
+	public void normalize() {
+		float factor = 1/sum();
+		for (int i = 0; i < size; i++) {
+			weights.put(i, weights.get(i)*factor);
+		}
+	}
+
+	/**
+	 * Releases the memory of the weights.
+	 */
+	@Override
+	public void close() {
+		ByteBuffer buffer = this.buffer;
+		this.buffer = null;
+		weights = null;
+		DirectBuffers.free(buffer);
+	}
+
+}
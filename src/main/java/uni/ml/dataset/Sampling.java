@@ -1,9 +1,11 @@
 package uni.ml.dataset;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
 import java.util.stream.IntStream;
 
 import lombok.AllArgsConstructor;
@@ -12,6 +14,9 @@ import uni.ml.util.Interval;
 
 /**
  * Convenient class to sample instance indices.
+ * All sampling methods draw from a {@link SplittableRandom}, which is not shared between threads:
+ * parallel tasks use their own generators (e.g. split from a seeded generator), 
+ * which makes them reproducible and free of contention.
  * @author Julian Brummer
  */
 public class Sampling {
@@ -19,39 +24,143 @@ public class Sampling {
 	@AllArgsConstructor
 	@ToString(includeFieldNames=true)
 	public static class Split {
-		private List<Integer> first;
-		private List<Integer> second;
+		private int[] first;
+		private int[] second;
 		
 		public int[] first() {
-			return first.stream().mapToInt(i->i).toArray();
+			return first.clone();
 		}
 		
 		public int[] second() {
-			return second.stream().mapToInt(i->i).toArray();
+			return second.clone();
 		}
 		
 		public int sizeFirst() {
-			return first.size();
+			return first.length;
 		}
 		
 		public int sizeSecond() {
-			return second.size();
+			return second.length;
 		}
 	}
 	
+	/**
+	 * Shuffles an array in place (Fisher-Yates).
+	 */
+	public static void shuffle(int[] array, SplittableRandom random) {
+		for (int i = array.length-1; i > 0; i--) {
+			int j = random.nextInt(i+1);
+			int tmp = array[i];
+			array[i] = array[j];
+			array[j] = tmp;
+		}
+	}
+	
+	/**
+	 * Splits the indices 0 to numIndices-1 randomly into two sets.
+	 * Uses a new, randomly seeded generator.
+	 * @param ratio The ratio of the first set. Must be between 0 and 1.
+	 */
 	public static Split randomSplit(float ratio, int numIndices) {
+		return randomSplit(ratio, numIndices, new SplittableRandom());
+	}
+	
+	/**
+	 * Splits the indices 0 to numIndices-1 randomly into two sets.
+	 * @param ratio The ratio of the first set. Must be between 0 and 1.
+	 */
+	public static Split randomSplit(float ratio, int numIndices, SplittableRandom random) {
 		int n = Math.min((int) Math.ceil(ratio*numIndices), numIndices);
 		int[] indices = IntStream.range(0, numIndices).toArray();
-		List<Integer> indexList = Arrays.stream(indices).boxed().collect(Collectors.toList());
-		Collections.shuffle(indexList);
-		return new Split(indexList.subList(0, n), indexList.subList(n, numIndices));
+		shuffle(indices, random);
+		return new Split(Arrays.copyOfRange(indices, 0, n), Arrays.copyOfRange(indices, n, numIndices));
 	}
 	
 	
+	/**
+	 * Distributes indices randomly into k folds of (nearly) equal size, such that each fold
+	 * has (nearly) the same distribution of classes (stratification).
+	 * @param classes The class of each index (e.g. a class value ordinal).
+	 * @return The indices of each fold.
+	 */
+	public static int[][] stratifiedFolds(int[] classes, int k, SplittableRandom random) {
+		// group indices by class
+		Map<Integer, List<Integer>> groups = new TreeMap<>();
+		for (int i = 0; i < classes.length; i++) {
+			groups.computeIfAbsent(classes[i], c -> new ArrayList<>()).add(i);
+		}
+		// deal the shuffled groups round-robin into the folds
+		int[] sizes = new int[k];
+		int[][] folds = new int[k][classes.length/k + 1];
+		int f = 0;
+		for (List<Integer> group : groups.values()) {
+			int[] indices = group.stream().mapToInt(i->i).toArray();
+			shuffle(indices, random);
+			for (int index : indices) {
+				folds[f][sizes[f]++] = index;
+				f = (f+1) % k;
+			}
+		}
+		for (f = 0; f < k; f++) {
+			folds[f] = Arrays.copyOf(folds[f], sizes[f]);
+		}
+		return folds;
+	}
+	
+	/**
+	 * Samples numIndices indices uniformly with replacement.
+	 */
+	public static int[] bootstrap(int numIndices, SplittableRandom random) {
+		int[] indices = new int[numIndices];
+		for (int i = 0; i < indices.length; i++) {
+			indices[i] = random.nextInt(numIndices);
+		}
+		return indices;
+	}
+	
+	/**
+	 * Samples weights.length indices with replacement, each index drawn with a probability proportional to its weight.
+	 * Uses a cumulative distribution and binary search, so sampling takes O(n log n).
+	 */
+	public static int[] weightedBootstrap(float[] weights, SplittableRandom random) {
+		return weightedBootstrap(weights, weights.length, random);
+	}
+	
+	/**
+	 * Samples numIndices indices with replacement, each index drawn with a probability proportional to its weight.
+	 * @see #weightedBootstrap(float[], SplittableRandom)
+	 */
+	public static int[] weightedBootstrap(float[] weights, int numIndices, SplittableRandom random) {
+		double[] cumulative = new double[weights.length];
+		double sum = 0.0;
+		for (int i = 0; i < weights.length; i++) {
+			sum += weights[i];
+			cumulative[i] = sum;
+		}
+		int[] indices = new int[numIndices];
+		for (int i = 0; i < indices.length; i++) {
+			int j = Arrays.binarySearch(cumulative, random.nextDouble()*sum);
+			j = j < 0? -j-1 : j+1; // first index with a cumulative weight greater than the draw
+			indices[i] = Math.min(j, weights.length-1);
+		}
+		return indices;
+	}
+	
+	/**
+	 * Samples distribution.size() indices with replacement, each index drawn with the probability given by its interval.
+	 * Uses a new, randomly seeded generator.
+	 */
 	public static int[] weightedBootstrap(List<Interval> distribution) {
+		return weightedBootstrap(distribution, new SplittableRandom());
+	}
+	
+	/**
+	 * Samples distribution.size() indices with replacement, each index drawn with the probability given by its interval.
+	 */
+	public static int[] weightedBootstrap(List<Interval> distribution, SplittableRandom random) {
 		int[] indices = new int[distribution.size()];
 		for (int i = 0; i < indices.length; i++) {
-			float draw = (float) Math.random();
+			float draw = (float) random.nextDouble();
 			for (int j = 0; j < distribution.size(); j++) {
 				if (distribution.get(j).containsValue(draw)) {
 					indices[i] = j;
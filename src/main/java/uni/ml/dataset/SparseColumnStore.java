@@ -0,0 +1,128 @@
+package uni.ml.dataset;
+
+import java.util.Arrays;
+
+/**
+ * A column store for data that mostly consists of the default value (ordinal 0) of each attribute,
+ * as in sparse ARFF files. Only the non-default ordinals (including missing values) are stored,
+ * row by row in compressed sparse row (CSR) arrays: the entries of row r are at offsets[r] (inclusive)
+ * to offsets[r+1] (exclusive) of columnIndices and ordinals, sorted by column.
+ */
+public class SparseColumnStore implements ColumnStore {
+
+	private final int numRows, numColumns;
+	private final int[] offsets;
+	private final int[] columnIndices;
+	private final int[] ordinals;
+
+	/**
+	 * @param offsets The start offset of the entries of each row, followed by the end offset (length numRows+1).
+	 * @param columnIndices The column of each entry, ascending within a row.
+	 * @param ordinals The non-default value ordinal of each entry.
+	 */
+	public SparseColumnStore(int numRows, int numColumns, int[] offsets, int[] columnIndices, int[] ordinals) {
+		this.numRows = numRows;
+		this.numColumns = numColumns;
+		this.offsets = offsets;
+		this.columnIndices = columnIndices;
+		this.ordinals = ordinals;
+	}
+
+	/**
+	 * Encodes all instances of a dataset(-view), storing only the values that are not the first value of their attribute.
+	 */
+	public static SparseColumnStore encode(DatasetView dataset) {
+		int n = dataset.numInstances(), m = dataset.numAttributes();
+		int[] offsets = new int[n+1];
+		int[] columnIndices = new int[Math.max(16, n)];
+		int[] ordinals = new int[columnIndices.length];
+		int size = 0;
+		for (int i = 0; i < n; i++) {
+			Instance instance = dataset.instanceAt(i);
+			for (int c = 0; c < m; c++) {
+				EnumAttribute<?> attribute = dataset.attributeAt(c);
+				int v = attribute.indexOf(instance.value(attribute));
+				if (v != 0) {
+					if (size == columnIndices.length) {
+						columnIndices = Arrays.copyOf(columnIndices, 2*size);
+						ordinals = Arrays.copyOf(ordinals, 2*size);
+					}
+					columnIndices[size] = c;
+					ordinals[size++] = v;
+				}
+			}
+			offsets[i+1] = size;
+		}
+		return new SparseColumnStore(n, m, offsets, Arrays.copyOf(columnIndices, size), Arrays.copyOf(ordinals, size));
+	}
+
+	@Override
+	public int numRows() {
+		return numRows;
+	}
+
+	@Override
+	public int numColumns() {
+		return numColumns;
+	}
+
+	/**
+	 * @return The number of stored (non-default) entries.
+	 */
+	public int numEntries() {
+		return offsets[numRows];
+	}
+
+	@Override
+	public int ordinal(int row, int column) {
+		int e = Arrays.binarySearch(columnIndices, offsets[row], offsets[row+1], column);
+		return e >= 0? ordinals[e] : 0;
+	}
+
+	/**
+	 * Reads only the non-default entries of each row: the rows are counted per class and
+	 * the count of the default value of a column is derived by subtracting the rows with another (or a missing) value.
+	 */
+	@Override
+	public void countTables(int[] rows, int from, int to, int[] columns, int classColumn, int[][][] tables) {
+		int numClasses = 0;
+		for (int[][] table : tables) {
+			if (table.length > 0) {
+				numClasses = table[0].length;
+				break;
+			}
+		}
+		int[] slots = new int[numColumns];
+		Arrays.fill(slots, -1);
+		for (int i = 0; i < columns.length; i++) {
+			slots[columns[i]] = i;
+		}
+		int[] classCounts = new int[numClasses];
+		int[][] nonDefaultCounts = new int[columns.length][numClasses];
+		for (int r = from; r < to; r++) {
+			int row = rows[r];
+			int c = ordinal(row, classColumn);
+			if (c < 0)
+				continue;
+			classCounts[c]++;
+			for (int e = offsets[row]; e < offsets[row+1]; e++) {
+				int i = slots[columnIndices[e]];
+				if (i >= 0) {
+					int v = ordinals[e];
+					if (v > 0) {
+						tables[i][v][c]++;
+					}
+					nonDefaultCounts[i][c]++;
+				}
+			}
+		}
+		for (int i = 0; i < columns.length; i++) {
+			if (tables[i].length == 0)
+				continue;
+			for (int c = 0; c < numClasses; c++) {
+				tables[i][0][c] += classCounts[c] - nonDefaultCounts[i][c];
+			}
+		}
+	}
+
+}
@@ -9,51 +9,61 @@ package uni.ml.exercise;
 import java.io.File;
 import java.io.IOException;
 
+import uni.ml.dataset.ColumnarDataset;
 import uni.ml.dataset.Dataset;
 import uni.ml.dataset.DatasetSplit;
 import uni.ml.dataset.DatasetView;
+import uni.ml.io.BinaryDatasetReader;
+import uni.ml.io.ChunkedColumnStore;
+import uni.ml.io.CsvDatasetReader;
+import uni.ml.io.CsvWriter;
+import uni.ml.io.SharedDatasetFile;
 import uni.ml.learning.BoostingForestModel;
+import uni.ml.learning.ConfusionMatrix;
+import uni.ml.serving.BatchScorer;
+import uni.ml.tree.CompiledForest;
 
 /**
  * The main class for Exercise03 Task02.
+ * Usage: [arff, csv, binary (.bin, loaded off-heap) or shared (.shm) file or directory of chunk files] [numBoostingIterations] [maxDepth] 
+ * [model_file to save the model to (optional)]
+ * or: score [model_file] [input arff or csv file] [output file] [batch size (optional)] [threads (optional)]
+ * or: share [input arff or csv file] [output .shm file, e.g. under /dev/shm]
  * @author Julian Brummer
  *
  */
 public class Exercise03Task02 {
+	
+	/**
+	 * The maximum number of values per attribute of a CSV file (to detect columns that are not nominal).
+	 */
+	private static final int MAX_CSV_VALUES = 1000;
+	/**
+	 * The maximum number of mapped chunks of an out-of-core dataset.
+	 */
+	private static final int MAX_RESIDENT_CHUNKS = 16;
 
 
 	public static void main(String[] args) {
-		Dataset dataset = new Dataset();
+		if (args.length > 0 && args[0].equals("score")) {
+			score(args);
+			return;
+		}
+		if (args.length > 0 && args[0].equals("share")) {
+			share(args);
+			return;
+		}
 		if (args.length > 0) {
 			try {
-				dataset.loadFromFile(new File(args[0]));
-				DatasetSplit split = dataset.randomSplit(2.0f/3.0f);
-				
-				System.out.println("Dataset: " + dataset.name());
-				System.out.println();
-
-				System.out.println("Training set:");
-				System.out.println(split.trainingSet);
-				System.out.println();
-				System.out.println("Test set:");
-				System.out.println(split.testSet);
-				System.out.println();
-				
-				int numIterations = Integer.parseInt(args[1]);
-				int maxDepth = Integer.parseInt(args[2]);
-				DatasetView sampledSet = split.trainingSet;
-				BoostingForestModel model = new BoostingForestModel(numIterations, maxDepth);
-				model.trainModel(sampledSet, dataset.lastAttribute());
-				model.print();
-
-				System.out.println("Dataset: " + dataset.name());
-				System.out.println("Boosting Iterations: " + numIterations);
-				System.out.println("MaxDepth: " + maxDepth);
-				System.out.println("Size of training set: " + split.trainingSet.numInstances());
-				System.out.println("Size of test set: " + split.testSet.numInstances());
-				System.out.println("Correctly classified: " + model.testModel(split.testSet, dataset.lastAttribute()));		
-				System.out.println(model.trainAndTestModel(dataset, 2.0f/3.0f, 10, dataset.lastAttribute()));
-			
+				DatasetView dataset = open(args[0]);
+				if (dataset instanceof ColumnarDataset) {
+					// off-heap and mapped datasets are released when training is done
+					try (ColumnarDataset columnar = (ColumnarDataset) dataset) {
+						train(columnar, args);
+					}
+				} else {
+					train(dataset, args);
+				}
 			} catch (IOException e) {
 				e.printStackTrace();
 				
@@ -61,5 +71,115 @@ public class Exercise03Task02 {
 		}
 		
 	}
+	
+	private static void train(DatasetView dataset, String[] args) throws IOException {
+		String name = dataset instanceof ColumnarDataset? ((ColumnarDataset) dataset).name() : ((Dataset) dataset).name();
+		DatasetSplit split = dataset.randomSplit(2.0f/3.0f);
+		
+		System.out.println("Dataset: " + name);
+		System.out.println();
+
+		System.out.println("Training set:");
+		print(split.trainingSet);
+		System.out.println();
+		System.out.println("Test set:");
+		print(split.testSet);
+		System.out.println();
+		
+		int numIterations = Integer.parseInt(args[1]);
+		int maxDepth = Integer.parseInt(args[2]);
+		DatasetView sampledSet = split.trainingSet;
+		BoostingForestModel model = new BoostingForestModel(numIterations, maxDepth);
+		model.trainModel(sampledSet, dataset.lastAttribute());
+		model.print();
+		if (args.length > 3) {
+			model.save(new File(args[3]));
+		}
+
+		System.out.println("Dataset: " + name);
+		System.out.println("Boosting Iterations: " + numIterations);
+		System.out.println("MaxDepth: " + maxDepth);
+		System.out.println("Size of training set: " + split.trainingSet.numInstances());
+		System.out.println("Size of test set: " + split.testSet.numInstances());
+		ConfusionMatrix matrix = model.evaluate(split.testSet, dataset.lastAttribute());
+		System.out.println("Correctly classified: " + matrix.accuracy());
+		System.out.println(matrix);
+		System.out.println(model.trainAndTestModel(dataset, 2.0f/3.0f, 10, dataset.lastAttribute()));
+	}
+	
+	/**
+	 * Opens a directory of chunk files, a shared (.shm) or binary (.bin) file as {@link ColumnarDataset}, 
+	 * which has to be closed, or loads an ARFF or CSV file into memory.
+	 */
+	private static DatasetView open(String fileName) throws IOException {
+		File file = new File(fileName);
+		if (file.isDirectory())
+			return new ChunkedColumnStore(file, MAX_RESIDENT_CHUNKS).toDataset();
+		if (fileName.toLowerCase().endsWith(".shm"))
+			return SharedDatasetFile.open(file);
+		if (fileName.toLowerCase().endsWith(".bin"))
+			return BinaryDatasetReader.loadOffHeap(file);
+		return load(fileName);
+	}
+	
+	/**
+	 * Loads an ARFF or CSV file into memory.
+	 */
+	private static Dataset load(String fileName) throws IOException {
+		if (fileName.toLowerCase().endsWith(".csv"))
+			return new CsvDatasetReader().maxValues(MAX_CSV_VALUES).load(new File(fileName));
+		Dataset dataset = new Dataset();
+		dataset.loadFromFile(new File(fileName));
+		return dataset;
+	}
+	
+	/**
+	 * Writes a dataset(-view) to the standard output as CSV without building it in memory.
+	 */
+	private static void print(DatasetView view) throws IOException {
+		CsvWriter writer = new CsvWriter(System.out, view);
+		writer.writeAll(view);
+		writer.flush(); // not closed, which would close System.out
+	}
+	
+	/**
+	 * Classifies a file with a saved model in constant memory, see {@link BatchScorer}.
+	 */
+	private static void score(String[] args) {
+		if (args.length < 4) {
+			System.out.println("Usage: score [model_file] [input file] [output file] [batch size] [threads]");
+			return;
+		}
+		try {
+			BatchScorer scorer = new BatchScorer(CompiledForest.load(new File(args[1])));
+			if (args.length > 4)
+				scorer.batchSize(Integer.parseInt(args[4]));
+			if (args.length > 5)
+				scorer.threads(Integer.parseInt(args[5]));
+			long start = System.nanoTime();
+			long n = scorer.score(new File(args[2]), new File(args[3]));
+			double seconds = (System.nanoTime()-start)/1e9;
+			System.out.printf("Classified %d instances in %.2f s (%.0f instances/s)%n", n, seconds, n/seconds);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Encodes a file once into a shared dataset file, which further training processes open with zero copy.
+	 */
+	private static void share(String[] args) {
+		if (args.length < 3) {
+			System.out.println("Usage: share [input file] [output .shm file]");
+			return;
+		}
+		try {
+			Dataset dataset = load(args[1]);
+			SharedDatasetFile.write(new File(args[2]), dataset.name(), dataset);
+			System.out.println("Written " + dataset.numInstances() + " instances to " + args[2]);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
 
 }
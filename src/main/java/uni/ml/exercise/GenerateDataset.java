@@ -0,0 +1,56 @@
+package uni.ml.exercise;
+
+import java.io.File;
+import java.io.IOException;
+
+import uni.ml.io.SyntheticDataGenerator;
+
+/**
+ * Generates a synthetic nominal dataset labeled by a hidden random tree.
+ * The output format is chosen by the file extension: .arff, .chunks (a directory of chunk files for out-of-core training), 
+ * .shm (a shared dataset file, e.g. under /dev/shm) or binary otherwise.
+ * Usage: [output_file] [rows] [attributes (optional, default 10)] [values (optional, default 3)] 
+ * [classes (optional, default 2)] [noise (optional, default 0.05)] [seed (optional, default 0)]
+ */
+public class GenerateDataset {
+	
+	private static final int CHUNK_ROWS = 1 << 20;
+
+	public static void main(String[] args) {
+		if (args.length < 2) {
+			System.out.println("Usage: [output_file (.arff, .chunks, .shm or binary)] [rows] [attributes] [values] [classes] [noise] [seed]");
+			return;
+		}
+		SyntheticDataGenerator generator = new SyntheticDataGenerator().numRows(Long.parseLong(args[1]));
+		if (args.length > 2)
+			generator.numAttributes(Integer.parseInt(args[2]));
+		if (args.length > 3)
+			generator.numValues(Integer.parseInt(args[3]));
+		if (args.length > 4)
+			generator.numClasses(Integer.parseInt(args[4]));
+		if (args.length > 5)
+			generator.noise(Float.parseFloat(args[5]));
+		if (args.length > 6)
+			generator.seed(Long.parseLong(args[6]));
+		
+		File file = new File(args[0]);
+		long start = System.nanoTime();
+		try {
+			if (file.getName().endsWith(".arff")) {
+				generator.writeArff(file);
+			} else if (file.getName().endsWith(".chunks")) {
+				generator.writeChunked(file, CHUNK_ROWS);
+			} else if (file.getName().endsWith(".shm")) {
+				generator.writeShared(file);
+			} else {
+				generator.writeBinary(file);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+		System.out.println(generator);
+		System.out.println("Written " + file + " in " + (System.nanoTime()-start)/1000000 + " ms");
+	}
+
+}
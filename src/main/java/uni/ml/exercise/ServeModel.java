@@ -0,0 +1,48 @@
+package uni.ml.exercise;
+
+import java.io.File;
+import java.io.IOException;
+
+import uni.ml.serving.ScoringServer;
+import uni.ml.tree.CompiledForest;
+
+/**
+ * Serves a saved model over HTTP until the process is terminated, see {@link ScoringServer}.
+ * Usage: [model_file] [port (optional, default 8080)] [batch size (optional, default 64)] [max wait in microseconds (optional, default 500)]
+ * [threads: a pool size or "virtual" (optional, default 64)]
+ */
+public class ServeModel {
+
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.out.println("Usage: [model_file] [port] [batch size] [max wait in microseconds] [threads (pool size or virtual)]");
+			return;
+		}
+		ScoringServer.enableTcpNoDelay();
+		ScoringServer server;
+		try {
+			server = new ScoringServer(CompiledForest.load(new File(args[0])));
+			if (args.length > 1)
+				server.port(Integer.parseInt(args[1]));
+			if (args.length > 2)
+				server.batchSize(Integer.parseInt(args[2]));
+			if (args.length > 3)
+				server.maxWaitMicros(Long.parseLong(args[3]));
+			if (args.length > 4) {
+				if (args[4].equals("virtual")) {
+					server.virtualThreads(true);
+				} else {
+					server.requestThreads(Integer.parseInt(args[4]));
+				}
+			}
+			server.start();
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+		Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+		System.out.println("Serving " + args[0] + " on port " + server.boundPort() 
+				+ (server.usesVirtualThreads()? " with virtual threads" : ""));
+	}
+
+}
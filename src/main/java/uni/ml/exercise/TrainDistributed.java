@@ -0,0 +1,116 @@
+package uni.ml.exercise;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import uni.ml.dataset.ColumnarDataset;
+import uni.ml.dataset.Dataset;
+import uni.ml.dataset.DatasetIndexedView;
+import uni.ml.dataset.DatasetView;
+import uni.ml.io.BinaryDatasetReader;
+import uni.ml.io.CsvDatasetReader;
+import uni.ml.io.SharedDatasetFile;
+import uni.ml.learning.AttributeSubspace;
+import uni.ml.learning.DecisionTreeModel;
+import uni.ml.learning.TrainingCoordinator;
+import uni.ml.learning.TrainingWorker;
+
+/**
+ * Trains a boosted forest on a dataset sharded over several processes, see {@link TrainingCoordinator}.
+ * Each worker loads a dataset file and serves the rows of its shard (the k-th of n contiguous ranges),
+ * a shared dataset file (.shm) is mapped by all workers without copying.
+ * Usage: worker [arff, csv, binary (.bin) or shared (.shm) file] [port] [shard index] [number of shards]
+ * or: coordinator [numBoostingIterations] [maxDepth] [model_file] [seed] [host:port of each worker...]
+ */
+public class TrainDistributed {
+	
+	private static final int MAX_CSV_VALUES = 1000;
+
+	public static void main(String[] args) {
+		if (args.length >= 5 && args[0].equals("worker")) {
+			worker(args);
+		} else if (args.length >= 6 && args[0].equals("coordinator")) {
+			coordinator(args);
+		} else {
+			System.out.println("Usage: worker [dataset file] [port] [shard index] [number of shards]");
+			System.out.println("or: coordinator [numBoostingIterations] [maxDepth] [model_file] [seed] [host:port...]");
+		}
+	}
+	
+	/**
+	 * Opens a shared (.shm) or binary (.bin) file as {@link ColumnarDataset}, which has to be closed,
+	 * or loads an ARFF or CSV file into memory.
+	 */
+	private static DatasetView load(File file) throws IOException {
+		String name = file.getName().toLowerCase();
+		if (name.endsWith(".shm"))
+			return SharedDatasetFile.open(file);
+		if (name.endsWith(".bin"))
+			return BinaryDatasetReader.loadOffHeap(file);
+		if (name.endsWith(".csv"))
+			return new CsvDatasetReader().maxValues(MAX_CSV_VALUES).load(file);
+		Dataset dataset = new Dataset();
+		dataset.loadFromFile(file);
+		return dataset;
+	}
+	
+	private static void worker(String[] args) {
+		try {
+			DatasetView dataset = load(new File(args[1]));
+			if (dataset instanceof ColumnarDataset) {
+				// off-heap and mapped datasets are released when the worker stops
+				try (ColumnarDataset columnar = (ColumnarDataset) dataset) {
+					serve(columnar, args);
+				}
+			} else {
+				serve(dataset, args);
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Serves the shard of a dataset until the worker is closed.
+	 */
+	private static void serve(DatasetView dataset, String[] args) throws IOException {
+		int shard = Integer.parseInt(args[3]), numShards = Integer.parseInt(args[4]);
+		int n = dataset.numInstances();
+		int from = (int) ((long) n*shard/numShards), to = (int) ((long) n*(shard+1)/numShards);
+		int[] rows = new int[to-from];
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = from+i;
+		}
+		TrainingWorker worker = new TrainingWorker(new DatasetIndexedView(dataset, rows), Integer.parseInt(args[2]))
+				.errorHandler(e -> System.err.println("Coordinator session failed: " + e));
+		System.out.println("Serving rows " + from + " to " + to + " of " + args[1] + " on port " + worker.port());
+		worker.run();
+	}
+	
+	private static void coordinator(String[] args) {
+		List<InetSocketAddress> addresses = new ArrayList<>();
+		for (int i = 5; i < args.length; i++) {
+			int colon = args[i].lastIndexOf(':');
+			addresses.add(new InetSocketAddress(args[i].substring(0, colon), Integer.parseInt(args[i].substring(colon+1))));
+		}
+		try (TrainingCoordinator coordinator = new TrainingCoordinator(addresses)) {
+			int numIterations = Integer.parseInt(args[1]);
+			int maxDepth = Integer.parseInt(args[2]);
+			long seed = Long.parseLong(args[4]);
+			long start = System.nanoTime();
+			List<DecisionTreeModel> models = coordinator.boost(numIterations, coordinator.lastAttribute(), maxDepth, 
+					AttributeSubspace.ALL, new SplittableRandom(seed));
+			double seconds = (System.nanoTime()-start)/1e9;
+			coordinator.compile(models, coordinator.lastAttribute()).save(new File(args[3]));
+			System.out.printf("Trained %d trees on %d instances of %d workers in %.2f s%n", 
+					models.size(), coordinator.numInstances(), coordinator.numWorkers(), seconds);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+}
@@ -0,0 +1,47 @@
+package uni.ml.exercise;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import uni.ml.dataset.Dataset;
+import uni.ml.learning.GridSearch;
+
+/**
+ * Tunes the number of boosting iterations and the maximum tree depth by a grid search with stratified k-fold cross-validation.
+ * The dataset is loaded and encoded only once for all combinations.
+ * Usage: [path_to_arff_file] [iterations, e.g. 10,50,100] [maxDepths, e.g. 2,3,4] [k (optional, default 10)] [seed (optional)]
+ */
+public class TuneBoosting {
+	
+	private static int[] parseList(String list) {
+		return Arrays.stream(list.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+	}
+
+	public static void main(String[] args) {
+		if (args.length < 3) {
+			System.out.println("Usage: [path_to_arff_file] [iterations, e.g. 10,50,100] [maxDepths, e.g. 2,3,4] [k] [seed]");
+			return;
+		}
+		Dataset dataset = new Dataset();
+		try {
+			dataset.loadFromFile(new File(args[0]));
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+		int k = args.length > 3? Integer.parseInt(args[3]) : 10;
+		GridSearch search = new GridSearch(parseList(args[1]), parseList(args[2]));
+		if (args.length > 4) {
+			search.seed(Long.parseLong(args[4]));
+		}
+		
+		GridSearch.Result result = search.kFold(dataset, k, dataset.lastAttribute());
+		int[] best = result.best();
+		System.out.println("Dataset: " + dataset.name());
+		System.out.println(result);
+		System.out.println("Best: " + result.iterations[best[0]] + " iterations, maxDepth " + result.maxDepths[best[1]] 
+				+ " " + result.results[best[0]][best[1]]);
+	}
+
+}
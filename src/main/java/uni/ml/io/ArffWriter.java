@@ -0,0 +1,94 @@
+package uni.ml.io;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+import uni.ml.dataset.DatasetView;
+import uni.ml.dataset.EnumAttribute;
+
+/**
+ * Writes dictionary-encoded rows as an ARFF file with nominal attributes.
+ * The header is written on construction, the value strings of each attribute are looked up once.
+ * The relation, attribute names and values are quoted as by Weka if they contain separators, quotes, whitespace or '%',
+ * or if they are empty or "?" (the missing value).
+ * <p>
+ * A dataset(-view) is written with <code>new ArffWriter(out, relation, view).writeAll(view)</code>.
+ */
+public class ArffWriter extends TextRowWriter {
+	
+	public ArffWriter(File file, String relation, EnumAttribute<?>[] attributes) throws IOException {
+		this(new BufferedWriter(new FileWriter(file), 1 << 16), relation, attributes);
+	}
+	
+	/**
+	 * @param out The stream to write UTF-8 to (buffered), it is closed by {@link #close()}.
+	 * @param relation The name of the dataset.
+	 * @param view The dataset(-view) whose attributes are written.
+	 */
+	public ArffWriter(OutputStream out, String relation, DatasetView view) throws IOException {
+		this(writer(out), relation, attributes(view));
+	}
+	
+	/**
+	 * @param out The writer to write to, it is closed by {@link #close()}.
+	 * @param relation The name of the dataset.
+	 * @param view The dataset(-view) whose attributes are written.
+	 */
+	public ArffWriter(Writer out, String relation, DatasetView view) throws IOException {
+		this(out, relation, attributes(view));
+	}
+	
+	/**
+	 * @param out The writer to write to, it is closed by {@link #close()}.
+	 * @param relation The name of the dataset.
+	 * @param attributes The attributes (columns) of the rows.
+	 */
+	public ArffWriter(Writer out, String relation, EnumAttribute<?>[] attributes) throws IOException {
+		super(out, attributes);
+		out.write("@relation " + quote(relation) + "\n\n");
+		for (int a = 0; a < attributes.length; a++) {
+			out.write("@attribute " + quote(attributes[a].name()) + " {" + String.join(",", dictionary(a)) + "}\n");
+		}
+		out.write("\n@data\n");
+	}
+	
+	@Override
+	protected String format(String value) {
+		return quote(value);
+	}
+	
+	/**
+	 * Quotes a string by ' if necessary, escaping quotes, backslashes, control characters and '%' by a backslash.
+	 * @return The string as written to an ARFF file.
+	 */
+	static String quote(String value) {
+		if (!value.isEmpty() && !value.equals("?") && !needsQuotes(value))
+			return value;
+		StringBuilder b = new StringBuilder(value.length() + 2).append('\'');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '\\': case '\'': case '"': case '%': b.append('\\').append(c); break;
+			case '\n': b.append("\\n"); break;
+			case '\r': b.append("\\r"); break;
+			case '\t': b.append("\\t"); break;
+			default: b.append(c);
+			}
+		}
+		return b.append('\'').toString();
+	}
+	
+	private static boolean needsQuotes(String value) {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (Character.isWhitespace(c) || ",{}%'\"\\".indexOf(c) >= 0)
+				return true;
+		}
+		return false;
+	}
+
+}
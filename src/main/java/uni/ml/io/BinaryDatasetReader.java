@@ -0,0 +1,188 @@
+package uni.ml.io;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import uni.ml.dataset.ColumnarDataset;
+import uni.ml.dataset.Dataset;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.OffHeapColumnStore;
+
+/**
+ * Reads dictionary-encoded rows in the row-major binary format written by {@link BinaryDatasetWriter}.
+ * The header (attributes and their values) is read on construction, the rows are read one at a time.
+ */
+@Accessors(fluent=true)
+public class BinaryDatasetReader implements Closeable {
+	
+	private final DataInputStream in;
+	@Getter
+	private final String relation;
+	private final EnumAttribute<?>[] attributes;
+	/**
+	 * The number of bytes per value ordinal.
+	 */
+	@Getter
+	private final int valueWidth;
+	/**
+	 * The number of rows or -1 if unknown.
+	 */
+	@Getter
+	private final long numRows;
+	/**
+	 * The position of the first row within the file.
+	 */
+	@Getter
+	private final long dataOffset;
+	
+	public BinaryDatasetReader(File file) throws IOException {
+		this(new FileInputStream(file));
+	}
+	
+	/**
+	 * @param in The stream to read from, it is closed by {@link #close()}.
+	 */
+	public BinaryDatasetReader(InputStream in) throws IOException {
+		this.in = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+		try {
+			if (this.in.readInt() != BinaryFormat.MAGIC)
+				throw new IOException("Not a binary dataset file");
+			int version = this.in.readInt();
+			if (version != BinaryFormat.VERSION)
+				throw new IOException("Unsupported binary dataset version " + version);
+			relation = this.in.readUTF();
+			int header = 12 + utfLength(relation);
+			attributes = new EnumAttribute<?>[this.in.readInt()];
+			for (int a = 0; a < attributes.length; a++) {
+				String name = this.in.readUTF();
+				String[] values = new String[this.in.readInt()];
+				header += 4 + utfLength(name);
+				for (int v = 0; v < values.length; v++) {
+					values[v] = this.in.readUTF();
+					header += utfLength(values[v]);
+				}
+				attributes[a] = new EnumAttribute<>(name, values);
+			}
+			valueWidth = this.in.readByte();
+			if (valueWidth != 1 && valueWidth != 2 && valueWidth != 4)
+				throw new IOException("Invalid value width " + valueWidth);
+			numRows = this.in.readLong();
+			dataOffset = header + 9;
+		} catch (IOException e) {
+			this.in.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * @return The number of bytes of a string written by {@link java.io.DataOutput#writeUTF(String)}.
+	 */
+	private static int utfLength(String s) {
+		int length = 2;
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			length += c >= 0x0001 && c <= 0x007F? 1 : c > 0x07FF? 3 : 2;
+		}
+		return length;
+	}
+	
+	/**
+	 * @return The attributes (columns) of the rows.
+	 */
+	public EnumAttribute<?>[] attributes() {
+		return attributes.clone();
+	}
+	
+	/**
+	 * Reads the next row.
+	 * @param row The array to store the value ordinals in (length must be at least the number of attributes).
+	 * @return False if there are no more rows.
+	 */
+	public boolean read(int[] row) throws IOException {
+		for (int c = 0; c < attributes.length; c++) {
+			try {
+				switch (valueWidth) {
+				case 1: row[c] = in.readByte(); break;
+				case 2: row[c] = in.readShort(); break;
+				default: row[c] = in.readInt();
+				}
+			} catch (EOFException e) {
+				if (c == 0)
+					return false;
+				throw new IOException("Truncated row", e);
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Reads all remaining rows.
+	 * @param writer The writer to pass the rows to.
+	 * @return The number of rows read.
+	 */
+	public long readAll(RowWriter writer) throws IOException {
+		int[] row = new int[attributes.length];
+		long n = 0;
+		while (read(row)) {
+			writer.write(row);
+			n++;
+		}
+		return n;
+	}
+	
+	/**
+	 * Loads a binary dataset file into memory.
+	 */
+	public static Dataset load(File file) throws IOException {
+		try (BinaryDatasetReader reader = new BinaryDatasetReader(file)) {
+			DatasetRowWriter writer = new DatasetRowWriter(reader.relation(), reader.attributes());
+			reader.readAll(writer);
+			return writer.dataset();
+		}
+	}
+
+	/**
+	 * Loads a binary dataset file into direct buffers outside of the heap, without creating instances.
+	 * The rows are copied straight into the columns, so the heap usage does not depend on the number of rows.
+	 * The returned dataset has to be closed to release the memory.
+	 * @throws IOException If the file does not store its number of rows.
+	 */
+	public static ColumnarDataset loadOffHeap(File file) throws IOException {
+		try (BinaryDatasetReader reader = new BinaryDatasetReader(file)) {
+			if (reader.numRows < 0 || reader.numRows > Integer.MAX_VALUE)
+				throw new IOException("Unsupported number of rows: " + reader.numRows);
+			int n = (int) reader.numRows, width = reader.valueWidth;
+			ByteBuffer[] columns = OffHeapColumnStore.allocate(reader.attributes.length, n, width);
+			OffHeapColumnStore store = new OffHeapColumnStore(columns, width, n);
+			try {
+				int[] row = new int[columns.length];
+				for (int i = 0; i < n; i++) {
+					if (!reader.read(row))
+						throw new IOException("Expected " + n + " rows, found " + i);
+					for (int c = 0; c < columns.length; c++) {
+						OffHeapColumnStore.put(columns[c], width, i, row[c]);
+					}
+				}
+			} catch (IOException | RuntimeException e) {
+				store.close();
+				throw e;
+			}
+			return new ColumnarDataset(reader.relation, reader.attributes, store);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+}
@@ -0,0 +1,85 @@
+package uni.ml.io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+
+import uni.ml.dataset.EnumAttribute;
+
+/**
+ * Writes dictionary-encoded rows in the row-major binary format, see {@link BinaryDatasetReader}.
+ * When writing to a file, the number of rows is stored in the header on {@link #close()}, 
+ * otherwise it is left unknown and readers read until the end of the stream.
+ */
+public class BinaryDatasetWriter implements RowWriter {
+	
+	private final DataOutputStream out;
+	private final File file;
+	private final int numColumns;
+	private final int valueWidth;
+	private final int rowsOffset;
+	private long numRows;
+	
+	public BinaryDatasetWriter(File file, String relation, EnumAttribute<?>[] attributes) throws IOException {
+		this(new FileOutputStream(file), file, relation, attributes);
+	}
+	
+	/**
+	 * @param out The stream to write to, it is closed by {@link #close()}.
+	 * @param relation The name of the dataset.
+	 * @param attributes The attributes (columns) of the rows.
+	 */
+	public BinaryDatasetWriter(OutputStream out, String relation, EnumAttribute<?>[] attributes) throws IOException {
+		this(out, null, relation, attributes);
+	}
+	
+	private BinaryDatasetWriter(OutputStream out, File file, String relation, EnumAttribute<?>[] attributes) throws IOException {
+		this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+		this.file = file;
+		this.numColumns = attributes.length;
+		this.valueWidth = BinaryFormat.valueWidth(attributes);
+		
+		this.out.writeInt(BinaryFormat.MAGIC);
+		this.out.writeInt(BinaryFormat.VERSION);
+		this.out.writeUTF(relation);
+		BinaryFormat.writeAttributes(this.out, attributes);
+		this.out.writeByte(valueWidth);
+		rowsOffset = this.out.size();
+		this.out.writeLong(BinaryFormat.UNKNOWN_ROWS);
+	}
+	
+	@Override
+	public void write(int[] row) throws IOException {
+		for (int c = 0; c < numColumns; c++) {
+			switch (valueWidth) {
+			case 1: out.writeByte(row[c]); break;
+			case 2: out.writeShort(row[c]); break;
+			default: out.writeInt(row[c]);
+			}
+		}
+		numRows++;
+	}
+	
+	/**
+	 * @return The number of rows written so far.
+	 */
+	public long numRows() {
+		return numRows;
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+		if (file != null) {
+			try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+				raf.seek(rowsOffset);
+				raf.writeLong(numRows);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,75 @@
+package uni.ml.io;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.OffHeapColumnStore;
+
+/**
+ * The row-major binary dataset format.
+ * The encoding of the attributes is also used by other formats and protocols, 
+ * see {@link #writeAttributes(DataOutput, EnumAttribute[])}.
+ * <pre>
+ * int     magic
+ * int     version
+ * UTF     relation
+ * int     number of attributes
+ * per attribute:
+ *   UTF   name
+ *   int   number of values
+ *   UTF   value (per value)
+ * byte    value width in bytes (1, 2 or 4)
+ * long    number of rows or -1 if unknown
+ * rows:   one signed value ordinal per attribute, -1 if missing
+ * </pre>
+ * All rows have the same width, so a row can be located by its index without reading the preceding rows.
+ */
+public final class BinaryFormat {
+	
+	static final int MAGIC = 0x4E4F4D31; // "NOM1"
+	static final int VERSION = 1;
+	static final long UNKNOWN_ROWS = -1;
+	
+	private BinaryFormat() {
+	}
+	
+	/**
+	 * @return The smallest value width (in bytes) that can hold all value ordinals of the attributes.
+	 */
+	static int valueWidth(EnumAttribute<?>[] attributes) {
+		return OffHeapColumnStore.valueWidth(attributes);
+	}
+	
+	/**
+	 * Writes the number of attributes followed by their names and values.
+	 */
+	public static void writeAttributes(DataOutput out, EnumAttribute<?>[] attributes) throws IOException {
+		out.writeInt(attributes.length);
+		for (EnumAttribute<?> attribute : attributes) {
+			out.writeUTF(attribute.name());
+			out.writeInt(attribute.numValues());
+			for (int v = 0; v < attribute.numValues(); v++) {
+				out.writeUTF(attribute.valueAt(v).value().toString());
+			}
+		}
+	}
+	
+	/**
+	 * Reads attributes written by {@link #writeAttributes(DataOutput, EnumAttribute[])}.
+	 */
+	public static EnumAttribute<?>[] readAttributes(DataInput in) throws IOException {
+		EnumAttribute<?>[] attributes = new EnumAttribute<?>[in.readInt()];
+		for (int a = 0; a < attributes.length; a++) {
+			String name = in.readUTF();
+			String[] values = new String[in.readInt()];
+			for (int v = 0; v < values.length; v++) {
+				values[v] = in.readUTF();
+			}
+			attributes[a] = new EnumAttribute<>(name, values);
+		}
+		return attributes;
+	}
+	
+}
@@ -0,0 +1,291 @@
+package uni.ml.io;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import uni.ml.dataset.ColumnStore;
+import uni.ml.dataset.ColumnarDataset;
+import uni.ml.dataset.EnumAttribute;
+
+/**
+ * A read-only column store on disk for datasets that do not fit into the heap, written by {@link ChunkedDatasetWriter}.
+ * The rows are split into chunks of a fixed number of rows, each chunk is a file storing its columns one after another.
+ * Chunks are memory-mapped on access and at most {@link #maxResidentChunks} mappings are kept in an LRU cache
+ * (evicted mappings are released by the garbage collector). When the chunks are scanned in order,
+ * the next chunk is mapped and loaded into memory ahead by a background thread.
+ * <pre>
+ * header.bin:
+ * int     magic
+ * int     version
+ * UTF     relation
+ * int     number of attributes
+ * per attribute:
+ *   UTF   name
+ *   int   number of values
+ *   UTF   value (per value)
+ * byte    value width in bytes (1, 2 or 4)
+ * int     rows per chunk
+ * long    number of rows
+ *
+ * chunk-NNNNNN.bin (per chunk):
+ * per column: one signed value ordinal per row of the chunk (-1 if missing)
+ * </pre>
+ */
+@Accessors(fluent=true)
+public class ChunkedColumnStore implements ColumnStore, Closeable {
+
+	static final int MAGIC = 0x43484B31; // "CHK1"
+	static final int VERSION = 1;
+	static final String HEADER = "header.bin";
+
+	private final File directory;
+	@Getter
+	private final String relation;
+	private final EnumAttribute<?>[] attributes;
+	private final int valueWidth;
+	@Getter
+	private final int chunkRows;
+	private final int numRows;
+	private final int numChunks;
+	@Getter
+	private final int maxResidentChunks;
+	private final LinkedHashMap<Integer, ByteBuffer> resident;
+	private final ExecutorService prefetcher;
+	/**
+	 * The most recently accessed chunk, read without locking.
+	 */
+	private volatile Chunk last;
+	private final LongAdder mapped = new LongAdder(), prefetched = new LongAdder();
+
+	private static class Chunk {
+		final int index;
+		final ByteBuffer buffer;
+		/**
+		 * The first row and the number of rows of the chunk, which is the offset between its columns.
+		 */
+		final int base, numRows;
+
+		Chunk(int index, ByteBuffer buffer, int base, int numRows) {
+			this.index = index;
+			this.buffer = buffer;
+			this.base = base;
+			this.numRows = numRows;
+		}
+	}
+
+	/**
+	 * Opens a directory written by {@link ChunkedDatasetWriter}.
+	 * @param maxResidentChunks The maximum number of chunks kept mapped.
+	 */
+	public ChunkedColumnStore(File directory, int maxResidentChunks) throws IOException {
+		this.directory = directory;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(new File(directory, HEADER))))) {
+			if (in.readInt() != MAGIC)
+				throw new IOException("Not a chunked dataset: " + directory);
+			int version = in.readInt();
+			if (version != VERSION)
+				throw new IOException("Unsupported chunked dataset version " + version);
+			relation = in.readUTF();
+			attributes = BinaryFormat.readAttributes(in);
+			valueWidth = in.readByte();
+			chunkRows = in.readInt();
+			long rows = in.readLong();
+			if (rows > Integer.MAX_VALUE)
+				throw new IOException("Too many rows: " + rows);
+			numRows = (int) rows;
+		}
+		numChunks = (int) ((numRows + (long) chunkRows - 1)/chunkRows);
+		this.maxResidentChunks = Math.max(1, maxResidentChunks);
+		resident = new LinkedHashMap<Integer, ByteBuffer>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, ByteBuffer> eldest) {
+				return size() > ChunkedColumnStore.this.maxResidentChunks;
+			}
+		};
+		prefetcher = Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "chunk-prefetcher");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	static File chunkFile(File directory, int chunk) {
+		return new File(directory, String.format("chunk-%06d.bin", chunk));
+	}
+
+	/**
+	 * @return The attributes (columns) of the rows.
+	 */
+	public EnumAttribute<?>[] attributes() {
+		return attributes.clone();
+	}
+
+	/**
+	 * @return A dataset view on this store.
+	 */
+	public ColumnarDataset toDataset() {
+		return new ColumnarDataset(relation, attributes, this);
+	}
+
+	@Override
+	public int numRows() {
+		return numRows;
+	}
+
+	@Override
+	public int numColumns() {
+		return attributes.length;
+	}
+
+	/**
+	 * @return The number of chunks mapped so far (including prefetched chunks).
+	 */
+	public long numMapped() {
+		return mapped.sum();
+	}
+
+	/**
+	 * @return The number of chunks mapped ahead by the prefetcher.
+	 */
+	public long numPrefetched() {
+		return prefetched.sum();
+	}
+
+	private MappedByteBuffer map(int chunk) throws IOException {
+		try (FileChannel channel = FileChannel.open(chunkFile(directory, chunk).toPath(), StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+			mapped.increment();
+			return buffer;
+		}
+	}
+
+	/**
+	 * @return The chunk, mapping it if it is not resident.
+	 */
+	private Chunk chunk(int index) {
+		Chunk last = this.last;
+		if (last != null && last.index == index)
+			return last;
+		ByteBuffer buffer;
+		synchronized (resident) {
+			buffer = resident.get(index);
+		}
+		if (buffer == null) {
+			try {
+				buffer = map(index);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			synchronized (resident) {
+				resident.put(index, buffer);
+			}
+		}
+		if (last != null && index == last.index+1 && index+1 < numChunks) {
+			prefetch(index+1);
+		}
+		int base = index*chunkRows;
+		Chunk chunk = new Chunk(index, buffer, base, Math.min(chunkRows, numRows-base));
+		this.last = chunk;
+		return chunk;
+	}
+
+	private void prefetch(int index) {
+		synchronized (resident) {
+			if (resident.containsKey(index))
+				return;
+		}
+		try {
+			prefetcher.execute(() -> {
+				synchronized (resident) {
+					if (resident.containsKey(index))
+						return;
+				}
+				try {
+					MappedByteBuffer buffer = map(index);
+					buffer.load();
+					prefetched.increment();
+					synchronized (resident) {
+						resident.putIfAbsent(index, buffer);
+					}
+				} catch (IOException e) {
+					// the chunk is mapped again on access, which reports the error
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// closed
+		}
+	}
+
+	private int get(ByteBuffer buffer, int i) {
+		switch (valueWidth) {
+		case 1: return buffer.get(i);
+		case 2: return buffer.getShort(2*i);
+		default: return buffer.getInt(4*i);
+		}
+	}
+
+	@Override
+	public int ordinal(int row, int column) {
+		Chunk chunk = chunk(row/chunkRows);
+		return get(chunk.buffer, column*chunk.numRows + row - chunk.base);
+	}
+
+	/**
+	 * Looks up the chunk only when a row lies in another chunk than the previous one,
+	 * so rows in ascending order are counted chunk by chunk.
+	 */
+	@Override
+	public void countTables(int[] rows, int from, int to, int[] columns, int classColumn, int[][][] tables) {
+		Chunk chunk = null;
+		for (int r = from; r < to; r++) {
+			int row = rows[r];
+			if (chunk == null || row < chunk.base || row >= chunk.base+chunk.numRows) {
+				chunk = chunk(row/chunkRows);
+			}
+			ByteBuffer buffer = chunk.buffer;
+			int stride = chunk.numRows, offset = row-chunk.base;
+			int c = get(buffer, classColumn*stride + offset);
+			if (c < 0)
+				continue;
+			for (int i = 0; i < columns.length; i++) {
+				int v = get(buffer, columns[i]*stride + offset);
+				if (v >= 0) {
+					tables[i][v][c]++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stops the prefetcher and releases the resident chunks.
+	 */
+	@Override
+	public void close() {
+		prefetcher.shutdownNow();
+		synchronized (resident) {
+			resident.clear();
+		}
+		last = null;
+	}
+
+}
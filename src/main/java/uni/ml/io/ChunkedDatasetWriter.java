@@ -0,0 +1,109 @@
+package uni.ml.io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import uni.ml.dataset.EnumAttribute;
+
+/**
+ * Spills dictionary-encoded rows to a directory of fixed-size chunk files, see {@link ChunkedColumnStore}.
+ * Only the current chunk is buffered in memory, the header is written on {@link #close()}.
+ */
+public class ChunkedDatasetWriter implements RowWriter {
+
+	private final File directory;
+	private final String relation;
+	private final EnumAttribute<?>[] attributes;
+	private final int valueWidth;
+	private final int chunkRows;
+	private final ByteBuffer chunk;
+	private int rowInChunk;
+	private int numChunks;
+	private long numRows;
+
+	/**
+	 * @param directory The directory to write the chunks to, it is created if necessary.
+	 * @param relation The name of the dataset.
+	 * @param attributes The attributes (columns) of the rows.
+	 * @param chunkRows The number of rows per chunk.
+	 */
+	public ChunkedDatasetWriter(File directory, String relation, EnumAttribute<?>[] attributes, int chunkRows) throws IOException {
+		if (chunkRows <= 0)
+			throw new IllegalArgumentException("Invalid number of rows per chunk: " + chunkRows);
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Cannot create directory " + directory);
+		this.directory = directory;
+		this.relation = relation;
+		this.attributes = attributes.clone();
+		this.valueWidth = BinaryFormat.valueWidth(attributes);
+		this.chunkRows = chunkRows;
+		chunk = ByteBuffer.allocate(Math.multiplyExact(Math.multiplyExact(attributes.length, chunkRows), valueWidth));
+	}
+
+	@Override
+	public void write(int[] row) throws IOException {
+		for (int c = 0; c < attributes.length; c++) {
+			int i = c*chunkRows + rowInChunk;
+			switch (valueWidth) {
+			case 1: chunk.put(i, (byte) row[c]); break;
+			case 2: chunk.putShort(2*i, (short) row[c]); break;
+			default: chunk.putInt(4*i, row[c]);
+			}
+		}
+		numRows++;
+		if (++rowInChunk == chunkRows) {
+			flushChunk();
+		}
+	}
+
+	/**
+	 * Writes the buffered rows as the next chunk file. The columns of the last (partial) chunk are moved together first.
+	 */
+	private void flushChunk() throws IOException {
+		if (rowInChunk == 0)
+			return;
+		int columnLength = rowInChunk*valueWidth;
+		for (int c = 1; c < attributes.length && rowInChunk < chunkRows; c++) {
+			System.arraycopy(chunk.array(), c*chunkRows*valueWidth, chunk.array(), c*columnLength, columnLength);
+		}
+		chunk.clear().limit(attributes.length*columnLength);
+		try (FileChannel channel = FileChannel.open(ChunkedColumnStore.chunkFile(directory, numChunks).toPath(),
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			while (chunk.hasRemaining()) {
+				channel.write(chunk);
+			}
+		}
+		chunk.clear();
+		numChunks++;
+		rowInChunk = 0;
+	}
+
+	/**
+	 * @return The number of rows written so far.
+	 */
+	public long numRows() {
+		return numRows;
+	}
+
+	@Override
+	public void close() throws IOException {
+		flushChunk();
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(new File(directory, ChunkedColumnStore.HEADER))))) {
+			out.writeInt(ChunkedColumnStore.MAGIC);
+			out.writeInt(ChunkedColumnStore.VERSION);
+			out.writeUTF(relation);
+			BinaryFormat.writeAttributes(out, attributes);
+			out.writeByte(valueWidth);
+			out.writeInt(chunkRows);
+			out.writeLong(numRows);
+		}
+	}
+
+}
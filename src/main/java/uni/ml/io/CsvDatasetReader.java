@@ -0,0 +1,214 @@
+package uni.ml.io;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import uni.ml.dataset.Dataset;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.Value;
+
+/**
+ * Loads a CSV file into a dataset with nominal attributes in a single streaming pass.
+ * The first line contains the attribute names, every following non-empty line one instance.
+ * Values may be quoted by " or ' (a quote within a quoted value is doubled), surrounding whitespace is ignored,
+ * and "?" or an empty value is missing.
+ * <p>
+ * The values of each attribute are inferred while the rows are read: the characters of a value are looked up
+ * in the dictionary of its column without creating a string, and only a new value is added to the attribute.
+ * The rows are encoded into ordinals as they arrive and kept as the encoding of the dataset.
+ * <p>
+ * Usage: <code>new CsvDatasetReader().maxValues(1000).load(file)</code>
+ */
+@Accessors(fluent=true)
+public class CsvDatasetReader {
+
+	private static final int EOF = -1;
+
+	/**
+	 * The maximum number of values per attribute, 0 for no limit.
+	 * A column exceeding it is reported as soon as the value is read, e.g. an identifier or numeric column.
+	 */
+	@Setter
+	private int maxValues;
+	/**
+	 * The string representing a missing value.
+	 */
+	@Setter
+	private String missing = "?";
+
+	// parser state, valid during load
+	private Reader in;
+	private final char[] buffer = new char[1 << 16];
+	private int position, limit;
+	private char[] field = new char[64];
+	private int length;
+	private long lineNumber, rowLine;
+
+	/**
+	 * Loads a CSV file, the relation is named after the file (without extension).
+	 */
+	public Dataset load(File file) throws IOException {
+		String relation = file.getName();
+		if (relation.toLowerCase().endsWith(".csv")) {
+			relation = relation.substring(0, relation.length()-4);
+		}
+		try (Reader in = new FileReader(file)) {
+			return load(in, relation);
+		}
+	}
+
+	/**
+	 * @param in The reader to read from (not closed).
+	 * @param relation The name of the dataset.
+	 * @throws IOException If the CSV is malformed or an attribute exceeds {@link #maxValues}.
+	 */
+	public Dataset load(Reader in, String relation) throws IOException {
+		this.in = in;
+		position = limit = 0;
+		lineNumber = 1;
+		try {
+			List<String> names = new ArrayList<>();
+			int c;
+			do {
+				c = readField();
+				if (length > 0 || c == ',') {
+					names.add(new String(field, 0, length));
+				}
+			} while (c == ',' || (c == '\n' && names.isEmpty()));
+			if (names.isEmpty())
+				throw new IOException("Missing CSV header");
+
+			List<EnumAttribute<String>> attributes = new ArrayList<>(names.size());
+			ValueDictionary[] dictionaries = new ValueDictionary[names.size()];
+			for (int a = 0; a < dictionaries.length; a++) {
+				attributes.add(new EnumAttribute<String>(names.get(a), new String[0]));
+				dictionaries[a] = new ValueDictionary();
+			}
+			DatasetRowWriter writer = new DatasetRowWriter(relation, attributes.toArray(new EnumAttribute<?>[0]));
+			int[] row = new int[dictionaries.length];
+			while (c != EOF) {
+				rowLine = lineNumber;
+				int column = 0;
+				do {
+					c = readField();
+					if (column == 0 && length == 0 && c != ',')
+						break; // empty line
+					if (column == row.length)
+						throw new IOException("Line " + rowLine + " has more than " + row.length + " values");
+					row[column] = encode(attributes.get(column), dictionaries[column]);
+					column++;
+				} while (c == ',');
+				if (column == 0)
+					continue;
+				if (column < row.length)
+					throw new IOException("Line " + rowLine + " has " + column + " values, expected " + row.length);
+				writer.write(row);
+			}
+			return writer.dataset();
+		} finally {
+			this.in = null;
+		}
+	}
+
+	/**
+	 * @return The ordinal of the current field, adding it to the attribute if new.
+	 */
+	private int encode(EnumAttribute<String> attribute, ValueDictionary dictionary) throws IOException {
+		if (length == 0 || isMissing())
+			return -1;
+		int hash = ValueDictionary.hash(field, length);
+		int ordinal = dictionary.get(field, length, hash);
+		if (ordinal < 0) {
+			if (maxValues > 0 && dictionary.size() >= maxValues)
+				throw new IOException("Attribute " + attribute.name() + " has more than " + maxValues + " values (line " + rowLine
+						+ "), it is probably not nominal");
+			String value = new String(field, 0, length);
+			attribute.addValue(new Value<>(value));
+			ordinal = dictionary.add(value);
+		}
+		return ordinal;
+	}
+
+	private boolean isMissing() {
+		if (length != missing.length())
+			return false;
+		for (int i = 0; i < length; i++) {
+			if (field[i] != missing.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+	private int read() throws IOException {
+		if (position == limit) {
+			limit = in.read(buffer, 0, buffer.length);
+			position = 0;
+			if (limit <= 0) {
+				limit = 0;
+				return EOF;
+			}
+		}
+		return buffer[position++];
+	}
+
+	private void append(int c) {
+		if (length == field.length) {
+			char[] larger = new char[2*length];
+			System.arraycopy(field, 0, larger, 0, length);
+			field = larger;
+		}
+		field[length++] = (char) c;
+	}
+
+	/**
+	 * Reads the next field into field[0] to field[length-1].
+	 * @return The character terminating the field: ',', '\n' or EOF.
+	 */
+	private int readField() throws IOException {
+		length = 0;
+		int c = read();
+		while (c == ' ' || c == '\t' || c == '\r') {
+			c = read();
+		}
+		if (c == '"' || c == '\'') {
+			int quote = c;
+			while (true) {
+				c = read();
+				if (c == EOF)
+					throw new IOException("Unterminated quoted value in line " + lineNumber);
+				if (c == quote) {
+					c = read();
+					if (c != quote)
+						break;
+				} else if (c == '\n') {
+					lineNumber++;
+				}
+				append(c);
+			}
+			while (c != ',' && c != '\n' && c != EOF) {
+				if (c != ' ' && c != '\t' && c != '\r')
+					throw new IOException("Unexpected character after quoted value in line " + lineNumber);
+				c = read();
+			}
+		} else {
+			while (c != ',' && c != '\n' && c != EOF) {
+				append(c);
+				c = read();
+			}
+			while (length > 0 && (field[length-1] == ' ' || field[length-1] == '\t' || field[length-1] == '\r')) {
+				length--;
+			}
+		}
+		if (c == '\n') {
+			lineNumber++;
+		}
+		return c;
+	}
+
+}
@@ -0,0 +1,64 @@
+package uni.ml.io;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+import uni.ml.dataset.DatasetView;
+import uni.ml.dataset.EnumAttribute;
+
+/**
+ * Writes dictionary-encoded rows as a CSV file, starting with a line of attribute names.
+ * Values containing commas or double quotes, starting with a single quote or with surrounding whitespace are quoted by ",
+ * missing values are written as "?".
+ * <p>
+ * A dataset(-view) is written with <code>new CsvWriter(out, view).writeAll(view)</code>.
+ */
+public class CsvWriter extends TextRowWriter {
+	
+	public CsvWriter(File file, EnumAttribute<?>[] attributes) throws IOException {
+		this(new BufferedWriter(new FileWriter(file), 1 << 16), attributes);
+	}
+	
+	/**
+	 * @param out The stream to write UTF-8 to (buffered), it is closed by {@link #close()}.
+	 * @param view The dataset(-view) whose attributes are written.
+	 */
+	public CsvWriter(OutputStream out, DatasetView view) throws IOException {
+		this(writer(out), attributes(view));
+	}
+	
+	/**
+	 * @param out The writer to write to, it is closed by {@link #close()}.
+	 * @param view The dataset(-view) whose attributes are written.
+	 */
+	public CsvWriter(Writer out, DatasetView view) throws IOException {
+		this(out, attributes(view));
+	}
+	
+	/**
+	 * @param out The writer to write to, it is closed by {@link #close()}.
+	 * @param attributes The attributes (columns) of the rows.
+	 */
+	public CsvWriter(Writer out, EnumAttribute<?>[] attributes) throws IOException {
+		super(out, attributes);
+		for (int a = 0; a < attributes.length; a++) {
+			if (a > 0) {
+				out.write(',');
+			}
+			out.write(format(attributes[a].name()));
+		}
+		out.write('\n');
+	}
+	
+	@Override
+	protected String format(String value) {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && !value.startsWith("'") && value.trim().length() == value.length())
+			return value;
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+}
@@ -0,0 +1,61 @@
+package uni.ml.io;
+
+import java.util.Arrays;
+
+import uni.ml.dataset.Dataset;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.HeapColumnStore;
+import uni.ml.dataset.Instance;
+
+/**
+ * Collects dictionary-encoded rows as instances of an in-memory dataset.
+ * Instances share the value objects of the attributes, missing values are omitted.
+ * The ordinals are kept as the encoding of the dataset, so it does not have to be computed from the instances.
+ * Values may be added to the attributes while rows are written, as long as the ordinals of existing values do not change.
+ */
+public class DatasetRowWriter implements RowWriter {
+	
+	private final EnumAttribute<?>[] attributes;
+	private final Dataset dataset;
+	private int[][] columns;
+	private int numRows, capacity = 1024;
+	
+	public DatasetRowWriter(String relation, EnumAttribute<?>[] attributes) {
+		this.attributes = attributes.clone();
+		this.dataset = new Dataset(attributes);
+		dataset.name(relation);
+		columns = new int[attributes.length][capacity];
+	}
+	
+	@Override
+	public void write(int[] row) {
+		Instance instance = new Instance();
+		if (numRows == capacity) {
+			capacity *= 2;
+			for (int a = 0; a < columns.length; a++) {
+				columns[a] = Arrays.copyOf(columns[a], capacity);
+			}
+		}
+		for (int a = 0; a < attributes.length; a++) {
+			if (row[a] >= 0) {
+				instance.addUnchecked(attributes[a], attributes[a].valueAt(row[a]));
+			}
+			columns[a][numRows] = row[a];
+		}
+		numRows++;
+		dataset.addInstance(instance);
+	}
+	
+	/**
+	 * @return The dataset containing the rows written so far.
+	 */
+	public Dataset dataset() {
+		dataset.columnStore(new HeapColumnStore(columns, numRows));
+		return dataset;
+	}
+
+	@Override
+	public void close() {
+	}
+
+}
@@ -0,0 +1,36 @@
+package uni.ml.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import uni.ml.dataset.DatasetView;
+
+/**
+ * Receives dictionary-encoded rows one at a time, e.g. to stream them to a file without holding them in memory.
+ * A row contains one value ordinal per attribute, missing values are represented by -1.
+ * @see uni.ml.dataset.EnumAttribute#indexOf(uni.ml.dataset.Value)
+ */
+public interface RowWriter extends Closeable {
+	
+	/**
+	 * Writes a row. The array is not retained and may be reused by the caller.
+	 */
+	public void write(int[] row) throws IOException;
+	
+	/**
+	 * Writes all instances of a dataset(-view) through their encoded values, reusing one row array.
+	 * The attributes of the view must be the attributes of this writer in the same order.
+	 * @return The number of rows written.
+	 */
+	public default long writeAll(DatasetView view) throws IOException {
+		int[] row = new int[view.numAttributes()];
+		for (int i = 0; i < view.numInstances(); i++) {
+			for (int a = 0; a < row.length; a++) {
+				row[a] = view.ordinalAt(i, a);
+			}
+			write(row);
+		}
+		return view.numInstances();
+	}
+	
+}
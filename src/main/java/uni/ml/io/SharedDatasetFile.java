@@ -0,0 +1,82 @@
+package uni.ml.io;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+
+import uni.ml.dataset.ColumnarDataset;
+import uni.ml.dataset.DatasetView;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.OffHeapColumnStore;
+
+/**
+ * A column-major dataset file that several processes map read-only, e.g. under /dev/shm, 
+ * so training processes on one machine share a single copy of the encoded dataset in the page cache
+ * instead of each parsing and holding its own. Written by {@link SharedDatasetWriter}.
+ * <pre>
+ * int     magic
+ * int     version
+ * UTF     relation
+ * int     number of attributes
+ * per attribute:
+ *   UTF   name
+ *   int   number of values
+ *   UTF   value (per value)
+ * byte    value width in bytes (1, 2 or 4)
+ * int     number of rows
+ * long    position of the first column (a multiple of 8)
+ * columns: one signed value ordinal per row (-1 if missing), column after column
+ * </pre>
+ */
+public final class SharedDatasetFile {
+
+	static final int MAGIC = 0x53484431; // "SHD1"
+	static final int VERSION = 1;
+
+	private SharedDatasetFile() {
+	}
+
+	/**
+	 * Writes the (encoded) instances of a dataset(-view) to a shared dataset file.
+	 */
+	public static void write(File file, String relation, DatasetView dataset) throws IOException {
+		try (SharedDatasetWriter writer = new SharedDatasetWriter(file, relation, TextRowWriter.attributes(dataset), dataset.numInstances())) {
+			writer.writeAll(dataset);
+		}
+	}
+
+	/**
+	 * Maps a shared dataset file read-only without copying it. 
+	 * Only the attributes are read into the heap, the columns are accessed in the page cache.
+	 * Closing the dataset unmaps the file.
+	 */
+	public static ColumnarDataset open(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+			if (in.readInt() != MAGIC)
+				throw new IOException("Not a shared dataset file: " + file);
+			int version = in.readInt();
+			if (version != VERSION)
+				throw new IOException("Unsupported shared dataset version " + version);
+			String relation = in.readUTF();
+			EnumAttribute<?>[] attributes = BinaryFormat.readAttributes(in);
+			int valueWidth = in.readByte();
+			int numRows = in.readInt();
+			long dataOffset = in.readLong();
+			long columnLength = (long) numRows*valueWidth;
+			if (channel.size() < dataOffset + attributes.length*columnLength)
+				throw new IOException("Truncated shared dataset file: " + file);
+			ByteBuffer[] columns = new ByteBuffer[attributes.length];
+			for (int c = 0; c < columns.length; c++) {
+				columns[c] = channel.map(MapMode.READ_ONLY, dataOffset + c*columnLength, columnLength);
+			}
+			return new ColumnarDataset(relation, attributes, new OffHeapColumnStore(columns, valueWidth, numRows));
+		}
+	}
+
+}
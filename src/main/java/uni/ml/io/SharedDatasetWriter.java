@@ -0,0 +1,93 @@
+package uni.ml.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.OffHeapColumnStore;
+
+/**
+ * Writes dictionary-encoded rows to a shared dataset file, see {@link SharedDatasetFile}.
+ * The number of rows has to be known in advance, since the rows are stored column by column.
+ * The rows are written to a temporary file in the same directory, which replaces the file on {@link #close()}, 
+ * so processes opening the file never see a partially written dataset.
+ */
+public class SharedDatasetWriter implements RowWriter {
+
+	private final File file, temporary;
+	private final int numColumns;
+	private final int valueWidth;
+	private final int numRows;
+	private final ByteBuffer[] columns;
+	private int row;
+
+	/**
+	 * @param file The file to write, e.g. under /dev/shm.
+	 * @param relation The name of the dataset.
+	 * @param attributes The attributes (columns) of the rows.
+	 * @param numRows The number of rows that will be written.
+	 */
+	public SharedDatasetWriter(File file, String relation, EnumAttribute<?>[] attributes, int numRows) throws IOException {
+		this.file = file;
+		this.temporary = new File(file.getPath() + ".tmp");
+		this.numColumns = attributes.length;
+		this.valueWidth = BinaryFormat.valueWidth(attributes);
+		this.numRows = numRows;
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream header = new DataOutputStream(bytes);
+		header.writeInt(SharedDatasetFile.MAGIC);
+		header.writeInt(SharedDatasetFile.VERSION);
+		header.writeUTF(relation);
+		BinaryFormat.writeAttributes(header, attributes);
+		header.writeByte(valueWidth);
+		header.writeInt(numRows);
+		long dataOffset = (bytes.size() + 8 + 7) & ~7L;
+		header.writeLong(dataOffset);
+		long columnLength = (long) numRows*valueWidth;
+		if (columnLength > Integer.MAX_VALUE)
+			throw new IOException("Too many rows for a shared dataset file: " + numRows);
+		columns = new ByteBuffer[numColumns];
+		try (FileChannel channel = FileChannel.open(temporary.toPath(), StandardOpenOption.CREATE, 
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			for (int c = 0; c < numColumns; c++) {
+				columns[c] = channel.map(MapMode.READ_WRITE, dataOffset + c*columnLength, columnLength);
+			}
+		}
+	}
+
+	@Override
+	public void write(int[] row) throws IOException {
+		if (this.row == numRows)
+			throw new IOException("More than " + numRows + " rows");
+		for (int c = 0; c < numColumns; c++) {
+			OffHeapColumnStore.put(columns[c], valueWidth, this.row, row[c]);
+		}
+		this.row++;
+	}
+
+	/**
+	 * Replaces the file by the written rows.
+	 * @throws IOException If fewer rows than announced were written.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (row < numRows) {
+			Files.deleteIfExists(temporary.toPath());
+			throw new IOException("Expected " + numRows + " rows, written " + row);
+		}
+		Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+}
@@ -0,0 +1,205 @@
+package uni.ml.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import uni.ml.dataset.Dataset;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.tree.CompiledForest;
+import uni.ml.tree.InnerNode;
+import uni.ml.tree.Leaf;
+import uni.ml.tree.Node;
+import uni.ml.tree.TreeCompiler;
+
+/**
+ * Generates nominal datasets of arbitrary size for scale testing.
+ * The attribute values of each row are drawn uniformly, the class label is assigned by a hidden random decision tree,
+ * so there is structure for a learner to find. With probability {@link #noise} the label is replaced by a random class.
+ * <p>
+ * Rows are generated one at a time and passed to a {@link RowWriter}, so files of any size are written in constant memory.
+ * The same seed and settings always generate the same rows.
+ * <p>
+ * Attributes are named a0, a1, ... with the values v0, v1, ..., the class attribute (last column) is named class
+ * with the values c0, c1, ...
+ */
+@Accessors(fluent=true)
+public class SyntheticDataGenerator {
+	
+	@Setter @Getter
+	private long numRows = 10000;
+	/**
+	 * The number of attributes, not including the class attribute.
+	 */
+	@Setter @Getter
+	private int numAttributes = 10;
+	@Setter @Getter
+	private int numValues = 3;
+	@Setter @Getter
+	private int numClasses = 2;
+	/**
+	 * The depth of the hidden tree. It has up to numValues^depth leaves.
+	 */
+	@Setter @Getter
+	private int depth = 4;
+	/**
+	 * The probability of replacing the label of a row by a random class.
+	 */
+	@Setter @Getter
+	private float noise = 0.05f;
+	@Setter @Getter
+	private long seed = 0;
+	@Setter @Getter
+	private String relation = "synthetic";
+	
+	/**
+	 * @return The attributes of the generated rows, the class attribute is the last one.
+	 */
+	public EnumAttribute<?>[] attributes() {
+		EnumAttribute<?>[] attributes = new EnumAttribute<?>[numAttributes+1];
+		for (int a = 0; a < numAttributes; a++) {
+			attributes[a] = new EnumAttribute<>("a" + a, names("v", numValues));
+		}
+		attributes[numAttributes] = new EnumAttribute<>("class", names("c", numClasses));
+		return attributes;
+	}
+	
+	private static String[] names(String prefix, int n) {
+		String[] names = new String[n];
+		for (int i = 0; i < n; i++) {
+			names[i] = prefix + i;
+		}
+		return names;
+	}
+	
+	private void validate() {
+		if (numRows < 0)
+			throw new IllegalArgumentException("numRows must not be negative");
+		if (numAttributes < 1 || numValues < 1 || numClasses < 1)
+			throw new IllegalArgumentException("There must be at least one attribute, value and class");
+		if (depth < 0)
+			throw new IllegalArgumentException("depth must not be negative");
+		if (noise < 0.0f || noise > 1.0f)
+			throw new IllegalArgumentException("noise must be between 0 and 1");
+	}
+	
+	/**
+	 * Builds the hidden tree. Each inner node splits on a random attribute not used on the path from the root.
+	 */
+	private Node hiddenTree(EnumAttribute<?>[] attributes, boolean[] used, int depth, SplittableRandom random) {
+		EnumAttribute<?> classAttribute = attributes[numAttributes];
+		if (depth == 0) 
+			return new Leaf(classAttribute.valueAt(random.nextInt(numClasses)));
+		int a = random.nextInt(numAttributes);
+		while (used[a]) {
+			a = (a+1) % numAttributes;
+		}
+		used[a] = true;
+		InnerNode node = new InnerNode();
+		node.decisionAttribute(attributes[a]);
+		for (int v = 0; v < numValues; v++) {
+			node.addChild(attributes[a].valueAt(v), hiddenTree(attributes, used, depth-1, random));
+		}
+		used[a] = false;
+		return node;
+	}
+	
+	/**
+	 * @return The hidden tree labeling the rows generated by the current settings.
+	 */
+	public Node hiddenTree() {
+		validate();
+		return hiddenTree(attributes(), new boolean[numAttributes], Math.min(depth, numAttributes), new SplittableRandom(seed));
+	}
+	
+	/**
+	 * Generates all rows and passes them to a writer. The writer is not closed.
+	 * @param attributes The attributes the writer was created with, as returned by {@link #attributes()}.
+	 */
+	public void generate(EnumAttribute<?>[] attributes, RowWriter writer) throws IOException {
+		validate();
+		SplittableRandom random = new SplittableRandom(seed);
+		Node root = hiddenTree(attributes, new boolean[numAttributes], Math.min(depth, numAttributes), random);
+		CompiledForest tree = new TreeCompiler(attributes, attributes[numAttributes]).add(root).toForest();
+		
+		int[] row = new int[numAttributes+1];
+		for (long r = 0; r < numRows; r++) {
+			for (int a = 0; a < numAttributes; a++) {
+				row[a] = random.nextInt(numValues);
+			}
+			row[numAttributes] = random.nextDouble() < noise? random.nextInt(numClasses) : tree.classifyTree(0, row);
+			writer.write(row);
+		}
+	}
+	
+	/**
+	 * Generates the rows into an in-memory dataset.
+	 */
+	public Dataset toDataset() {
+		if (numRows > Integer.MAX_VALUE)
+			throw new IllegalStateException("Too many rows for an in-memory dataset: " + numRows);
+		EnumAttribute<?>[] attributes = attributes();
+		DatasetRowWriter writer = new DatasetRowWriter(relation, attributes);
+		try {
+			generate(attributes, writer);
+		} catch (IOException e) {
+			throw new IllegalStateException(e); // does not happen in memory
+		}
+		return writer.dataset();
+	}
+	
+	/**
+	 * Streams the rows to an ARFF file.
+	 */
+	public void writeArff(File file) throws IOException {
+		EnumAttribute<?>[] attributes = attributes();
+		try (ArffWriter writer = new ArffWriter(file, relation, attributes)) {
+			generate(attributes, writer);
+		}
+	}
+	
+	/**
+	 * Streams the rows to a binary dataset file.
+	 * @see BinaryDatasetReader
+	 */
+	public void writeBinary(File file) throws IOException {
+		EnumAttribute<?>[] attributes = attributes();
+		try (BinaryDatasetWriter writer = new BinaryDatasetWriter(file, relation, attributes)) {
+			generate(attributes, writer);
+		}
+	}
+	
+	/**
+	 * Streams the rows to a directory of chunk files.
+	 * @see ChunkedColumnStore
+	 */
+	public void writeChunked(File directory, int chunkRows) throws IOException {
+		EnumAttribute<?>[] attributes = attributes();
+		try (ChunkedDatasetWriter writer = new ChunkedDatasetWriter(directory, relation, attributes, chunkRows)) {
+			generate(attributes, writer);
+		}
+	}
+	
+	/**
+	 * Streams the rows to a shared dataset file.
+	 * @see SharedDatasetFile
+	 */
+	public void writeShared(File file) throws IOException {
+		if (numRows > Integer.MAX_VALUE)
+			throw new IllegalStateException("Too many rows for a shared dataset file: " + numRows);
+		EnumAttribute<?>[] attributes = attributes();
+		try (SharedDatasetWriter writer = new SharedDatasetWriter(file, relation, attributes, (int) numRows)) {
+			generate(attributes, writer);
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return relation + ": " + numRows + " rows, " + numAttributes + " attributes with " + numValues + " values, " 
+				+ numClasses + " classes, depth " + depth + ", noise " + noise + ", seed " + seed;
+	}
+
+}
@@ -0,0 +1,276 @@
+package uni.ml.io;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.util.FieldTokenizer;
+
+/**
+ * Streams the rows of an ARFF or CSV file, encoding them into value ordinals of a given schema (e.g. the schema of a model).
+ * Only the current line is held in memory. The columns of the file are matched to the schema by attribute name,
+ * columns not in the schema (e.g. the class) are skipped and schema attributes not in the file are missing (-1),
+ * as are values unknown to the schema and "?".
+ * <p>
+ * A CSV file starts with a line of attribute names. Values may be quoted by ' or " and contain commas,
+ * quotes within a quoted value are escaped by a backslash in ARFF and doubled in CSV (see {@link FieldTokenizer}).
+ * ARFF rows may be sparse (<code>{index value, ...}</code>), columns not listed have the first value declared for their attribute.
+ * <p>
+ * Reading lines ({@link #readLine()}) and encoding them ({@link #encode(String, int[])}) are separate steps,
+ * so lines can be encoded concurrently by other threads.
+ */
+@Accessors(fluent=true)
+public class TextRowReader implements Closeable {
+
+	private final BufferedReader in;
+	private final boolean csv;
+	/**
+	 * The attribute names of the file columns.
+	 */
+	private final String[] columnNames;
+	/**
+	 * The schema column of each file column, -1 if not in the schema.
+	 */
+	private final int[] target;
+	private final List<Map<String, Integer>> dictionaries;
+	/**
+	 * The first value of each attribute declared in the ARFF header, which is the value of columns not listed in a sparse row.
+	 */
+	private List<String> firstValues;
+	/**
+	 * The encoded sparse row without entries.
+	 */
+	private final int[] sparseDefaults;
+	/**
+	 * The number of lines read so far (including the header).
+	 */
+	@Getter
+	private long lineNumber;
+
+	/**
+	 * Opens a file, which is read as CSV if its name ends with ".csv" and as ARFF otherwise.
+	 */
+	public TextRowReader(File file, EnumAttribute<?>[] schema) throws IOException {
+		this(new FileReader(file), file.getName().toLowerCase().endsWith(".csv"), schema);
+	}
+
+	/**
+	 * @param in The reader to read from, it is closed by {@link #close()}.
+	 * @param csv True for CSV, false for ARFF.
+	 * @param schema The attributes to encode the rows with.
+	 */
+	public TextRowReader(Reader in, boolean csv, EnumAttribute<?>[] schema) throws IOException {
+		this.in = new BufferedReader(in, 1 << 16);
+		this.csv = csv;
+		try {
+			columnNames = csv? readCsvHeader() : readArffHeader();
+		} catch (IOException e) {
+			this.in.close();
+			throw e;
+		}
+		target = new int[columnNames.length];
+		Arrays.fill(target, -1);
+		dictionaries = new ArrayList<>(schema.length);
+		for (int c = 0; c < schema.length; c++) {
+			Map<String, Integer> dictionary = new HashMap<>();
+			for (int v = 0; v < schema[c].numValues(); v++) {
+				dictionary.put(schema[c].valueAt(v).value().toString(), v);
+			}
+			dictionaries.add(dictionary);
+			for (int i = 0; i < columnNames.length; i++) {
+				if (columnNames[i].equals(schema[c].name())) {
+					target[i] = c;
+				}
+			}
+		}
+		sparseDefaults = new int[schema.length];
+		Arrays.fill(sparseDefaults, -1);
+		for (int i = 0; i < target.length; i++) {
+			if (target[i] >= 0 && firstValues != null && firstValues.get(i) != null) {
+				sparseDefaults[target[i]] = ordinal(target[i], firstValues.get(i));
+			}
+		}
+	}
+
+	private String[] readCsvHeader() throws IOException {
+		String line = nextLine();
+		if (line == null)
+			throw new IOException("Missing CSV header");
+		List<String> names = new ArrayList<>();
+		try {
+			FieldTokenizer fields = new FieldTokenizer(line, false);
+			while (fields.hasNext()) {
+				names.add(fields.next());
+			}
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Invalid CSV header: " + e.getMessage());
+		}
+		return names.toArray(new String[names.size()]);
+	}
+
+	private String[] readArffHeader() throws IOException {
+		List<String> names = new ArrayList<>();
+		firstValues = new ArrayList<>();
+		String line;
+		while ((line = nextLine()) != null) {
+			String lower = line.toLowerCase();
+			if (lower.startsWith("@attribute")) {
+				try {
+					FieldTokenizer words = new FieldTokenizer(line, true);
+					words.nextWord();
+					names.add(words.nextWord());
+					firstValues.add(firstValue(line, words));
+				} catch (IllegalArgumentException e) {
+					throw new IOException("Invalid attribute in line " + lineNumber + ": " + e.getMessage());
+				}
+			} else if (lower.startsWith("@data")) {
+				return names.toArray(new String[names.size()]);
+			}
+		}
+		throw new IOException("Missing @data section");
+	}
+
+	/**
+	 * @return The first value of a nominal attribute declaration, whose name has been read, or null for other attributes.
+	 */
+	private static String firstValue(String line, FieldTokenizer words) {
+		if (!words.hasNext() || line.charAt(words.position()) != '{')
+			return null;
+		int end = line.lastIndexOf('}');
+		FieldTokenizer values = new FieldTokenizer(line, words.position()+1, end < 0? line.length() : end, true);
+		return values.hasNext()? values.next() : null;
+	}
+
+	/**
+	 * @return The next non-empty line that is not an ARFF comment (trimmed) or null at the end of the file.
+	 */
+	private String nextLine() throws IOException {
+		String line;
+		while ((line = in.readLine()) != null) {
+			lineNumber++;
+			line = line.trim();
+			if (!line.isEmpty() && (csv || line.charAt(0) != '%'))
+				return line;
+		}
+		return null;
+	}
+
+	/**
+	 * @return The attribute names of the columns of the file.
+	 */
+	public String[] columnNames() {
+		return columnNames.clone();
+	}
+
+	/**
+	 * @return The number of schema attributes found in the file.
+	 */
+	public int numMatchedColumns() {
+		int n = 0;
+		for (int c : target) {
+			if (c >= 0) {
+				n++;
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Reads the next data line without encoding it.
+	 * @return The line or null at the end of the file.
+	 */
+	public String readLine() throws IOException {
+		return nextLine();
+	}
+
+	/**
+	 * Encodes a data line. Can be called concurrently.
+	 * @param row The array to store the ordinals in (length must be at least the number of schema attributes).
+	 * @return The row array.
+	 * @throws IllegalArgumentException If the line is malformed (e.g. an unterminated quoted value).
+	 */
+	public int[] encode(String line, int[] row) {
+		if (!csv && line.startsWith("{"))
+			return encodeSparse(line, row);
+		Arrays.fill(row, 0, dictionaries.size(), -1);
+		FieldTokenizer fields = new FieldTokenizer(line, !csv);
+		for (int column = 0; column < target.length && fields.hasNext(); column++) {
+			String value = fields.next();
+			int c = target[column];
+			if (c >= 0) {
+				row[c] = ordinal(c, value);
+			}
+		}
+		return row;
+	}
+
+	/**
+	 * Encodes a row in sparse ARFF format: <code>{index value, ...}</code>, columns not listed have the first value of their attribute.
+	 */
+	private int[] encodeSparse(String line, int[] row) {
+		System.arraycopy(sparseDefaults, 0, row, 0, sparseDefaults.length);
+		int end = line.lastIndexOf('}');
+		if (end < 0)
+			throw new IllegalArgumentException("Unterminated sparse row: " + line);
+		FieldTokenizer entries = new FieldTokenizer(line, 1, end, true);
+		while (entries.hasNext()) {
+			String index = entries.nextWord();
+			int column;
+			try {
+				column = Integer.parseInt(index);
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Invalid sparse index " + index + ": " + line);
+			}
+			if (column < 0 || column >= target.length)
+				throw new IllegalArgumentException("Sparse index " + column + " out of range: " + line);
+			if (!entries.hasNext() || line.charAt(entries.position()) == ',')
+				throw new IllegalArgumentException("Missing value for sparse index " + column + ": " + line);
+			String value = entries.next();
+			int c = target[column];
+			if (c >= 0) {
+				row[c] = ordinal(c, value);
+			}
+		}
+		return row;
+	}
+
+	private int ordinal(int column, String value) {
+		Integer ordinal = dictionaries.get(column).get(value);
+		return ordinal != null? ordinal : -1;
+	}
+
+	/**
+	 * Reads and encodes the next row.
+	 * @param row The array to store the ordinals in (length must be at least the number of schema attributes).
+	 * @return False if there are no more rows.
+	 * @throws IOException If the row cannot be read or is malformed.
+	 */
+	public boolean read(int[] row) throws IOException {
+		String line = readLine();
+		if (line == null)
+			return false;
+		try {
+			encode(line, row);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Invalid row in line " + lineNumber + ": " + e.getMessage());
+		}
+		return true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+}
@@ -0,0 +1,90 @@
+package uni.ml.io;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import uni.ml.dataset.DatasetView;
+import uni.ml.dataset.EnumAttribute;
+
+/**
+ * Base class of the text formats, writing the value strings of dictionary-encoded rows separated by commas.
+ * The value string of each attribute value is looked up once, rows are written directly to the (buffered) writer.
+ */
+abstract class TextRowWriter implements RowWriter, Flushable {
+	
+	private static final String MISSING = "?";
+	
+	protected final Writer out;
+	private final String[][] dictionary;
+	
+	protected TextRowWriter(Writer out, EnumAttribute<?>[] attributes) {
+		this.out = out;
+		dictionary = new String[attributes.length][];
+		for (int a = 0; a < attributes.length; a++) {
+			EnumAttribute<?> attribute = attributes[a];
+			dictionary[a] = new String[attribute.numValues()];
+			for (int v = 0; v < attribute.numValues(); v++) {
+				dictionary[a][v] = format(attribute.valueAt(v).value().toString());
+			}
+		}
+	}
+	
+	/**
+	 * @return The string written for a value.
+	 */
+	protected String format(String value) {
+		return value;
+	}
+	
+	/**
+	 * @return The formatted value strings of an attribute (column).
+	 */
+	protected String[] dictionary(int attribute) {
+		return dictionary[attribute];
+	}
+	
+	/**
+	 * @return A buffered UTF-8 writer for a stream.
+	 */
+	static Writer writer(OutputStream out) {
+		return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+	}
+	
+	/**
+	 * @return The attributes (columns) of a dataset(-view) in order.
+	 */
+	static EnumAttribute<?>[] attributes(DatasetView view) {
+		EnumAttribute<?>[] attributes = new EnumAttribute<?>[view.numAttributes()];
+		for (int a = 0; a < attributes.length; a++) {
+			attributes[a] = view.attributeAt(a);
+		}
+		return attributes;
+	}
+	
+	@Override
+	public void write(int[] row) throws IOException {
+		for (int a = 0; a < dictionary.length; a++) {
+			if (a > 0) {
+				out.write(',');
+			}
+			out.write(row[a] < 0? MISSING : dictionary[a][row[a]]);
+		}
+		out.write('\n');
+	}
+	
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+}
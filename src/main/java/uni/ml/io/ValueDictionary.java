@@ -0,0 +1,82 @@
+package uni.ml.io;
+
+/**
+ * A hash table from value strings to ordinals (0, 1, 2, ... in insertion order) that is looked up by a range of characters,
+ * so a string is only created for a new value. Uses open addressing with linear probing.
+ */
+final class ValueDictionary {
+
+	private String[] keys = new String[16];
+	private int[] ordinals = new int[16];
+	private int size;
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @return The hash of the characters, equal to {@link String#hashCode()} of the corresponding string.
+	 */
+	static int hash(char[] chars, int length) {
+		int h = 0;
+		for (int i = 0; i < length; i++) {
+			h = 31*h + chars[i];
+		}
+		return h;
+	}
+
+	private int slot(int hash) {
+		return (hash ^ (hash >>> 16)) & (keys.length-1);
+	}
+
+	private static boolean equals(String key, char[] chars, int length) {
+		if (key.length() != length)
+			return false;
+		for (int i = 0; i < length; i++) {
+			if (key.charAt(i) != chars[i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return The ordinal of the value given by chars[0] to chars[length-1] or -1 if it is not contained.
+	 */
+	int get(char[] chars, int length, int hash) {
+		for (int s = slot(hash); keys[s] != null; s = (s+1) & (keys.length-1)) {
+			if (equals(keys[s], chars, length))
+				return ordinals[s];
+		}
+		return -1;
+	}
+
+	/**
+	 * Adds a value, which must not be contained yet.
+	 * @return The ordinal of the value.
+	 */
+	int add(String value) {
+		if (2*(size+1) > keys.length) {
+			String[] oldKeys = keys;
+			int[] oldOrdinals = ordinals;
+			keys = new String[2*oldKeys.length];
+			ordinals = new int[keys.length];
+			for (int s = 0; s < oldKeys.length; s++) {
+				if (oldKeys[s] != null) {
+					insert(oldKeys[s], oldOrdinals[s]);
+				}
+			}
+		}
+		insert(value, size);
+		return size++;
+	}
+
+	private void insert(String value, int ordinal) {
+		int s = slot(value.hashCode());
+		while (keys[s] != null) {
+			s = (s+1) & (keys.length-1);
+		}
+		keys[s] = value;
+		ordinals[s] = ordinal;
+	}
+
+}
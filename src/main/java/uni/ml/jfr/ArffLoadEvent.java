@@ -0,0 +1,43 @@
+package uni.ml.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("uni.ml.ArffLoad")
+@Label("ARFF Load")
+@Category(Events.CATEGORY)
+@Description("Parsing an ARFF file into a dataset")
+public class ArffLoadEvent extends Event {
+	
+	@Label("File")
+	String file;
+	
+	@Label("File Size")
+	@DataAmount
+	long fileSize;
+	
+	@Label("Attributes")
+	int attributes;
+	
+	@Label("Instances")
+	int instances;
+	
+	public ArffLoadEvent() {
+		begin();
+	}
+	
+	public void end(String file, long fileSize, int attributes, int instances) {
+		if (shouldCommit()) {
+			this.file = file;
+			this.fileSize = fileSize;
+			this.attributes = attributes;
+			this.instances = instances;
+			commit();
+		}
+	}
+
+}
@@ -0,0 +1,33 @@
+package uni.ml.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("uni.ml.BatchClassification")
+@Label("Batch Classification")
+@Category(Events.CATEGORY)
+@Description("Classifying a range of instances with a compiled forest")
+public class BatchClassificationEvent extends Event {
+	
+	@Label("Instances")
+	int instances;
+	
+	@Label("Trees")
+	int trees;
+	
+	public BatchClassificationEvent() {
+		begin();
+	}
+	
+	public void end(int instances, int trees) {
+		if (shouldCommit()) {
+			this.instances = instances;
+			this.trees = trees;
+			commit();
+		}
+	}
+
+}
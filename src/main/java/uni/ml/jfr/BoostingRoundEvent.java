@@ -0,0 +1,47 @@
+package uni.ml.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("uni.ml.BoostingRound")
+@Label("Boosting Round")
+@Category(Events.CATEGORY)
+@Description("Sampling, training and reweighting of one boosting round")
+public class BoostingRoundEvent extends Event {
+	
+	@Label("Round")
+	@Description("The number of models of the ensemble after this round")
+	int round;
+	
+	@Label("Rows")
+	int rows;
+	
+	@Label("Error")
+	float error;
+	
+	@Label("Alpha")
+	float alpha;
+	
+	@Label("Accepted")
+	@Description("False if the model was discarded because its error is not below 0.5")
+	boolean accepted;
+	
+	public BoostingRoundEvent() {
+		begin();
+	}
+	
+	public void end(int round, int rows, float error, float alpha, boolean accepted) {
+		if (shouldCommit()) {
+			this.round = round;
+			this.rows = rows;
+			this.error = error;
+			this.alpha = alpha;
+			this.accepted = accepted;
+			commit();
+		}
+	}
+
+}
@@ -0,0 +1,37 @@
+package uni.ml.jfr;
+
+/**
+ * Custom Java Flight Recorder events of the learner, shown in JDK Mission Control under the category "Machine Learning".
+ * <p>
+ * The events are recorded by JFR only if they are enabled in the recording settings (they are by default) and cost 
+ * almost nothing otherwise. On JVMs without the JFR API (jdk.jfr), {@link #AVAILABLE} is false and the event classes are never loaded,
+ * so callers have to check it before creating an event:
+ * <pre>
+ * TreeBuildEvent event = Events.AVAILABLE? new TreeBuildEvent() : null;
+ * ...
+ * if (event != null) event.end(...);
+ * </pre>
+ * Each event begins on construction and is committed by its end method, if the recording wants it.
+ */
+public final class Events {
+	
+	public static final String CATEGORY = "Machine Learning";
+	
+	/**
+	 * True if the JFR API is available on this JVM.
+	 */
+	public static final boolean AVAILABLE = available();
+	
+	private Events() {
+	}
+	
+	private static boolean available() {
+		try {
+			Class.forName("jdk.jfr.Event", false, Events.class.getClassLoader());
+			return true;
+		} catch (ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+
+}
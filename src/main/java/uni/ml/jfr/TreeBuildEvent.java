@@ -0,0 +1,46 @@
+package uni.ml.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("uni.ml.TreeBuild")
+@Label("Decision Tree Build")
+@Category(Events.CATEGORY)
+@Description("Building a decision tree from an example set")
+public class TreeBuildEvent extends Event {
+	
+	@Label("Rows")
+	int rows;
+	
+	@Label("Maximum Depth")
+	@Description("The depth limit of the tree, non-positive if unlimited")
+	int maxDepth;
+	
+	@Label("Depth")
+	int depth;
+	
+	@Label("Inner Nodes")
+	int innerNodes;
+	
+	@Label("Leaves")
+	int leaves;
+	
+	public TreeBuildEvent() {
+		begin();
+	}
+	
+	public void end(int rows, int maxDepth, int depth, int innerNodes, int leaves) {
+		if (shouldCommit()) {
+			this.rows = rows;
+			this.maxDepth = maxDepth;
+			this.depth = depth;
+			this.innerNodes = innerNodes;
+			this.leaves = leaves;
+			commit();
+		}
+	}
+
+}
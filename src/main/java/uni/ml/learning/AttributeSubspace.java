@@ -0,0 +1,57 @@
+package uni.ml.learning;
+
+/**
+ * Determines how many of the candidate attributes are evaluated when selecting the partition attribute of a node.
+ * Evaluating only a random subset (subspace) of the candidates speeds up training on datasets with many attributes
+ * and decorrelates the trees of an ensemble.
+ */
+public interface AttributeSubspace {
+	
+	/**
+	 * @param numCandidates The number of candidate attributes at a node.
+	 * @return The number of attributes to evaluate (between 1 and numCandidates).
+	 */
+	public int size(int numCandidates);
+	
+	/**
+	 * Evaluates all candidate attributes.
+	 */
+	public static final AttributeSubspace ALL = numCandidates -> numCandidates;
+	
+	/**
+	 * Evaluates sqrt(p) of p candidate attributes (rounded up).
+	 */
+	public static AttributeSubspace sqrt() {
+		return numCandidates -> clamp((int) Math.ceil(Math.sqrt(numCandidates)), numCandidates);
+	}
+	
+	/**
+	 * Evaluates log2(p)+1 of p candidate attributes.
+	 */
+	public static AttributeSubspace log2() {
+		return numCandidates -> clamp((int) (Math.log(numCandidates)/Math.log(2)) + 1, numCandidates);
+	}
+	
+	/**
+	 * Evaluates a fixed number of candidate attributes (or all if there are fewer).
+	 */
+	public static AttributeSubspace fixed(int count) {
+		if (count < 1)
+			throw new IllegalArgumentException("count must be positive");
+		return numCandidates -> clamp(count, numCandidates);
+	}
+	
+	/**
+	 * Evaluates a fraction of the candidate attributes (rounded up).
+	 * @param fraction The fraction of candidates to evaluate. Must be between 0 (exclusive) and 1.
+	 */
+	public static AttributeSubspace fraction(float fraction) {
+		if (fraction <= 0 || fraction > 1)
+			throw new IllegalArgumentException("fraction must be in (0, 1]");
+		return numCandidates -> clamp((int) Math.ceil(fraction*numCandidates), numCandidates);
+	}
+	
+	static int clamp(int size, int numCandidates) {
+		return Math.max(Math.min(size, numCandidates), Math.min(1, numCandidates));
+	}
+}
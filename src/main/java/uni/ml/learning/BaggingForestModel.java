@@ -0,0 +1,130 @@
+package uni.ml.learning;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import uni.ml.dataset.DatasetView;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.tree.Classifier;
+import uni.ml.tree.CompiledForest;
+import uni.ml.tree.TreeCompiler;
+
+/**
+ * A decision forest trained by bootstrap aggregating (bagging).
+ * Each tree is trained independently on a uniform bootstrap sample of the examples,
+ * optionally considering only a random subset of attributes per split (random forest).
+ * Since the trees do not depend on each other, they are trained in parallel.
+ * Each tree draws from its own random stream split from the seed of the model,
+ * so the forest is reproducible regardless of the order in which the trees are trained.
+ * Instances are classified by majority vote.
+ */
+@RequiredArgsConstructor
+@Accessors(fluent=true)
+public class BaggingForestModel extends DecisionModel implements Iterable<DecisionTreeModel> {
+
+	private List<DecisionTreeModel> models = new ArrayList<>();
+	private CompiledForest forest;
+	private final int numTrees, maxDepth;
+	/**
+	 * The number of randomly selected candidate attributes evaluated per split, e.g. {@link AttributeSubspace#sqrt()} for a random forest.
+	 */
+	@Setter @NonNull
+	private AttributeSubspace subspace = AttributeSubspace.ALL;
+	/**
+	 * The seed of the bootstrap samples and of the attribute subspaces.
+	 */
+	@Setter
+	private long seed = ThreadLocalRandom.current().nextLong();
+	
+	public boolean hasModels() {
+		return numModels() > 0;
+	}
+	
+	public int numModels() {
+		return models.size(); 
+	}
+	
+	@Override
+	public Iterator<DecisionTreeModel> iterator() {
+		return models.iterator();
+	}
+	
+	@Override
+	public void trainModel(DatasetView examples, EnumAttribute<?> classAttribute) {
+		SplittableRandom random = new SplittableRandom(seed);
+		SplittableRandom[] streams = new SplittableRandom[numTrees];
+		for (int i = 0; i < numTrees; i++) {
+			streams[i] = random.split();
+		}
+		List<DecisionTreeModel> trained = IntStream.range(0, numTrees).parallel()
+			.mapToObj(i -> {
+				DecisionTreeModel model = new DecisionTreeModel(maxDepth)
+					.subspace(subspace)
+					.seed(streams[i].nextLong());
+				model.trainModel(examples.bootstrapSampling(streams[i]), classAttribute);
+				return model;
+			})
+			.collect(Collectors.toList());
+		
+		EnumAttribute<?>[] schema = new EnumAttribute<?>[examples.numAttributes()];
+		for (int i = 0; i < schema.length; i++) {
+			schema[i] = examples.attributeAt(i);
+		}
+		TreeCompiler compiler = new TreeCompiler(schema, classAttribute);
+		trained.forEach(model -> model.compile(compiler));
+		
+		models = trained;
+		forest = compiler.toForest();
+	}
+
+	/**
+	 * @return The compiled forest of this model or null if the model has not been trained yet.
+	 */
+	public CompiledForest forest() {
+		return forest;
+	}
+	
+	/**
+	 * Saves the compiled forest of this model to a compact binary file, 
+	 * which can be loaded for scoring with {@link CompiledForest#load(File)}.
+	 * @throws IllegalStateException If the model has not been trained.
+	 */
+	public void save(File file) throws IOException {
+		CompiledForest forest = this.forest;
+		if (forest == null)
+			throw new IllegalStateException("The model has not been trained");
+		forest.save(file);
+	}
+	
+	/**
+	 * @return The compiled forest, which classifies by majority vote.
+	 * @throws IllegalStateException If the model has not been trained.
+	 */
+	@Override
+	public Classifier classifier() {
+		if (forest == null)
+			throw new IllegalStateException("The model has not been trained");
+		return forest;
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder b = new StringBuilder();
+		for (DecisionTreeModel model : models) {
+			b.append(model).append("\n");
+		}
+		return b.toString();
+	}
+
+}
@@ -1,49 +1,318 @@
 package uni.ml.learning;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.SplittableRandom;
+import uni.ml.dataset.DatasetIndexedView;
 import uni.ml.dataset.DatasetView;
 import uni.ml.dataset.EnumAttribute;
 import uni.ml.dataset.Instance;
+import uni.ml.dataset.Sampling;
 import uni.ml.dataset.Value;
 import uni.ml.dataset.WeightedValues;
-import uni.ml.tree.Classifier;
+import uni.ml.jfr.BoostingRoundEvent;
+import uni.ml.jfr.Events;
+import uni.ml.tree.CompiledForest;
+import uni.ml.tree.TreeCompiler;
 
 public class Boosting {
 	
+	/**
+	 * Is notified after each boosting round, e.g. to write checkpoints.
+	 */
+	public interface RoundCallback {
+		/**
+		 * @param models The models trained so far.
+		 * @param weights The current instance weights.
+		 */
+		public void roundCompleted(List<DecisionTreeModel> models, float[] weights);
+	}
+	
 	public static List<DecisionTreeModel> modelGeneration(DatasetView dataset, int numIterations, EnumAttribute<?> classAttribute, int maxDepth) {
+		return modelGeneration(dataset, numIterations, classAttribute, maxDepth, AttributeSubspace.ALL, new SplittableRandom());
+	}
+	
+	/**
+	 * Generates a boosted sequence of decision trees.
+	 * @param subspace The number of randomly selected candidate attributes evaluated per split.
+	 * @param random The random number generator to sample instances and seed the trees with.
+	 */
+	public static List<DecisionTreeModel> modelGeneration(DatasetView dataset, int numIterations, EnumAttribute<?> classAttribute, int maxDepth,
+			AttributeSubspace subspace, SplittableRandom random) {
 		List<DecisionTreeModel> models = new ArrayList<>();
-		dataset.assignEqualWeights();
+		boost(dataset, equalWeights(dataset.numInstances()), models, numIterations, classAttribute, maxDepth, subspace, random);
+		return models;
+	}
+	
+	/**
+	 * Continues boosting by appending up to numIterations decision trees to a sequence of models.
+	 * The instance weights are kept in a separate vector, so the instances of the dataset are not modified
+	 * and the same dataset can be used by several boosting runs concurrently.
+	 * @param dataset The training set.
+	 * @param weights The weight of each instance of the training set, updated in place.
+	 * @param models The boosted models so far, new models are appended.
+	 * @return The number of models appended.
+	 */
+	public static int boost(DatasetView dataset, float[] weights, List<DecisionTreeModel> models, int numIterations, 
+			EnumAttribute<?> classAttribute, int maxDepth, AttributeSubspace subspace, SplittableRandom random) {
+		return boost(dataset, weights, models, numIterations, classAttribute, maxDepth, subspace, random, (RoundCallback) null);
+	}
+	
+	/**
+	 * Continues boosting and notifies a callback after each round.
+	 * @param callback The callback or null.
+	 * @see #boost(DatasetView, float[], List, int, EnumAttribute, int, AttributeSubspace, SplittableRandom)
+	 */
+	public static int boost(DatasetView dataset, float[] weights, List<DecisionTreeModel> models, int numIterations, 
+			EnumAttribute<?> classAttribute, int maxDepth, AttributeSubspace subspace, SplittableRandom random, RoundCallback callback) {
+		TrainingListener listener = Instrumentation.listener();
+		boolean timed = listener != TrainingListener.NONE;
 		for (int i = 0; i < numIterations; i++) {
-			DatasetView sampledSet = dataset.weightedBootstrapSampling();
-			// train and test model on same sampled dataset
-			DecisionTreeModel model = new DecisionTreeModel(maxDepth);
+			BoostingRoundEvent event = Events.AVAILABLE? new BoostingRoundEvent() : null;
+			long start = timed? System.nanoTime() : 0L;
+			DatasetView sampledSet = new DatasetIndexedView(dataset, Sampling.weightedBootstrap(weights, random));
+			if (timed) {
+				listener.sampled(sampledSet.numInstances(), System.nanoTime()-start);
+			}
+			DecisionTreeModel model = new DecisionTreeModel(maxDepth).subspace(subspace).seed(random.nextLong());
 			model.trainModel(sampledSet, classAttribute);
-			model.testModel(sampledSet, classAttribute);
-			float e = model.error();
-			
-			//System.out.println(sampledSet);
-			//System.out.println(model);
-			//System.out.println("Error " + e);
-			//System.out.println("\n");
+			float e = addModel(dataset, weights, models, model, sampledSet, classAttribute);
+			if (event != null) {
+				event.end(models.size(), sampledSet.numInstances(), e, alpha(e), e < 0.5f);
+			}
 			
 			// abort if error exceeds 0.5
 			if (e >= 0.5f) {
-				break;
+				return i;
+			}
+			if (timed) {
+				listener.roundCompleted(models.size(), e, alpha(e));
+			}
+			if (callback != null) {
+				callback.roundCompleted(models, weights);
 			}
-			models.add(model); // store valid model
 			if (e == 0.0f) {
+				return i+1;
+			}
+		}
+		return numIterations;
+	}
+	
+	/**
+	 * Completes a boosting round with a model trained on the sampled set:
+	 * The model is tested on the sampled set and only added if its error is below 0.5.
+	 * Then the weights of the correctly classified instances are multiplied by e/(1-e) and normalized
+	 * (unless the error is 0, which ends boosting).
+	 * The tree of the model is compiled once and the instances are classified through their encoded values.
+	 * @param sampledSet A view on the dataset (with the same attributes), e.g. a bootstrap sample.
+	 * @return The error e of the model.
+	 */
+	public static float addModel(DatasetView dataset, float[] weights, List<DecisionTreeModel> models, 
+			DecisionTreeModel model, DatasetView sampledSet, EnumAttribute<?> classAttribute) {
+		CompiledForest tree = new TreeCompiler(schema(dataset), classAttribute).add(model.root()).toForest();
+		int classColumn = dataset.indexOf(classAttribute);
+		// test model on same sampled dataset
+		float e = 1.0f - (float) test(tree, sampledSet, classColumn, null) / sampledSet.numInstances();
+		model.error(e);
+		if (e >= 0.5f) {
+			return e;
+		}
+		models.add(model); // store valid model
+		if (e == 0.0f) {
+			return e;
+		}
+		// recompute and normalize weights
+		TrainingListener listener = Instrumentation.listener();
+		long start = listener != TrainingListener.NONE? System.nanoTime() : 0L;
+		boolean[] correct = new boolean[weights.length];
+		test(tree, dataset, classColumn, correct);
+		for (int j = 0; j < weights.length; j++) {
+			if (correct[j])
+				weights[j] *= e/(1-e);
+		}
+		normalize(weights);
+		if (listener != TrainingListener.NONE) {
+			listener.reweighted(weights.length, System.nanoTime()-start);
+		}
+		return e;
+	}
+	
+	/**
+	 * Classifies the instances of a dataset(-view) with the first tree of a forest compiled for its attributes.
+	 * @param correct The array to mark the correctly classified instances in or null.
+	 * @return The number of correctly classified instances.
+	 */
+	private static int test(CompiledForest tree, DatasetView dataset, int classColumn, boolean[] correct) {
+		int[] row = new int[dataset.numAttributes()];
+		int numCorrect = 0;
+		for (int i = 0; i < dataset.numInstances(); i++) {
+			for (int c = 0; c < row.length; c++) {
+				row[c] = dataset.ordinalAt(i, c);
+			}
+			int actual = row[classColumn];
+			if (actual >= 0 && tree.classifyTree(0, row) == actual) {
+				numCorrect++;
+				if (correct != null) {
+					correct[i] = true;
+				}
+			}
+		}
+		return numCorrect;
+	}
+	
+	/**
+	 * Continues boosting like {@link #boost(DatasetView, float[], List, int, EnumAttribute, int, AttributeSubspace, SplittableRandom)},
+	 * but stops early if the accuracy on a validation set has not improved for a number of rounds.
+	 * The sequence of models is then truncated to the one with the best validation accuracy 
+	 * and the weights are reset to the weights after the last kept model.
+	 * @param validation The scorer of the validation set, which must already contain the models of the sequence (if any).
+	 * @param patience The number of rounds without improvement after which boosting stops.
+	 * @param callback The callback or null.
+	 * @return The number of models appended.
+	 */
+	public static int boost(DatasetView dataset, float[] weights, List<DecisionTreeModel> models, int numIterations, 
+			EnumAttribute<?> classAttribute, int maxDepth, AttributeSubspace subspace, SplittableRandom random,
+			EnsembleScorer validation, int patience, RoundCallback callback) {
+		int initialSize = models.size();
+		int bestSize = initialSize;
+		int bestCorrect = validation.numCorrect();
+		float[] bestWeights = weights.clone();
+		
+		for (int i = 0; i < numIterations && models.size()-bestSize < patience; i++) {
+			if (boost(dataset, weights, models, 1, classAttribute, maxDepth, subspace, random, callback) == 0)
 				break;
+			DecisionTreeModel model = models.get(models.size()-1);
+			validation.add(model, alpha(model.error()));
+			if (validation.numCorrect() > bestCorrect) {
+				bestCorrect = validation.numCorrect();
+				bestSize = models.size();
+				System.arraycopy(weights, 0, bestWeights, 0, weights.length);
 			}
-			// recompute and normalize weights
-			Classifier classifier = model.classifier();
-			for (Instance instance : dataset.instances()) {
-				if (classifier.test(instance, classAttribute))
-					instance.multiplyWeight(e/(1-e));
+			if (model.error() == 0.0f)
+				break;
+		}
+		
+		if (models.size() > bestSize) {
+			models.subList(bestSize, models.size()).clear();
+			System.arraycopy(bestWeights, 0, weights, 0, weights.length);
+		}
+		return bestSize-initialSize;
+	}
+	
+	/**
+	 * Recomputes the instance weights at the end of a boosted sequence of models in a single pass over the dataset.
+	 * Each instance is classified by all models at once. Since the weights are normalized after every round,
+	 * the final weight of an instance is proportional to the product of e/(1-e) over all models classifying it correctly.
+	 * Models with error 0 ended a boosting run without reweighting and are skipped.
+	 * @return The normalized weight of each instance of the dataset.
+	 */
+	public static float[] replayWeights(List<DecisionTreeModel> models, DatasetView dataset, EnumAttribute<?> classAttribute) {
+		float[] weights = equalWeights(dataset.numInstances());
+		if (models.isEmpty() || weights.length == 0)
+			return weights;
+		
+		CompiledForest forest = compile(models, dataset, classAttribute, alphas(models));
+		double[] logBeta = new double[models.size()];
+		for (int t = 0; t < logBeta.length; t++) {
+			float e = models.get(t).error();
+			logBeta[t] = e == 0.0f? 0.0 : Math.log(e/(1-e));
+		}
+		
+		// accumulate in log space to avoid underflow
+		double[] logWeights = new double[weights.length];
+		double maxLogWeight = Double.NEGATIVE_INFINITY;
+		int[] row = new int[forest.numColumns()];
+		for (int i = 0; i < weights.length; i++) {
+			Instance instance = dataset.instanceAt(i);
+			int actual = classAttribute.indexOf(instance.value(classAttribute));
+			forest.encode(instance, row);
+			for (int t = 0; t < logBeta.length; t++) {
+				if (actual >= 0 && forest.classifyTree(t, row) == actual)
+					logWeights[i] += logBeta[t];
 			}
-			dataset.normalizeWeights();
+			maxLogWeight = Math.max(maxLogWeight, logWeights[i]);
 		}
-		return models;
+		for (int i = 0; i < weights.length; i++) {
+			weights[i] = (float) Math.exp(logWeights[i]-maxLogWeight);
+		}
+		normalize(weights);
+		return weights;
+	}
+	
+	/**
+	 * @return A weight vector assigning 1/n to each of n instances.
+	 */
+	public static float[] equalWeights(int n) {
+		float[] weights = new float[n];
+		Arrays.fill(weights, 1.0f/n);
+		return weights;
+	}
+	
+	/**
+	 * Normalizes the weights, such that the sum is one.
+	 */
+	public static void normalize(float[] weights) {
+		float sumWeights = 0.0f;
+		for (float w : weights) {
+			sumWeights += w;
+		}
+		for (int i = 0; i < weights.length; i++) {
+			weights[i] /= sumWeights;
+		}
+	}
+	
+	/**
+	 * @return The voting weight -log(e/(1-e)) of a model with classification error e.
+	 */
+	public static float alpha(float e) {
+		return (float) -Math.log(e/(1-e));
+	}
+	
+	/**
+	 * @return The voting weights of a sequence of models.
+	 */
+	public static float[] alphas(List<DecisionTreeModel> models) {
+		float[] alphas = new float[models.size()];
+		for (int t = 0; t < alphas.length; t++) {
+			alphas[t] = alpha(models.get(t).error());
+		}
+		return alphas;
+	}
+	
+	/**
+	 * Compiles a sequence of models for the attributes (columns) of a dataset.
+	 * The errors of the models are kept by the forest.
+	 * @param weights The voting weight of each model.
+	 */
+	public static CompiledForest compile(List<DecisionTreeModel> models, DatasetView dataset, EnumAttribute<?> classAttribute, float[] weights) {
+		return compile(models, schema(dataset), classAttribute, weights);
+	}
+	
+	/**
+	 * @return The attributes (columns) of a dataset(-view) in order.
+	 */
+	private static EnumAttribute<?>[] schema(DatasetView dataset) {
+		EnumAttribute<?>[] schema = new EnumAttribute<?>[dataset.numAttributes()];
+		for (int i = 0; i < schema.length; i++) {
+			schema[i] = dataset.attributeAt(i);
+		}
+		return schema;
+	}
+	
+	/**
+	 * Compiles a sequence of models for a schema (the attributes of the encoded instances).
+	 * The errors of the models are kept by the forest.
+	 * @param weights The voting weight of each model.
+	 */
+	public static CompiledForest compile(List<DecisionTreeModel> models, EnumAttribute<?>[] schema, EnumAttribute<?> classAttribute, float[] weights) {
+		TreeCompiler compiler = new TreeCompiler(schema, classAttribute);
+		float[] errors = new float[models.size()];
+		for (int t = 0; t < errors.length; t++) {
+			models.get(t).compile(compiler);
+			errors[t] = models.get(t).error();
+		}
+		return compiler.toForest(weights, errors);
 	}
 	
 	
@@ -55,7 +324,7 @@ public class Boosting {
 		for (DecisionTreeModel model : models) {
 			float e = model.error();
 			Value<?> classValue = model.classify(instance, classAttribute);
-			values.applyToWeight(classValue, (float) -Math.log(e/(1-e)));
+			values.applyToWeight(classValue, alpha(e));
 		}
 		
 		return values.maxWeightedValue();
@@ -0,0 +1,252 @@
+package uni.ml.learning;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+import uni.ml.dataset.DatasetView;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.Value;
+import uni.ml.tree.TreeSerializer;
+
+/**
+ * A snapshot of a boosting run: the models trained so far with their errors (alpha is derived from the error) 
+ * and the current instance weights.
+ * Checkpoints are stored in a compact binary file, which contains the attribute dictionary of the training set, 
+ * the parameters of the run, the trees in pre-order and the weight vector.
+ * A checkpoint is only read by a run with the same parameters on the same training set.
+ */
+@AllArgsConstructor
+@Accessors(fluent=true)
+public class BoostingCheckpoint {
+	
+	private static final int MAGIC = 0x424F4F53; // "BOOS"
+	private static final int VERSION = 2;
+	
+	/**
+	 * The parameters of a boosting run and a fingerprint of its training set.
+	 */
+	@EqualsAndHashCode
+	@ToString
+	public static class Run {
+		/**
+		 * The number of models the run trains (at most).
+		 */
+		private final int numModels;
+		private final int maxDepth;
+		private final long seed;
+		/**
+		 * The subspace size for 1 to p candidate attributes, which identifies the attribute subspace.
+		 */
+		private final int[] subspace;
+		private final int numInstances;
+		/**
+		 * A hash of the class value ordinals of the training set.
+		 */
+		private final long classHash;
+		
+		private Run(int numModels, int maxDepth, long seed, int[] subspace, int numInstances, long classHash) {
+			this.numModels = numModels;
+			this.maxDepth = maxDepth;
+			this.seed = seed;
+			this.subspace = subspace;
+			this.numInstances = numInstances;
+			this.classHash = classHash;
+		}
+		
+		/**
+		 * Describes a boosting run. Computing the fingerprint takes one pass over the class column of the training set.
+		 * @param numModels The number of models the run trains.
+		 * @param dataset The training set.
+		 */
+		public Run(int numModels, int maxDepth, long seed, AttributeSubspace subspace, DatasetView dataset, EnumAttribute<?> classAttribute) {
+			this(numModels, maxDepth, seed, subspaceSizes(subspace, dataset.numAttributes()-1), 
+					dataset.numInstances(), classHash(dataset, classAttribute));
+		}
+		
+		private static int[] subspaceSizes(AttributeSubspace subspace, int numCandidates) {
+			int[] sizes = new int[Math.max(numCandidates, 0)];
+			for (int p = 1; p <= sizes.length; p++) {
+				sizes[p-1] = subspace.size(p);
+			}
+			return sizes;
+		}
+		
+		private static long classHash(DatasetView dataset, EnumAttribute<?> classAttribute) {
+			int column = dataset.indexOf(classAttribute);
+			long hash = 1;
+			for (int i = 0; i < dataset.numInstances(); i++) {
+				hash = 31*hash + dataset.ordinalAt(i, column);
+			}
+			return hash;
+		}
+		
+		private void write(DataOutputStream out) throws IOException {
+			out.writeInt(numModels);
+			out.writeInt(maxDepth);
+			out.writeLong(seed);
+			out.writeInt(subspace.length);
+			for (int size : subspace) {
+				out.writeInt(size);
+			}
+			out.writeInt(numInstances);
+			out.writeLong(classHash);
+		}
+		
+		private static Run read(DataInputStream in) throws IOException {
+			int numModels = in.readInt();
+			int maxDepth = in.readInt();
+			long seed = in.readLong();
+			int[] subspace = new int[in.readInt()];
+			for (int p = 0; p < subspace.length; p++) {
+				subspace[p] = in.readInt();
+			}
+			return new Run(numModels, maxDepth, seed, subspace, in.readInt(), in.readLong());
+		}
+	}
+	
+	@Getter
+	private List<DecisionTreeModel> models;
+	/**
+	 * The instance weights after the last model or null if unavailable.
+	 */
+	@Getter
+	private float[] weights;
+	
+	private static EnumAttribute<?>[] schema(DatasetView dataset) {
+		EnumAttribute<?>[] schema = new EnumAttribute<?>[dataset.numAttributes()];
+		for (int i = 0; i < schema.length; i++) {
+			schema[i] = dataset.attributeAt(i);
+		}
+		return schema;
+	}
+	
+	/**
+	 * Writes the checkpoint to a temporary file, forces it to the storage device and atomically renames it to the specified file,
+	 * so the file always contains a complete checkpoint, even if the process or the operating system dies while writing.
+	 * The temporary file is deleted if writing fails.
+	 * @param dataset The training set (only its attributes are stored).
+	 * @param run The parameters of the boosting run.
+	 */
+	public void write(File file, DatasetView dataset, EnumAttribute<?> classAttribute, Run run) throws IOException {
+		File tmp = new File(file.getPath() + ".tmp");
+		EnumAttribute<?>[] schema = schema(dataset);
+		try (FileOutputStream stream = new FileOutputStream(tmp)) {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			
+			// attribute dictionary
+			out.writeInt(schema.length);
+			for (EnumAttribute<?> attribute : schema) {
+				out.writeUTF(attribute.name());
+				out.writeInt(attribute.numValues());
+				for (Value<?> value : attribute) {
+					out.writeUTF(value.value().toString());
+				}
+			}
+			out.writeInt(dataset.indexOf(classAttribute));
+			run.write(out);
+			
+			// models
+			TreeSerializer serializer = new TreeSerializer(schema, classAttribute);
+			out.writeInt(models.size());
+			for (DecisionTreeModel model : models) {
+				out.writeFloat(model.error());
+				serializer.write(model.root(), out);
+			}
+			
+			// weights
+			out.writeInt(weights != null? weights.length : -1);
+			if (weights != null) {
+				for (float w : weights) {
+					out.writeFloat(w);
+				}
+			}
+			out.flush();
+			stream.getFD().sync(); // the data has to be durable before the rename is
+		} catch (IOException | RuntimeException e) {
+			tmp.delete();
+			throw e;
+		}
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+	
+	/**
+	 * Reads a checkpoint written by the same boosting run.
+	 * @param dataset The training set. Its attributes have to match the attribute dictionary of the checkpoint.
+	 * @param run The parameters of the boosting run, they have to match the parameters of the checkpoint.
+	 * @throws IOException if the file is corrupt or does not match the dataset or the run.
+	 */
+	public static BoostingCheckpoint read(File file, DatasetView dataset, EnumAttribute<?> classAttribute, Run run) throws IOException {
+		EnumAttribute<?>[] schema = schema(dataset);
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC)
+				throw new IOException(file + " is not a boosting checkpoint.");
+			int version = in.readInt();
+			if (version != VERSION)
+				throw new IOException("Unsupported checkpoint version " + version);
+			
+			// check that attribute dictionary matches the dataset
+			int numAttributes = in.readInt();
+			if (numAttributes != schema.length)
+				throw new IOException("Checkpoint does not match the dataset: " + numAttributes + " attributes instead of " + schema.length);
+			for (EnumAttribute<?> attribute : schema) {
+				String name = in.readUTF();
+				int numValues = in.readInt();
+				boolean matches = name.equals(attribute.name()) && numValues == attribute.numValues();
+				Iterator<? extends Value<?>> values = attribute.iterator();
+				for (int v = 0; v < numValues; v++) {
+					String value = in.readUTF();
+					matches &= values.hasNext() && value.equals(values.next().value().toString());
+				}
+				if (!matches)
+					throw new IOException("Checkpoint does not match the dataset at attribute " + attribute.name());
+			}
+			if (in.readInt() != dataset.indexOf(classAttribute))
+				throw new IOException("Checkpoint does not match the classification attribute " + classAttribute.name());
+			Run written = Run.read(in);
+			if (!written.equals(run))
+				throw new IOException("Checkpoint was written by another run: " + written + " instead of " + run);
+			
+			// models
+			TreeSerializer serializer = new TreeSerializer(schema, classAttribute);
+			int numModels = in.readInt();
+			List<DecisionTreeModel> models = new ArrayList<>(numModels);
+			for (int t = 0; t < numModels; t++) {
+				float error = in.readFloat();
+				models.add(new DecisionTreeModel(run.maxDepth, serializer.read(in), error));
+			}
+			
+			// weights
+			int numWeights = in.readInt();
+			if (numWeights >= 0 && numWeights != dataset.numInstances())
+				throw new IOException("Checkpoint is corrupt: " + numWeights + " weights for " + dataset.numInstances() + " instances");
+			float[] weights = null;
+			if (numWeights >= 0) {
+				weights = new float[numWeights];
+				for (int i = 0; i < numWeights; i++) {
+					weights[i] = in.readFloat();
+				}
+			}
+			return new BoostingCheckpoint(Collections.unmodifiableList(models), weights);
+		}
+	}
+	
+}
@@ -1,23 +1,127 @@
 package uni.ml.learning;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
+import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
 import uni.ml.dataset.DatasetView;
 import uni.ml.dataset.EnumAttribute;
 import uni.ml.dataset.Instance;
 import uni.ml.dataset.Value;
 import uni.ml.tree.Classifier;
+import uni.ml.tree.CompiledForest;
 
 @RequiredArgsConstructor
+@Accessors(fluent=true)
 public class BoostingForestModel extends DecisionModel implements Iterable<DecisionTreeModel> {
 	
 	private List<DecisionTreeModel> models = new ArrayList<>();
 	private final int numIterations, maxDepth;
+	/**
+	 * The number of randomly selected candidate attributes evaluated per split.
+	 */
+	@Setter @NonNull
+	private AttributeSubspace subspace = AttributeSubspace.ALL;
+	/**
+	 * The seed of the random number generator used for sampling and attribute subspaces.
+	 */
+	@Setter
+	private long seed = ThreadLocalRandom.current().nextLong();
+	
+	// early stopping
+	private DatasetView validationSet;
+	private int patience;
+	
+	// checkpointing
+	private File checkpointFile;
+	private int checkpointInterval;
+	
+	// training state to continue boosting
+	private SplittableRandom random;
+	private DatasetView trainingSet;
+	private EnumAttribute<?> classAttribute;
+	private float[] weights;
+	private CompiledForest forest;
 
 	
+	/**
+	 * Writes checkpoints asynchronously on a background thread, so the training thread does not wait for disk I/O.
+	 * If the writer falls behind, pending snapshots are coalesced and only the latest one is written.
+	 * The checkpoint file is deleted once the run completes.
+	 */
+	private class CheckpointWriter implements Boosting.RoundCallback {
+		
+		private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "boosting-checkpoint");
+			thread.setDaemon(true);
+			return thread;
+		});
+		private final AtomicReference<BoostingCheckpoint> pending = new AtomicReference<>();
+		private final DatasetView dataset;
+		private final BoostingCheckpoint.Run run;
+		private volatile IOException failure;
+		private int rounds;
+		
+		CheckpointWriter(DatasetView dataset, BoostingCheckpoint.Run run) {
+			this.dataset = dataset;
+			this.run = run;
+		}
+		
+		private void submit(List<DecisionTreeModel> models, float[] weights) {
+			BoostingCheckpoint checkpoint = new BoostingCheckpoint(new ArrayList<>(models), weights.clone());
+			if (pending.getAndSet(checkpoint) == null) {
+				executor.execute(() -> {
+					try {
+						pending.getAndSet(null).write(checkpointFile, dataset, classAttribute, run);
+					} catch (IOException e) {
+						failure = e;
+					}
+				});
+			}
+		}
+
+		@Override
+		public void roundCompleted(List<DecisionTreeModel> models, float[] weights) {
+			if (++rounds % checkpointInterval == 0) {
+				submit(models, weights);
+			}
+		}
+		
+		/**
+		 * Waits until all pending checkpoints are written and deletes the checkpoint file of the completed run,
+		 * so a later run does not resume from it.
+		 */
+		void close() {
+			executor.shutdown();
+			try {
+				executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (failure != null)
+				throw new UncheckedIOException("Could not write checkpoint " + checkpointFile, failure);
+			try {
+				Files.deleteIfExists(checkpointFile.toPath());
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not delete checkpoint " + checkpointFile, e);
+			}
+		}
+	}
+	
 	/**
 	 * To classify an instance of a dataset with a decision forest. 
 	 * @author Julian Brummer
@@ -31,8 +135,62 @@ public class BoostingForestModel extends DecisionModel implements Iterable<Decis
 		}
 	}
 
+	/**
+	 * Enables early stopping: Training stops if the accuracy on the validation set has not improved for a number of rounds
+	 * and the forest is truncated to the number of models with the best validation accuracy.
+	 * The validation set is scored incrementally, i.e. each round classifies it only with the new model.
+	 * @param validationSet A held-out dataset(-view), which must not be part of the training set.
+	 * @param patience The number of rounds without improvement after which training stops.
+	 */
+	public BoostingForestModel earlyStopping(@NonNull DatasetView validationSet, int patience) {
+		if (patience < 1)
+			throw new IllegalArgumentException("patience must be positive");
+		this.validationSet = validationSet;
+		this.patience = patience;
+		return this;
+	}
+	
+	/**
+	 * Enables checkpointing: Every interval rounds the models, their errors and the instance weights 
+	 * are written to the checkpoint file on a background thread. The file is deleted when training completes,
+	 * so it only remains if training was interrupted.
+	 * If the checkpoint file exists, {@link #trainModel(DatasetView, EnumAttribute)} resumes from it,
+	 * provided it was written by a run with the same parameters (number of iterations, maximum depth, seed and subspace)
+	 * on the same training set (number of instances and class values), otherwise training fails.
+	 * A resumed run is reproducible, but samples differently than an uninterrupted run with the same seed.
+	 * @param file The checkpoint file, it is replaced atomically.
+	 * @param interval The number of rounds between two checkpoints.
+	 * @see BoostingCheckpoint
+	 */
+	public BoostingForestModel checkpoint(@NonNull File file, int interval) {
+		if (interval < 1)
+			throw new IllegalArgumentException("interval must be positive");
+		this.checkpointFile = file;
+		this.checkpointInterval = interval;
+		return this;
+	}
+	
+	/**
+	 * Disables checkpointing.
+	 */
+	public BoostingForestModel noCheckpoint() {
+		this.checkpointFile = null;
+		return this;
+	}
+	
+	/**
+	 * Disables early stopping.
+	 */
+	public BoostingForestModel noEarlyStopping() {
+		this.validationSet = null;
+		return this;
+	}
+	
 	public void add(DecisionTreeModel model) {
 		models.add(model);
+		// the instance weights and the compiled forest no longer match the models
+		weights = null;
+		forest = null;
 	}
 	
 	public boolean hasModels() {
@@ -48,15 +206,122 @@ public class BoostingForestModel extends DecisionModel implements Iterable<Decis
 		return models.iterator();
 	}
 
+	/**
+	 * Trains the forest, resuming from the checkpoint file if checkpointing is enabled and the file exists.
+	 * @throws UncheckedIOException If the checkpoint cannot be read or was written by a different run.
+	 * @see #checkpoint(File, int)
+	 */
 	@Override
 	public void trainModel(DatasetView examples, EnumAttribute<?> classAttribute) {
 		models.clear();
-		models.addAll(Boosting.modelGeneration(examples, numIterations, classAttribute, maxDepth));
+		weights = null;
+		random = new SplittableRandom(seed);
+		this.classAttribute = classAttribute;
+		if (checkpointFile != null && checkpointFile.exists()) {
+			// resume from checkpoint
+			try {
+				BoostingCheckpoint.Run run = new BoostingCheckpoint.Run(numIterations, maxDepth, seed, subspace, examples, classAttribute);
+				BoostingCheckpoint checkpoint = BoostingCheckpoint.read(checkpointFile, examples, classAttribute, run);
+				models.addAll(checkpoint.models());
+				weights = checkpoint.weights();
+				trainingSet = examples;
+				// SplittableRandom does not expose its state, so the resumed run draws from a generator 
+				// derived from the seed and the number of models instead of continuing the interrupted stream
+				random = new SplittableRandom(seed + models.size());
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not resume from checkpoint " + checkpointFile, e);
+			}
+		}
+		continueTraining(examples, classAttribute, Math.max(numIterations - models.size(), 0));
+	}
+	
+	/**
+	 * Continues boosting with additional rounds, keeping the models trained so far (warm start).
+	 * Boosting resumes from the final instance weights of the previous training.
+	 * If these are not available (e.g. the examples differ from the previous training set), 
+	 * they are recomputed in a single scoring pass over the examples.
+	 * @param examples The training set.
+	 * @param additionalRounds The maximum number of models to add.
+	 * @return The number of models added (boosting stops early if a model has error 0 or at least 0.5 
+	 * or if the validation accuracy stops improving).
+	 * @throws IllegalStateException If the model has not been trained, 
+	 * use {@link #continueTraining(DatasetView, EnumAttribute, int)} for models added manually.
+	 * @see #earlyStopping(DatasetView, int)
+	 */
+	public int continueTraining(DatasetView examples, int additionalRounds) {
+		if (classAttribute == null)
+			throw new IllegalStateException("The model has to be trained before training can be continued.");
+		return continueTraining(examples, classAttribute, additionalRounds);
+	}
+	
+	/**
+	 * Continues boosting with additional rounds for a classification attribute, e.g. after models were added manually.
+	 * The instance weights are recomputed from the models unless the model was last trained on the same examples.
+	 * @param examples The training set.
+	 * @param classAttribute The classification/target attribute of the models.
+	 * @param additionalRounds The maximum number of models to add.
+	 * @return The number of models added.
+	 * @see #continueTraining(DatasetView, int)
+	 */
+	public int continueTraining(DatasetView examples, @NonNull EnumAttribute<?> classAttribute, int additionalRounds) {
+		if (classAttribute != this.classAttribute) {
+			weights = null;
+			this.classAttribute = classAttribute;
+		}
+		if (weights == null || examples != trainingSet) {
+			weights = Boosting.replayWeights(models, examples, classAttribute);
+		}
+		if (random == null) {
+			random = new SplittableRandom(seed);
+		}
+		trainingSet = examples;
+		forest = null;
+		CheckpointWriter checkpointWriter = checkpointFile != null? new CheckpointWriter(examples, 
+				new BoostingCheckpoint.Run(models.size() + additionalRounds, maxDepth, seed, subspace, examples, classAttribute)) : null;
+		int added;
+		if (validationSet == null) {
+			added = Boosting.boost(examples, weights, models, additionalRounds, classAttribute, maxDepth, subspace, random, checkpointWriter);
+		} else {
+			EnsembleScorer validation = new EnsembleScorer(validationSet, classAttribute);
+			for (DecisionTreeModel model : models) {
+				validation.add(model, Boosting.alpha(model.error()));
+			}
+			added = Boosting.boost(examples, weights, models, additionalRounds, classAttribute, maxDepth, subspace, random, 
+					validation, patience, checkpointWriter);
+		}
+		if (checkpointWriter != null) {
+			checkpointWriter.close();
+		}
+		return added;
+	}
+	
+	/**
+	 * @return The compiled forest of this model (with each tree weighted by its alpha) 
+	 * or null if the model has not been trained.
+	 */
+	public CompiledForest forest() {
+		if (forest == null && trainingSet != null) {
+			forest = Boosting.compile(models, trainingSet, classAttribute, Boosting.alphas(models));
+		}
+		return forest;
 	}
 
+	/**
+	 * Saves the compiled forest of this model to a compact binary file, 
+	 * which can be loaded for scoring with {@link CompiledForest#load(File)}.
+	 * @throws IllegalStateException If the model has not been trained.
+	 */
+	public void save(File file) throws IOException {
+		CompiledForest forest = forest();
+		if (forest == null)
+			throw new IllegalStateException("The model has not been trained");
+		forest.save(file);
+	}
+	
 	@Override
 	public Classifier classifier() {
-		return new ForestClassifier();
+		CompiledForest forest = forest();
+		return forest != null? forest : new ForestClassifier();
 	}
 	
 	@Override
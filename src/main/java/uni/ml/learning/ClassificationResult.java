@@ -10,4 +10,24 @@ import lombok.ToString;
 public class ClassificationResult {
 	public float mean;
 	public float deviation;
+	
+	/**
+	 * Aggregates the results of several training and test cycles.
+	 * @param classified The percentage of correctly classified instances of each cycle.
+	 * @return The mean and standard deviation of correctly classified instances.
+	 */
+	public static ClassificationResult of(float... classified) {
+		float meanClassified = 0.0f;
+		float deviationClassified = 0.0f;
+		for (int i = 0; i < classified.length; i++) {
+			meanClassified += classified[i];
+		}
+		meanClassified /= classified.length;
+		for (int i = 0; i < classified.length; i++) {
+			deviationClassified += Math.pow(classified[i]-meanClassified, 2);
+		}
+		deviationClassified /= classified.length;
+		deviationClassified = (float) Math.sqrt(deviationClassified);
+		return new ClassificationResult(meanClassified, deviationClassified);
+	}
 }
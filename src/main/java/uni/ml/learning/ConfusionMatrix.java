@@ -0,0 +1,251 @@
+package uni.ml.learning;
+
+import java.util.Arrays;
+
+import uni.ml.dataset.DatasetView;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.tree.Classifier;
+import uni.ml.tree.CompiledForest;
+
+/**
+ * Counts the actual class values against the predicted class values of a classifier on a test set.
+ * Matrices of disjoint parts of a test set (e.g. chunks evaluated by different threads) can be merged.
+ * Predictions which are not a known class value are counted as wrong in an additional column, 
+ * instances with a missing actual class value are only counted as unlabeled.
+ */
+public class ConfusionMatrix {
+
+	private final EnumAttribute<?> classAttribute;
+	private final int numClasses;
+	private final long[][] counts; // [actual][predicted], the last column counts unknown predictions
+	private long unlabeled;
+	
+	/**
+	 * Creates an empty matrix.
+	 */
+	public ConfusionMatrix(EnumAttribute<?> classAttribute) {
+		this.classAttribute = classAttribute;
+		this.numClasses = classAttribute.numValues();
+		this.counts = new long[numClasses][numClasses+1];
+	}
+	
+	/**
+	 * Evaluates a classifier on the instances from (inclusive) to (exclusive) of a test set in a single pass.
+	 * Class values are counted by their ordinals within classAttribute, even if the test set or a compiled forest
+	 * orders the values of the attribute differently.
+	 */
+	public static ConfusionMatrix evaluate(Classifier classifier, DatasetView testSet, EnumAttribute<?> classAttribute, int from, int to) {
+		ConfusionMatrix matrix = new ConfusionMatrix(classAttribute);
+		int classColumn = testSet.indexOf(classAttribute);
+		int[] actuals = CompiledForest.ordinalMapping(testSet.attributeAt(classColumn), classAttribute);
+		if (classifier instanceof CompiledForest) {
+			CompiledForest forest = (CompiledForest) classifier;
+			int[] classes = CompiledForest.ordinalMapping(forest.classAttribute(), classAttribute);
+			int[] predictions = new int[to-from];
+			forest.classify(testSet, from, to, predictions);
+			for (int i = from; i < to; i++) {
+				matrix.add(map(actuals, testSet.ordinalAt(i, classColumn)), map(classes, predictions[i-from]));
+			}
+		} else {
+			for (int i = from; i < to; i++) {
+				int predicted = classAttribute.indexOf(classifier.classify(testSet.instanceAt(i), classAttribute));
+				matrix.add(map(actuals, testSet.ordinalAt(i, classColumn)), predicted);
+			}
+		}
+		return matrix;
+	}
+	
+	/**
+	 * @param ordinals An ordinal mapping, see {@link CompiledForest#ordinalMapping(EnumAttribute, EnumAttribute)}.
+	 */
+	private static int map(int[] ordinals, int ordinal) {
+		return ordinal >= 0 && ordinals != null? ordinals[ordinal] : ordinal;
+	}
+	
+	/**
+	 * Counts a single classification.
+	 * @param actual The actual class ordinal or -1 if missing.
+	 * @param predicted The predicted class ordinal or -1 if the prediction is not a known class value.
+	 */
+	public void add(int actual, int predicted) {
+		if (actual < 0) {
+			unlabeled++;
+		} else {
+			counts[actual][predicted < 0? numClasses : predicted]++;
+		}
+	}
+	
+	/**
+	 * Adds the counts of another matrix for the same class attribute.
+	 * @return This matrix.
+	 */
+	public ConfusionMatrix merge(ConfusionMatrix other) {
+		if (other.numClasses != numClasses)
+			throw new IllegalArgumentException("Confusion matrices of different class attributes cannot be merged.");
+		for (int a = 0; a < numClasses; a++) {
+			for (int p = 0; p <= numClasses; p++) {
+				counts[a][p] += other.counts[a][p];
+			}
+		}
+		unlabeled += other.unlabeled;
+		return this;
+	}
+	
+	public EnumAttribute<?> classAttribute() {
+		return classAttribute;
+	}
+	
+	/**
+	 * @return The number of instances with the actual class ordinal and the predicted class ordinal.
+	 */
+	public long count(int actual, int predicted) {
+		return counts[actual][predicted];
+	}
+	
+	/**
+	 * @return A copy of the counts [actual][predicted] of known class values.
+	 */
+	public long[][] counts() {
+		long[][] copy = new long[numClasses][];
+		for (int a = 0; a < numClasses; a++) {
+			copy[a] = Arrays.copyOf(counts[a], numClasses);
+		}
+		return copy;
+	}
+	
+	/**
+	 * @return The number of labeled instances.
+	 */
+	public long total() {
+		long total = 0;
+		for (int a = 0; a < numClasses; a++) {
+			total += actual(a);
+		}
+		return total;
+	}
+	
+	/**
+	 * @return The number of instances without an actual class value.
+	 */
+	public long unlabeled() {
+		return unlabeled;
+	}
+	
+	/**
+	 * @return The number of correctly classified instances.
+	 */
+	public long correct() {
+		long correct = 0;
+		for (int c = 0; c < numClasses; c++) {
+			correct += counts[c][c];
+		}
+		return correct;
+	}
+	
+	/**
+	 * @return The number of instances of the specified actual class.
+	 */
+	public long actual(int c) {
+		long sum = 0;
+		for (long count : counts[c]) {
+			sum += count;
+		}
+		return sum;
+	}
+	
+	/**
+	 * @return The number of instances predicted as the specified class.
+	 */
+	public long predicted(int c) {
+		long sum = 0;
+		for (int a = 0; a < numClasses; a++) {
+			sum += counts[a][c];
+		}
+		return sum;
+	}
+	
+	/**
+	 * @return The percentage of correctly classified (labeled) instances.
+	 */
+	public float accuracy() {
+		long total = total();
+		return total == 0? 0.0f : (float) correct()/total;
+	}
+	
+	/**
+	 * @return The percentage of instances predicted as the specified class, which actually are of that class.
+	 */
+	public float precision(int c) {
+		long predicted = predicted(c);
+		return predicted == 0? 0.0f : (float) counts[c][c]/predicted;
+	}
+	
+	/**
+	 * @return The percentage of instances of the specified class, which are predicted as that class.
+	 */
+	public float recall(int c) {
+		long actual = actual(c);
+		return actual == 0? 0.0f : (float) counts[c][c]/actual;
+	}
+	
+	/**
+	 * @return The harmonic mean of precision and recall of the specified class.
+	 */
+	public float f1(int c) {
+		float precision = precision(c), recall = recall(c);
+		return precision+recall == 0? 0.0f : 2*precision*recall/(precision+recall);
+	}
+	
+	/**
+	 * @return The unweighted mean of the precision of all classes.
+	 */
+	public float macroPrecision() {
+		float sum = 0.0f;
+		for (int c = 0; c < numClasses; c++) {
+			sum += precision(c);
+		}
+		return sum/numClasses;
+	}
+	
+	/**
+	 * @return The unweighted mean of the recall of all classes.
+	 */
+	public float macroRecall() {
+		float sum = 0.0f;
+		for (int c = 0; c < numClasses; c++) {
+			sum += recall(c);
+		}
+		return sum/numClasses;
+	}
+	
+	/**
+	 * @return The unweighted mean of the F1 score of all classes.
+	 */
+	public float macroF1() {
+		float sum = 0.0f;
+		for (int c = 0; c < numClasses; c++) {
+			sum += f1(c);
+		}
+		return sum/numClasses;
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder b = new StringBuilder("actual\\predicted");
+		for (int p = 0; p < numClasses; p++) {
+			b.append("\t").append(classAttribute.valueAt(p).value());
+		}
+		b.append("\tunknown\tprecision\trecall\tf1");
+		for (int a = 0; a < numClasses; a++) {
+			b.append("\n").append(classAttribute.valueAt(a).value());
+			for (int p = 0; p <= numClasses; p++) {
+				b.append("\t").append(counts[a][p]);
+			}
+			b.append(String.format("\t%.4f\t%.4f\t%.4f", precision(a), recall(a), f1(a)));
+		}
+		b.append(String.format("%naccuracy=%.4f, macroPrecision=%.4f, macroRecall=%.4f, macroF1=%.4f", 
+				accuracy(), macroPrecision(), macroRecall(), macroF1()));
+		return b.toString();
+	}
+	
+}
@@ -0,0 +1,199 @@
+package uni.ml.learning;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiFunction;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import uni.ml.dataset.DatasetIndexedView;
+import uni.ml.dataset.DatasetSplit;
+import uni.ml.dataset.DatasetView;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.Sampling;
+
+/**
+ * Evaluates decision models by repeated hold-out or stratified k-fold cross-validation.
+ * Each fold trains and tests a new model created by the model factory, so the folds run concurrently.
+ * All folds are views on the same dataset, which is only read. Its encoding is computed once 
+ * before the folds start and shared by all of them.
+ * <p>
+ * The splits and the seeds passed to the model factory are derived from the seed of the cross-validation,
+ * so a run can be reproduced regardless of the order in which the folds are evaluated.
+ */
+@Accessors(fluent=true)
+public class CrossValidation {
+
+	/**
+	 * Creates a new, untrained model for each fold from the seed of the fold.
+	 */
+	private final LongFunction<? extends DecisionModel> modelFactory;
+	/**
+	 * The maximum number of folds evaluated concurrently.
+	 */
+	@Setter
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+	/**
+	 * The seed of the random splits and of the models.
+	 */
+	@Setter
+	private long seed = ThreadLocalRandom.current().nextLong();
+	
+	/**
+	 * @param modelFactory Creates a new, untrained model for each fold from the seed of the fold, 
+	 * e.g. <code>seed -> new BoostingForestModel(10, 2).seed(seed)</code>.
+	 */
+	public CrossValidation(@NonNull LongFunction<? extends DecisionModel> modelFactory) {
+		this.modelFactory = modelFactory;
+	}
+	
+	/**
+	 * @param modelFactory Creates a new, untrained model for each fold. 
+	 * The models are only reproducible, if they do not use randomness.
+	 */
+	public CrossValidation(@NonNull Supplier<? extends DecisionModel> modelFactory) {
+		this.modelFactory = seed -> modelFactory.get();
+	}
+	
+	/**
+	 * Trains and tests a model on a number of random training/test splits.
+	 * @param dataset The dataset to train and test the models with.
+	 * @param trainingRatio The ratio of the dataset to use for training.
+	 * @param repeats The number of training and test cycles.
+	 * @param classAttribute The target/classification attribute.
+	 * @return The mean and standard deviation of correctly classified instances.
+	 */
+	public ClassificationResult repeatedHoldout(DatasetView dataset, float trainingRatio, int repeats, EnumAttribute<?> classAttribute) {
+		return evaluate(dataset, randomSplits(dataset, trainingRatio, repeats, new SplittableRandom(seed)), classAttribute);
+	}
+	
+	/**
+	 * Trains and tests a model k times. The dataset is divided into k stratified folds, 
+	 * each fold is used once as test set, while the remaining folds are used for training.
+	 * @param dataset The dataset to train and test the models with.
+	 * @param k The number of folds.
+	 * @param classAttribute The target/classification attribute.
+	 * @return The mean and standard deviation of correctly classified instances.
+	 */
+	public ClassificationResult kFold(DatasetView dataset, int k, EnumAttribute<?> classAttribute) {
+		return evaluate(dataset, kFoldSplits(dataset, k, classAttribute, new SplittableRandom(seed)), classAttribute);
+	}
+	
+	/**
+	 * Splits a dataset(-view) randomly a number of times. Each split draws from its own stream of the generator.
+	 * @return The training and test sets.
+	 */
+	public static List<DatasetSplit> randomSplits(DatasetView dataset, float trainingRatio, int repeats, SplittableRandom random) {
+		List<DatasetSplit> splits = new ArrayList<>();
+		for (int i = 0; i < repeats; i++) {
+			splits.add(dataset.randomSplit(trainingRatio, random.split()));
+		}
+		return splits;
+	}
+	
+	/**
+	 * Divides a dataset(-view) into k stratified folds using a new, randomly seeded generator.
+	 * @return k splits, each using one fold as test set and the remaining folds as training set.
+	 */
+	public static List<DatasetSplit> kFoldSplits(DatasetView dataset, int k, EnumAttribute<?> classAttribute) {
+		return kFoldSplits(dataset, k, classAttribute, new SplittableRandom());
+	}
+	
+	/**
+	 * Divides a dataset(-view) into k stratified folds.
+	 * @return k splits, each using one fold as test set and the remaining folds as training set.
+	 */
+	public static List<DatasetSplit> kFoldSplits(DatasetView dataset, int k, EnumAttribute<?> classAttribute, SplittableRandom random) {
+		if (k < 2 || k > dataset.numInstances())
+			throw new IllegalArgumentException("k must be between 2 and the number of instances");
+		int classColumn = dataset.indexOf(classAttribute);
+		int[] classes = new int[dataset.numInstances()];
+		for (int i = 0; i < classes.length; i++) {
+			classes[i] = dataset.ordinalAt(i, classColumn);
+		}
+		int[][] folds = Sampling.stratifiedFolds(classes, k, random);
+		
+		List<DatasetSplit> splits = new ArrayList<>();
+		for (int f = 0; f < k; f++) {
+			int[] training = new int[dataset.numInstances()-folds[f].length];
+			int n = 0;
+			for (int g = 0; g < k; g++) {
+				if (g != f) {
+					System.arraycopy(folds[g], 0, training, n, folds[g].length);
+					n += folds[g].length;
+				}
+			}
+			splits.add(new DatasetSplit(new DatasetIndexedView(dataset, training), new DatasetIndexedView(dataset, folds[f])));
+		}
+		return splits;
+	}
+	
+	/**
+	 * Trains and tests a new model on each split concurrently.
+	 * @return The mean and standard deviation of correctly classified instances.
+	 */
+	public ClassificationResult evaluate(DatasetView dataset, List<DatasetSplit> splits, EnumAttribute<?> classAttribute) {
+		// derive the model seeds before the folds start, so they do not depend on the order of evaluation,
+		// from a different generator than the splits
+		SplittableRandom random = new SplittableRandom(~seed);
+		long[] seeds = new long[splits.size()];
+		for (int i = 0; i < seeds.length; i++) {
+			seeds[i] = random.nextLong();
+		}
+		float[] classified = new float[splits.size()];
+		List<Future<Float>> results = run(dataset, splits, (split, i) -> {
+			DecisionModel model = modelFactory.apply(seeds[i]);
+			model.trainModel(split.trainingSet, classAttribute);
+			return model.testModel(split.testSet, classAttribute);
+		});
+		for (int i = 0; i < classified.length; i++) {
+			classified[i] = get(results.get(i));
+		}
+		return ClassificationResult.of(classified);
+	}
+	
+	/**
+	 * Evaluates a task on each split concurrently.
+	 */
+	<T> List<Future<T>> run(DatasetView dataset, List<DatasetSplit> splits, BiFunction<DatasetSplit, Integer, T> task) {
+		dataset.columnStore(); // encode once before the folds start
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, splits.size())));
+		try {
+			List<Future<T>> results = new ArrayList<>();
+			for (int i = 0; i < splits.size(); i++) {
+				DatasetSplit split = splits.get(i);
+				int fold = i;
+				results.add(executor.submit(() -> task.apply(split, fold)));
+			}
+			for (Future<T> result : results) {
+				get(result); // wait for all folds
+			}
+			return results;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	static <T> T get(Future<T> result) {
+		try {
+			return result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Cross-validation was interrupted", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+	
+}
@@ -1,6 +1,11 @@
 package uni.ml.learning;
 
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.experimental.Accessors;
 import uni.ml.dataset.DatasetIndexedView;
 import uni.ml.dataset.DatasetSplit;
@@ -9,11 +14,12 @@ import uni.ml.dataset.EnumAttribute;
 import uni.ml.dataset.Instance;
 import uni.ml.dataset.Value;
 import uni.ml.tree.Classifier;
+import uni.ml.tree.CompiledForest;
 
 @Accessors(fluent=true)
 public abstract class DecisionModel {
 	
-	@Getter
+	@Getter @Setter(AccessLevel.PROTECTED)
 	private float error;
 	
 
@@ -79,6 +85,35 @@ public abstract class DecisionModel {
 		return correctlyClassified;
 	}
 	
+	/**
+	 * Evaluates the model on a test set in a single pass.
+	 * Unlike {@link #testModel(DatasetView, EnumAttribute)}, this does not update the classification error of this model.
+	 * @return The confusion matrix of actual and predicted class values.
+	 */
+	public ConfusionMatrix evaluate(DatasetView testSet, EnumAttribute<?> classAttribute) {
+		return ConfusionMatrix.evaluate(classifier(), testSet, classAttribute, 0, testSet.numInstances());
+	}
+	
+	/**
+	 * Evaluates the model on a test set in parallel. The test set is divided into chunks,
+	 * each chunk is evaluated in a single pass and the confusion matrices of all chunks are merged.
+	 * @param chunkSize The number of instances per chunk.
+	 * @return The confusion matrix of actual and predicted class values.
+	 */
+	public ConfusionMatrix evaluate(DatasetView testSet, EnumAttribute<?> classAttribute, int chunkSize) {
+		if (chunkSize < 1)
+			throw new IllegalArgumentException("chunkSize must be positive");
+		int n = testSet.numInstances();
+		int numChunks = (n + chunkSize-1)/chunkSize;
+		Classifier shared = classifier();
+		boolean threadSafe = shared instanceof CompiledForest; // other classifiers keep state while classifying
+		return IntStream.range(0, numChunks).parallel()
+				.mapToObj(k -> ConfusionMatrix.evaluate(threadSafe? shared : classifier(), testSet, classAttribute, 
+						k*chunkSize, Math.min(n, (k+1)*chunkSize)))
+				.reduce(ConfusionMatrix::merge)
+				.orElseGet(() -> new ConfusionMatrix(classAttribute));
+	}
+	
 	/*	public float testModel(DatasetView testSet, EnumAttribute<?> classAttribute) {
 	Classifier classifier = classifier();
 	float correctlyClassified = 0.0f;
@@ -102,24 +137,25 @@ public abstract class DecisionModel {
 	 * @param repeats The number of training and test cycles.
 	 * @param classAttribute The target/classification attribute.
 	 * @return The mean and standard deviation of correctly classified instances.
+	 * @see CrossValidation
 	 */
 	public ClassificationResult trainAndTestModel(DatasetView dataset, float trainingRatio, int repeats, EnumAttribute<?> classAttribute) {
-		float meanClassified = 0.0f;
-		float deviationClassified = 0.0f;
+		return trainAndTestModel(dataset, trainingRatio, repeats, classAttribute, new SplittableRandom());
+	}
+	
+	/**
+	 * Trains and tests a decision tree model a number of times on reproducible splits.
+	 * @param random The generator of the random splits.
+	 * @see #trainAndTestModel(DatasetView, float, int, EnumAttribute)
+	 */
+	public ClassificationResult trainAndTestModel(DatasetView dataset, float trainingRatio, int repeats, EnumAttribute<?> classAttribute, SplittableRandom random) {
 		float[] classified = new float[repeats];
 		for (int i = 0; i < repeats; i++) {
-			DatasetSplit split = dataset.randomSplit(trainingRatio);
+			DatasetSplit split = dataset.randomSplit(trainingRatio, random.split());
 			trainModel(split.trainingSet, classAttribute);
 			classified[i] = testModel(split.testSet, classAttribute);
-			meanClassified += classified[i];
-		}
-		meanClassified /= repeats;
-		for (int i = 0; i < repeats; i++) {
-			deviationClassified += Math.pow(classified[i]-meanClassified, 2);
 		}
-		deviationClassified /= repeats;
-		deviationClassified = (float) Math.sqrt(deviationClassified);
-		return new ClassificationResult(meanClassified, deviationClassified);
+		return ClassificationResult.of(classified);
 	}
 	
 	/**
@@ -1,26 +1,59 @@
 package uni.ml.learning;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
 
+import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
-import uni.ml.dataset.DatasetPredicateView;
+import lombok.Setter;
+import lombok.experimental.Accessors;
 import uni.ml.dataset.DatasetView;
 import uni.ml.dataset.EnumAttribute;
 import uni.ml.dataset.Instance;
 import uni.ml.dataset.Value;
+import uni.ml.jfr.Events;
+import uni.ml.jfr.TreeBuildEvent;
 import uni.ml.tree.Classifier;
 import uni.ml.tree.InnerNode;
 import uni.ml.tree.Leaf;
 import uni.ml.tree.Node;
 import uni.ml.tree.NodeVisitor;
+import uni.ml.tree.TreeCompiler;
 import uni.ml.tree.TreeStringBuilder;
 
 @RequiredArgsConstructor
+@Accessors(fluent=true)
 public class DecisionTreeModel extends DecisionModel {
 
 	private Node root;
 	private final int maxDepth;
+	/**
+	 * The number of randomly selected candidate attributes evaluated per split.
+	 */
+	@Setter @NonNull
+	private AttributeSubspace subspace = AttributeSubspace.ALL;
+	/**
+	 * The seed of the random number generator used to select attribute subspaces.
+	 */
+	@Setter
+	private long seed = ThreadLocalRandom.current().nextLong();
+	private SplittableRandom random;
+	
+	/**
+	 * Creates an already trained decision tree model, e.g. a model read from a file.
+	 * @param root The root node of the tree.
+	 * @param error The classification error of the model.
+	 */
+	DecisionTreeModel(int maxDepth, Node root, float error) {
+		this(maxDepth);
+		this.root = root;
+		error(error);
+	}
 	
 	/**
 	 * To classify an instance of a dataset with a decision tree. 
@@ -68,40 +101,122 @@ public class DecisionTreeModel extends DecisionModel {
 		return partitionAttribute;
 	}
 	
+	/**
+	 * Draws a random subspace of attributes without replacement from the candidate attributes.
+	 * @see AttributeSubspace
+	 */
+	private Set<EnumAttribute<?>> candidateAttributes(Set<EnumAttribute<?>> attributes) {
+		int size = subspace.size(attributes.size());
+		if (size >= attributes.size())
+			return attributes;
+		List<EnumAttribute<?>> candidates = new ArrayList<>(attributes);
+		// partial Fisher-Yates shuffle
+		for (int i = 0; i < size; i++) {
+			int j = i + random.nextInt(candidates.size()-i);
+			candidates.set(j, candidates.set(i, candidates.get(j)));
+		}
+		return new HashSet<>(candidates.subList(0, size));
+	}
+	
+	/**
+	 * The state of a tree while it is built.
+	 */
+	private static class TreeBuild {
+		
+		final TreeExamples examples;
+		final TrainingListener listener = Instrumentation.listener();
+		final boolean timed = listener != TrainingListener.NONE;
+		int numNodes = 1, innerNodes, leaves, depth;
+		
+		TreeBuild(TreeExamples examples) {
+			this.examples = examples;
+		}
+	}
+	
+	/**
+	 * Selects the partition attribute resulting in the maximum information gain.
+	 * The count tables of all attributes are computed in a single pass over the examples of the node.
+	 */
+	private static EnumAttribute<?> selectPartitionAttribute(TreeExamples examples, int node, int size, int[] classCounts, Set<EnumAttribute<?>> attributes) {
+		EnumAttribute<?>[] candidates = attributes.toArray(new EnumAttribute<?>[attributes.size()]);
+		int[][][] tables = new int[candidates.length][][];
+		for (int i = 0; i < candidates.length; i++) {
+			tables[i] = new int[candidates[i].numValues()][classCounts.length];
+		}
+		examples.countTables(node, candidates, tables);
+		
+		EnumAttribute<?> partitionAttribute = null;
+		float maxGain = Float.NEGATIVE_INFINITY;
+		// iterate over attributes and check information gain using the attribute as a partitioner
+		for (int i = 0; i < candidates.length; i++) {
+			float gain = Measures.informationGain(tables[i], classCounts, size);
+			if (gain > maxGain) {
+				maxGain = gain;
+				partitionAttribute = candidates[i];
+			}
+		}
+		return partitionAttribute;
+	}
+	
 	/**
 	 * Recursively creates a decision (sub-)tree from an example set. 
-	 * @param examples The dataset or a view on a subset.
-	 * @param classAttribute The classification/target attribute.
+	 * @param node The node of the examples to create the (sub-)tree from.
+	 * @param size The number of examples of the node.
+	 * @param classCounts The number of examples of the node per class value.
 	 * @param attributes A list of attributes from which to select a decision attribute for this node.  
 	 * @return The root node of the (sub-)tree.
 	 */
-	private Node trainModel(DatasetView examples, EnumAttribute<?> classAttribute, Set<EnumAttribute<?>> attributes, int depth) {
-	
-		if (Measures.entropy(examples, classAttribute) == 0) // all instances have the same value for the target attribute
-			return new Leaf(examples.instanceAt(0).value(classAttribute)); // return a leaf with that value
+	private Node trainModel(TreeBuild build, int node, int size, int[] classCounts, Set<EnumAttribute<?>> attributes, int depth) {
+		TreeExamples examples = build.examples;
+		EnumAttribute<?> classAttribute = examples.classAttribute();
+		build.depth = Math.max(build.depth, depth);
+		Value<?> mostCommonValue = classAttribute.valueAt(Measures.mostCommon(classCounts));
 		
-		if (attributes.isEmpty() || depth == maxDepth) // return most common value if there are no more attributes to split on
-			return new Leaf(Measures.mostCommonValue(examples, classAttribute));
+		if (Measures.entropy(classCounts, size) == 0 // all instances have the same value for the target attribute
+				|| attributes.isEmpty() || depth == maxDepth) { // return most common value if there are no more attributes to split on
+			build.leaves++;
+			return new Leaf(mostCommonValue); // return a leaf with that value
+		}
 	
 		// splitting is possible, so we create an inner node and select the best partition attribute
-		InnerNode node = new InnerNode();
-		node.decisionAttribute(selectPartitionAttribute(examples, classAttribute, attributes));
+		InnerNode inner = new InnerNode();
+		build.innerNodes++;
+		Set<EnumAttribute<?>> candidates = candidateAttributes(attributes);
+		long start = build.timed? System.nanoTime() : 0L;
+		inner.decisionAttribute(selectPartitionAttribute(examples, node, size, classCounts, candidates));
+		inner.mostCommonValue(mostCommonValue);
+		if (build.timed) {
+			long end = System.nanoTime();
+			build.listener.splitEvaluated(size, candidates.size(), end-start);
+			start = end;
+		}
+		
+		// partition the examples by the values of the decision attribute
+		EnumAttribute<?> decisionAttribute = inner.decisionAttribute();
+		int firstChild = build.numNodes;
+		build.numNodes += decisionAttribute.numValues();
+		int[] sizes = new int[decisionAttribute.numValues()];
+		int[][] childClassCounts = examples.partition(node, decisionAttribute, firstChild, sizes);
+		if (build.timed) {
+			build.listener.partitioned(size, System.nanoTime()-start);
+		}
 		
 		// iterate over values of the decision attribute
-		for (Value<?> value : node.decisionAttribute()) {
-			// select subset containing only instances with the same decision value
-			DatasetView subset = DatasetPredicateView.selectInstances(examples, node.decisionAttribute(), value);
-			if (subset.hasInstances()) {
-				// remove decision attribute and build subtree
-				Set<EnumAttribute<?>> remainingAttributes = new HashSet<>(attributes);
-				remainingAttributes.remove(node.decisionAttribute());
-				node.addChild(value, trainModel(subset, classAttribute, remainingAttributes, depth+1));
+		Set<EnumAttribute<?>> remainingAttributes = new HashSet<>(attributes);
+		remainingAttributes.remove(decisionAttribute);
+		for (int v = 0; v < decisionAttribute.numValues(); v++) {
+			Value<?> value = decisionAttribute.valueAt(v);
+			// the subset containing only instances with the same decision value
+			if (sizes[v] > 0) {
+				// build subtree without the decision attribute
+				inner.addChild(value, trainModel(build, firstChild+v, sizes[v], childClassCounts[v], remainingAttributes, depth+1));
 			} else {
-				node.addChild(value, new Leaf(Measures.mostCommonValue(examples, classAttribute)));
+				build.leaves++;
+				inner.addChild(value, new Leaf(mostCommonValue));
 			}
 		}
 		
-		return node;
+		return inner;
 	}
 	
 	
@@ -114,7 +229,25 @@ public class DecisionTreeModel extends DecisionModel {
 	 */
 	@Override
 	public void trainModel(DatasetView examples, EnumAttribute<?> classAttribute) {
-		this.root = trainModel(examples, classAttribute, examples.attributeSet(classAttribute), 1);
+		trainModel(new EncodedExamples(examples, classAttribute));
+	}
+	
+	/**
+	 * Creates a decision tree from an example set given by node, e.g. sharded over worker processes.
+	 * All attributes of the example set are possible candidates for partition attributes.
+	 */
+	void trainModel(TreeExamples examples) {
+		this.random = new SplittableRandom(seed);
+		TreeBuildEvent event = Events.AVAILABLE? new TreeBuildEvent() : null;
+		TreeBuild build = new TreeBuild(examples);
+		long start = build.timed? System.nanoTime() : 0L;
+		this.root = trainModel(build, 0, examples.size(), examples.classCounts(), examples.attributes(), 1);
+		if (build.timed) {
+			build.listener.treeBuilt(build.innerNodes, build.leaves, System.nanoTime()-start);
+		}
+		if (event != null) {
+			event.end(examples.size(), maxDepth, build.depth, build.innerNodes, build.leaves);
+		}
 	}
 	
 	/**
@@ -125,6 +258,51 @@ public class DecisionTreeModel extends DecisionModel {
 		return new TreeClassifier();
 	}
 	
+	/**
+	 * Creates a copy of this model with all inner nodes at the specified depth replaced by leaves.
+	 * If this model was trained with all attributes as candidates, the truncated tree is the same tree
+	 * as the one trained on the same examples with the specified maximum depth.
+	 * @param maxDepth The maximum depth of the truncated tree, it has to be positive.
+	 * @throws IllegalStateException if the tree was not trained, but e.g. read from a file.
+	 */
+	public DecisionTreeModel truncate(int maxDepth) {
+		if (maxDepth < 1)
+			throw new IllegalArgumentException("maxDepth must be positive");
+		return new DecisionTreeModel(maxDepth, truncate(root, 1, maxDepth), error());
+	}
+	
+	private static Node truncate(Node node, int depth, int maxDepth) {
+		if (!(node instanceof InnerNode))
+			return node; // leaves are immutable
+		InnerNode inner = (InnerNode) node;
+		if (depth == maxDepth) {
+			if (inner.mostCommonValue() == null)
+				throw new IllegalStateException("The most common value of the node " + inner + " is unknown.");
+			return new Leaf(inner.mostCommonValue());
+		}
+		InnerNode copy = new InnerNode();
+		copy.decisionAttribute(inner.decisionAttribute());
+		copy.mostCommonValue(inner.mostCommonValue());
+		for (Entry<Value<?>, Node> child : inner.children()) {
+			copy.addChild(child.getKey(), truncate(child.getValue(), depth+1, maxDepth));
+		}
+		return copy;
+	}
+	
+	/**
+	 * @return The root node of the trained tree or null if the model has not been trained yet.
+	 */
+	public Node root() {
+		return root;
+	}
+	
+	/**
+	 * Appends the tree of this model to a compiled forest.
+	 */
+	public void compile(TreeCompiler compiler) {
+		compiler.add(root);
+	}
+	
 	@Override
 	public String toString() {
 		return new TreeStringBuilder().toString(root);
@@ -0,0 +1,144 @@
+package uni.ml.learning;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import uni.ml.dataset.ColumnStore;
+import uni.ml.dataset.DatasetView;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.HeapColumnStore;
+
+/**
+ * The dictionary-encoded example set while a tree is built.
+ * The rows of a node form a contiguous range of the row array, which is partitioned in place for the child nodes.
+ * Encodings precomputed by the underlying dataset are reused, otherwise the examples are encoded once per tree.
+ */
+final class EncodedExamples implements TreeExamples {
+	
+	private final ColumnStore store;
+	private final int[] rows, scratch;
+	private final EnumAttribute<?> classAttribute;
+	private final int classColumn;
+	private final Map<EnumAttribute<?>, Integer> columns = new HashMap<>();
+	private final Set<EnumAttribute<?>> attributes;
+	/**
+	 * The range of rows of each node, from (inclusive) to (exclusive).
+	 */
+	private int[] from = new int[64], to = new int[64];
+	
+	EncodedExamples(DatasetView examples, EnumAttribute<?> classAttribute) {
+		this.classAttribute = classAttribute;
+		this.classColumn = examples.indexOf(classAttribute);
+		for (int i = 0; i < examples.numAttributes(); i++) {
+			columns.put(examples.attributeAt(i), i);
+		}
+		attributes = examples.attributeSet(classAttribute);
+		rows = new int[examples.numInstances()];
+		scratch = new int[rows.length];
+		ColumnStore store = examples.columnStore();
+		if (store != null) {
+			for (int i = 0; i < rows.length; i++) {
+				rows[i] = examples.baseIndex(i);
+			}
+			// the statistics do not depend on the order of the rows, in storage order the store is scanned sequentially
+			Arrays.sort(rows);
+		} else {
+			store = HeapColumnStore.encode(examples);
+			for (int i = 0; i < rows.length; i++) {
+				rows[i] = i;
+			}
+		}
+		this.store = store;
+		to[0] = rows.length;
+	}
+	
+	@Override
+	public EnumAttribute<?> classAttribute() {
+		return classAttribute;
+	}
+	
+	@Override
+	public Set<EnumAttribute<?>> attributes() {
+		return attributes;
+	}
+	
+	@Override
+	public int size() {
+		return rows.length;
+	}
+	
+	@Override
+	public int[] classCounts() {
+		return classCounts(0, rows.length);
+	}
+	
+	/**
+	 * Counts the class values of the rows from (inclusive) to (exclusive).
+	 */
+	private int[] classCounts(int from, int to) {
+		int[] counts = new int[classAttribute.numValues()];
+		for (int r = from; r < to; r++) {
+			int c = store.ordinal(rows[r], classColumn);
+			if (c >= 0) {
+				counts[c]++;
+			}
+		}
+		return counts;
+	}
+	
+	@Override
+	public void countTables(int node, EnumAttribute<?>[] attributes, int[][][] tables) {
+		int[] columns = new int[attributes.length];
+		for (int i = 0; i < attributes.length; i++) {
+			columns[i] = this.columns.get(attributes[i]);
+		}
+		store.countTables(rows, from[node], to[node], columns, classColumn, tables);
+	}
+	
+	/**
+	 * Partitions the rows of a node by their value of the specified attribute (stable).
+	 */
+	@Override
+	public int[][] partition(int node, EnumAttribute<?> attribute, int firstChild, int[] sizes) {
+		int column = columns.get(attribute);
+		int from = this.from[node], to = this.to[node];
+		int[] offsets = new int[attribute.numValues()+1];
+		for (int r = from; r < to; r++) {
+			int v = store.ordinal(rows[r], column);
+			if (v >= 0) {
+				offsets[v+1]++;
+			}
+		}
+		offsets[0] = from;
+		for (int v = 0; v < attribute.numValues(); v++) {
+			offsets[v+1] += offsets[v];
+		}
+		
+		int[] next = offsets.clone();
+		System.arraycopy(rows, from, scratch, from, to-from);
+		for (int r = from; r < to; r++) {
+			int row = scratch[r];
+			int v = store.ordinal(row, column);
+			if (v >= 0) {
+				rows[next[v]++] = row;
+			}
+		}
+		
+		int lastChild = firstChild + attribute.numValues();
+		if (lastChild > this.from.length) {
+			this.from = Arrays.copyOf(this.from, Math.max(lastChild, 2*this.from.length));
+			this.to = Arrays.copyOf(this.to, this.from.length);
+		}
+		int[][] classCounts = new int[attribute.numValues()][];
+		for (int v = 0; v < classCounts.length; v++) {
+			this.from[firstChild+v] = offsets[v];
+			this.to[firstChild+v] = offsets[v+1];
+			sizes[v] = offsets[v+1]-offsets[v];
+			classCounts[v] = classCounts(offsets[v], offsets[v+1]);
+		}
+		return classCounts;
+	}
+	
+}
@@ -0,0 +1,99 @@
+package uni.ml.learning;
+
+import uni.ml.dataset.DatasetView;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.tree.CompiledForest;
+import uni.ml.tree.TreeCompiler;
+
+/**
+ * Scores a growing ensemble of decision trees on a fixed dataset(-view) incrementally.
+ * The instances are encoded once and the weighted votes of all trees added so far are kept per instance, 
+ * so adding a tree costs a single pass over the dataset instead of classifying it with the whole ensemble again.
+ */
+public class EnsembleScorer {
+	
+	private final EnumAttribute<?>[] schema;
+	private final EnumAttribute<?> classAttribute;
+	private final int numClasses;
+	private final int[][] rows;
+	private final int[] actual;
+	private final float[] votes;
+	private final int[] predicted;
+	private int numCorrect;
+	private int numTrees;
+	
+	/**
+	 * @param dataset The dataset(-view) to score the ensemble on.
+	 * @param classAttribute The classification/target attribute.
+	 */
+	public EnsembleScorer(DatasetView dataset, EnumAttribute<?> classAttribute) {
+		this.classAttribute = classAttribute;
+		this.numClasses = classAttribute.numValues();
+		this.schema = new EnumAttribute<?>[dataset.numAttributes()];
+		for (int c = 0; c < schema.length; c++) {
+			schema[c] = dataset.attributeAt(c);
+		}
+		
+		int n = dataset.numInstances();
+		rows = new int[n][schema.length];
+		actual = new int[n];
+		votes = new float[n*numClasses];
+		predicted = new int[n]; // an empty ensemble predicts the first class value
+		for (int i = 0; i < n; i++) {
+			for (int c = 0; c < schema.length; c++) {
+				rows[i][c] = schema[c].indexOf(dataset.instanceAt(i).value(schema[c]));
+			}
+			actual[i] = classAttribute.indexOf(dataset.instanceAt(i).value(classAttribute));
+			if (actual[i] == 0) {
+				numCorrect++;
+			}
+		}
+	}
+	
+	/**
+	 * Adds a tree to the ensemble.
+	 * @param alpha The voting weight of the tree.
+	 */
+	public void add(DecisionTreeModel model, float alpha) {
+		CompiledForest tree = new TreeCompiler(schema, classAttribute).add(model.root()).toForest();
+		for (int i = 0; i < rows.length; i++) {
+			int c = tree.classifyTree(0, rows[i]);
+			if (c < 0)
+				continue;
+			int offset = i*numClasses;
+			votes[offset+c] += alpha;
+			// only the votes of c increased, so the prediction either stays or changes to c (first maximum on ties)
+			int p = predicted[i];
+			if (c != p && (votes[offset+c] > votes[offset+p] || (votes[offset+c] == votes[offset+p] && c < p))) {
+				if (p == actual[i])
+					numCorrect--;
+				if (c == actual[i])
+					numCorrect++;
+				predicted[i] = c;
+			}
+		}
+		numTrees++;
+	}
+	
+	/**
+	 * @return The number of trees added.
+	 */
+	public int numTrees() {
+		return numTrees;
+	}
+	
+	/**
+	 * @return The number of correctly classified instances by the current ensemble.
+	 */
+	public int numCorrect() {
+		return numCorrect;
+	}
+	
+	/**
+	 * @return The percentage of correctly classified instances by the current ensemble.
+	 */
+	public float accuracy() {
+		return rows.length == 0? 0.0f : (float) numCorrect/rows.length;
+	}
+	
+}
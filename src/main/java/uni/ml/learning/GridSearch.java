@@ -0,0 +1,226 @@
+package uni.ml.learning;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import uni.ml.dataset.DatasetIndexedView;
+import uni.ml.dataset.DatasetSplit;
+import uni.ml.dataset.DatasetView;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.Sampling;
+
+/**
+ * Evaluates all combinations of boosting iterations and maximum tree depths of a {@link BoostingForestModel}.
+ * The dataset is encoded once and shared by all combinations, which are evaluated concurrently.
+ * Nested settings are evaluated incrementally:
+ * <ul>
+ * <li>Boosting with n iterations trains the same first n trees as boosting with more iterations (for the same seed),
+ * so only the largest number of iterations is trained for each depth and the scores of all smaller numbers 
+ * are read off the prefixes of that ensemble.</li>
+ * <li>For a single iteration, the shallower trees are obtained by truncating the deepest tree. 
+ * From the second iteration on, the instance weights depend on the depth of the previous trees, 
+ * so each depth trains its own ensemble.</li>
+ * </ul>
+ */
+@Accessors(fluent=true)
+public class GridSearch {
+	
+	private final int[] iterations;
+	private final int[] maxDepths;
+	/**
+	 * The number of randomly selected candidate attributes evaluated per split.
+	 */
+	@Setter @NonNull
+	private AttributeSubspace subspace = AttributeSubspace.ALL;
+	/**
+	 * The seed of all boosting runs and of the splits.
+	 */
+	@Setter
+	private long seed = ThreadLocalRandom.current().nextLong();
+	/**
+	 * The maximum number of ensembles trained concurrently.
+	 */
+	@Setter
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+	
+	/**
+	 * The results of a grid search.
+	 */
+	public static class Result {
+		public final int[] iterations;
+		public final int[] maxDepths;
+		/**
+		 * The mean and standard deviation of correctly classified instances for each combination [iterations][maxDepth].
+		 */
+		public final ClassificationResult[][] results;
+		
+		Result(int[] iterations, int[] maxDepths, ClassificationResult[][] results) {
+			this.iterations = iterations;
+			this.maxDepths = maxDepths;
+			this.results = results;
+		}
+		
+		/**
+		 * @return The indices [iterations, maxDepth] of the combination with the highest mean.
+		 */
+		public int[] best() {
+			int[] best = {0, 0};
+			for (int i = 0; i < iterations.length; i++) {
+				for (int d = 0; d < maxDepths.length; d++) {
+					if (results[i][d].mean > results[best[0]][best[1]].mean) {
+						best = new int[] {i, d};
+					}
+				}
+			}
+			return best;
+		}
+		
+		@Override
+		public String toString() {
+			StringBuilder b = new StringBuilder("iterations\\maxDepth");
+			for (int maxDepth : maxDepths) {
+				b.append("\t").append(maxDepth);
+			}
+			for (int i = 0; i < iterations.length; i++) {
+				b.append("\n").append(iterations[i]);
+				for (int d = 0; d < maxDepths.length; d++) {
+					b.append("\t").append(String.format("%.4f+-%.4f", results[i][d].mean, results[i][d].deviation));
+				}
+			}
+			return b.toString();
+		}
+	}
+	
+	/**
+	 * @param iterations The numbers of boosting iterations to evaluate.
+	 * @param maxDepths The maximum tree depths to evaluate.
+	 */
+	public GridSearch(int[] iterations, int[] maxDepths) {
+		if (iterations.length == 0 || maxDepths.length == 0)
+			throw new IllegalArgumentException("The grid must not be empty");
+		if (Arrays.stream(iterations).anyMatch(i -> i < 0))
+			throw new IllegalArgumentException("The number of iterations must not be negative");
+		this.iterations = iterations.clone();
+		this.maxDepths = maxDepths.clone();
+	}
+	
+	/**
+	 * Evaluates all combinations by stratified k-fold cross-validation.
+	 */
+	public Result kFold(DatasetView dataset, int k, EnumAttribute<?> classAttribute) {
+		return search(dataset, CrossValidation.kFoldSplits(dataset, k, classAttribute, new SplittableRandom(~seed)), classAttribute);
+	}
+	
+	/**
+	 * Evaluates all combinations by repeated hold-out validation.
+	 */
+	public Result repeatedHoldout(DatasetView dataset, float trainingRatio, int repeats, EnumAttribute<?> classAttribute) {
+		return search(dataset, CrossValidation.randomSplits(dataset, trainingRatio, repeats, new SplittableRandom(~seed)), classAttribute);
+	}
+	
+	/**
+	 * Evaluates all combinations on the specified training/test splits.
+	 */
+	public Result search(DatasetView dataset, List<DatasetSplit> splits, EnumAttribute<?> classAttribute) {
+		int maxIterations = Arrays.stream(iterations).max().getAsInt();
+		int deepest = Arrays.stream(maxDepths).max().getAsInt();
+		// truncation is only valid, if the trees are not randomized and have a limited depth
+		boolean truncate = subspace == AttributeSubspace.ALL && Arrays.stream(maxDepths).allMatch(d -> d > 0);
+		
+		dataset.columnStore(); // encode once before the ensembles are trained
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism));
+		float[][][] classified = new float[splits.size()][maxDepths.length][];
+		try {
+			List<CompletableFuture<float[]>> results = new ArrayList<>();
+			for (DatasetSplit split : splits) {
+				// the first tree of the deepest ensemble is shared by all depths of a split
+				CompletableFuture<DecisionTreeModel> firstTree = truncate?
+						CompletableFuture.supplyAsync(() -> firstTree(split.trainingSet, classAttribute, deepest), executor) : 
+						CompletableFuture.completedFuture(null);
+				for (int maxDepth : maxDepths) {
+					results.add(firstTree.thenApplyAsync(tree -> scorePrefixes(split, classAttribute, maxIterations, maxDepth, tree), executor));
+				}
+			}
+			for (int s = 0; s < splits.size(); s++) {
+				for (int d = 0; d < maxDepths.length; d++) {
+					classified[s][d] = CrossValidation.get(results.get(s*maxDepths.length+d));
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		
+		// aggregate over splits
+		ClassificationResult[][] aggregated = new ClassificationResult[iterations.length][maxDepths.length];
+		for (int i = 0; i < iterations.length; i++) {
+			for (int d = 0; d < maxDepths.length; d++) {
+				float[] values = new float[splits.size()];
+				for (int s = 0; s < splits.size(); s++) {
+					values[s] = classified[s][d][iterations[i]];
+				}
+				aggregated[i][d] = ClassificationResult.of(values);
+			}
+		}
+		return new Result(iterations, maxDepths, aggregated);
+	}
+	
+	/**
+	 * Trains the first tree of a boosting run like {@link BoostingForestModel} does for the seed of this grid search.
+	 */
+	private DecisionTreeModel firstTree(DatasetView trainingSet, EnumAttribute<?> classAttribute, int maxDepth) {
+		SplittableRandom random = new SplittableRandom(seed);
+		DatasetView sampledSet = new DatasetIndexedView(trainingSet, 
+				Sampling.weightedBootstrap(Boosting.equalWeights(trainingSet.numInstances()), random));
+		DecisionTreeModel tree = new DecisionTreeModel(maxDepth).subspace(subspace).seed(random.nextLong());
+		tree.trainModel(sampledSet, classAttribute);
+		return tree;
+	}
+	
+	/**
+	 * Trains a boosted ensemble like {@link BoostingForestModel} does for the seed of this grid search 
+	 * and scores each prefix of the ensemble on the test set.
+	 * @param deeperFirstTree The first tree trained with a larger maximum depth, which is truncated instead of training 
+	 * the first tree again, or null.
+	 * @return The percentage of correctly classified instances for each number of iterations (0 to maxIterations).
+	 */
+	private float[] scorePrefixes(DatasetSplit split, EnumAttribute<?> classAttribute, int maxIterations, int maxDepth, DecisionTreeModel deeperFirstTree) {
+		DatasetView trainingSet = split.trainingSet;
+		SplittableRandom random = new SplittableRandom(seed);
+		float[] weights = Boosting.equalWeights(trainingSet.numInstances());
+		List<DecisionTreeModel> models = new ArrayList<>();
+		if (deeperFirstTree != null && maxIterations > 0) {
+			// replay the random draws of the first round
+			DatasetView sampledSet = new DatasetIndexedView(trainingSet, Sampling.weightedBootstrap(weights, random));
+			random.nextLong();
+			float e = Boosting.addModel(trainingSet, weights, models, deeperFirstTree.truncate(maxDepth), sampledSet, classAttribute);
+			if (e < 0.5f && e > 0.0f) {
+				Boosting.boost(trainingSet, weights, models, maxIterations-1, classAttribute, maxDepth, subspace, random);
+			}
+		} else {
+			Boosting.boost(trainingSet, weights, models, maxIterations, classAttribute, maxDepth, subspace, random);
+		}
+		
+		float[] classified = new float[maxIterations+1];
+		EnsembleScorer scorer = new EnsembleScorer(split.testSet, classAttribute);
+		classified[0] = scorer.accuracy();
+		for (DecisionTreeModel tree : models) {
+			scorer.add(tree, Boosting.alpha(tree.error()));
+			classified[scorer.numTrees()] = scorer.accuracy();
+		}
+		// boosting stopped early, more iterations would result in the same ensemble
+		for (int t = models.size()+1; t <= maxIterations; t++) {
+			classified[t] = classified[models.size()];
+		}
+		return classified;
+	}
+	
+}
@@ -0,0 +1,378 @@
+package uni.ml.learning;
+
+import java.util.Arrays;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import uni.ml.dataset.DatasetView;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.Instance;
+import uni.ml.dataset.Value;
+import uni.ml.tree.Classifier;
+import uni.ml.tree.InnerNode;
+import uni.ml.tree.Leaf;
+import uni.ml.tree.Node;
+import uni.ml.tree.TreeCompiler;
+import uni.ml.tree.TreeStringBuilder;
+
+/**
+ * A decision tree learned incrementally from a stream of instances (Hoeffding tree, VFDT).
+ * Each leaf keeps the count tables of its candidate attributes (per value and class value) as sufficient statistics,
+ * so the memory per leaf is constant and an instance is learned by one walk from the root to its leaf.
+ * Every {@link #gracePeriod} instances a leaf evaluates the information gain of its candidate attributes
+ * and is split once the Hoeffding bound guarantees that the best attribute is better than the second best one
+ * with probability 1-{@link #delta}, or the two are too close to matter ({@link #tieThreshold}).
+ * The children start with empty statistics and predict the most common class value of their value until they have seen instances.
+ * <p>
+ * The attributes (including all their values) have to be known in advance, see {@link #reset(EnumAttribute[], EnumAttribute)}.
+ * Instances with a missing class value are ignored, instances with a missing value of a decision attribute stop at the inner node.
+ * The model is not thread-safe.
+ * <p>
+ * Usage: <code>model.reset(attributes, classAttribute); while (...) model.learn(row);</code>
+ */
+@Accessors(fluent=true)
+public class HoeffdingTreeModel extends DecisionModel {
+
+	/**
+	 * The number of instances of a leaf at which its counts are halved, so they do not overflow on an unbounded stream.
+	 */
+	private static final int MAX_COUNT = 1 << 30;
+
+	/**
+	 * The number of instances a leaf learns between split evaluations.
+	 */
+	@Setter
+	private int gracePeriod = 200;
+	/**
+	 * The allowed probability of choosing another split attribute than a batch learner on infinite data.
+	 */
+	@Setter
+	private double delta = 1e-7;
+	/**
+	 * The difference of the Hoeffding bound below which a leaf is split on the best attribute even if the second best is as good.
+	 */
+	@Setter
+	private double tieThreshold = 0.05;
+	/**
+	 * The maximum depth of the tree, leaves at this depth are not split.
+	 */
+	@Setter
+	private int maxDepth = Integer.MAX_VALUE;
+
+	private EnumAttribute<?>[] attributes;
+	private EnumAttribute<?> classAttribute;
+	private int classColumn, numClasses;
+	private TreeNode root;
+	private int[] row;
+	/**
+	 * The number of instances learned since the last reset.
+	 */
+	@Getter
+	private long numLearned;
+	@Getter
+	private int numLeaves, numInnerNodes;
+
+	private static abstract class TreeNode {
+	}
+
+	private static final class SplitNode extends TreeNode {
+		final int column;
+		final TreeNode[] children;
+		/**
+		 * The class value predicted for instances with a missing value of the decision attribute.
+		 */
+		final int mostCommon;
+
+		SplitNode(int column, int numValues, int mostCommon) {
+			this.column = column;
+			this.children = new TreeNode[numValues];
+			this.mostCommon = mostCommon;
+		}
+	}
+
+	/**
+	 * A leaf with the sufficient statistics of the instances reaching it.
+	 * The count tables of all candidate attributes are stored in one array:
+	 * the count of value v and class value c of the i-th candidate is at offsets[i] + v*numClasses + c.
+	 */
+	private static final class LearningLeaf extends TreeNode {
+		final int depth;
+		final int[] columns, offsets;
+		final int[] counts, classCounts;
+		/**
+		 * The class value predicted before the leaf has seen instances.
+		 */
+		final int prior;
+		int n, lastEvaluated;
+
+		LearningLeaf(int depth, int[] columns, EnumAttribute<?>[] attributes, int numClasses, int prior) {
+			this.depth = depth;
+			this.columns = columns;
+			this.prior = prior;
+			offsets = new int[columns.length];
+			int size = 0;
+			for (int i = 0; i < columns.length; i++) {
+				offsets[i] = size;
+				size += attributes[columns[i]].numValues()*numClasses;
+			}
+			counts = new int[size];
+			classCounts = new int[numClasses];
+		}
+
+		int mostCommon() {
+			return n > 0? Measures.mostCommon(classCounts) : prior;
+		}
+
+		/**
+		 * Halves all counts, which keeps the class distributions (up to rounding).
+		 */
+		void halve() {
+			for (int i = 0; i < counts.length; i++) {
+				counts[i] >>= 1;
+			}
+			n = 0;
+			for (int c = 0; c < classCounts.length; c++) {
+				classCounts[c] >>= 1;
+				n += classCounts[c];
+			}
+			lastEvaluated = n;
+		}
+	}
+
+	/**
+	 * Starts a new tree, which consists of a single leaf.
+	 * @param attributes The attributes (columns) of the instances or rows to learn.
+	 * @param classAttribute The classification/target attribute, one of the attributes.
+	 */
+	public HoeffdingTreeModel reset(EnumAttribute<?>[] attributes, EnumAttribute<?> classAttribute) {
+		this.attributes = attributes.clone();
+		this.classAttribute = classAttribute;
+		classColumn = -1;
+		for (int c = 0; c < attributes.length; c++) {
+			if (attributes[c] == classAttribute)
+				classColumn = c;
+		}
+		if (classColumn < 0)
+			throw new IllegalArgumentException("The class attribute " + classAttribute + " is not one of the attributes");
+		numClasses = classAttribute.numValues();
+		int[] columns = new int[attributes.length-1];
+		for (int c = 0, i = 0; c < attributes.length; c++) {
+			if (c != classColumn) {
+				columns[i++] = c;
+			}
+		}
+		root = new LearningLeaf(1, columns, this.attributes, numClasses, 0);
+		row = new int[attributes.length];
+		numLearned = 0;
+		numLeaves = 1;
+		numInnerNodes = 0;
+		return this;
+	}
+
+	/**
+	 * Learns a dictionary-encoded row (one value ordinal per attribute, -1 if missing).
+	 * The array is not retained.
+	 */
+	public void learn(int[] row) {
+		int c = row[classColumn];
+		if (c < 0)
+			return;
+		TreeNode node = root;
+		SplitNode parent = null;
+		int v = -1;
+		while (node instanceof SplitNode) {
+			parent = (SplitNode) node;
+			v = row[parent.column];
+			if (v < 0)
+				return;
+			node = parent.children[v];
+		}
+		LearningLeaf leaf = (LearningLeaf) node;
+		numLearned++;
+		leaf.n++;
+		leaf.classCounts[c]++;
+		int[] columns = leaf.columns, offsets = leaf.offsets, counts = leaf.counts;
+		for (int i = 0; i < columns.length; i++) {
+			int value = row[columns[i]];
+			if (value >= 0) {
+				counts[offsets[i] + value*numClasses + c]++;
+			}
+		}
+		if (leaf.n == MAX_COUNT) {
+			leaf.halve();
+		}
+		if (leaf.n - leaf.lastEvaluated >= gracePeriod) {
+			leaf.lastEvaluated = leaf.n;
+			TreeNode split = evaluateSplit(leaf);
+			if (split != leaf) {
+				if (parent == null) {
+					root = split;
+				} else {
+					parent.children[v] = split;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Learns an instance.
+	 */
+	public void learn(Instance instance) {
+		int[] row = this.row;
+		for (int c = 0; c < row.length; c++) {
+			row[c] = instance.hasAttribute(attributes[c])? attributes[c].indexOf(instance.value(attributes[c])) : -1;
+		}
+		learn(row);
+	}
+
+	/**
+	 * Learns all instances of a dataset(-view) through their encoded values,
+	 * the attributes of the view must be the attributes of this model in the same order.
+	 */
+	public void learn(DatasetView examples) {
+		int[] row = this.row;
+		for (int i = 0; i < examples.numInstances(); i++) {
+			for (int c = 0; c < row.length; c++) {
+				row[c] = examples.ordinalAt(i, c);
+			}
+			learn(row);
+		}
+	}
+
+	/**
+	 * Starts a new tree and learns the examples in one pass, as if they were streamed.
+	 */
+	@Override
+	public void trainModel(DatasetView examples, EnumAttribute<?> classAttribute) {
+		EnumAttribute<?>[] attributes = new EnumAttribute<?>[examples.numAttributes()];
+		for (int c = 0; c < attributes.length; c++) {
+			attributes[c] = examples.attributeAt(c);
+		}
+		reset(attributes, classAttribute);
+		learn(examples);
+	}
+
+	/**
+	 * @return The leaf or a new inner node replacing it if the Hoeffding bound allows a split.
+	 */
+	private TreeNode evaluateSplit(LearningLeaf leaf) {
+		if (leaf.depth >= maxDepth || leaf.columns.length == 0 || Measures.entropy(leaf.classCounts, leaf.n) == 0)
+			return leaf;
+		float best = Float.NEGATIVE_INFINITY, second = 0.0f; // not splitting has no gain
+		int bestIndex = -1;
+		for (int i = 0; i < leaf.columns.length; i++) {
+			int numValues = attributes[leaf.columns[i]].numValues();
+			int[][] table = new int[numValues][];
+			for (int v = 0; v < numValues; v++) {
+				int from = leaf.offsets[i] + v*numClasses;
+				table[v] = Arrays.copyOfRange(leaf.counts, from, from+numClasses);
+			}
+			float gain = Measures.informationGain(table, leaf.classCounts, leaf.n);
+			if (gain > best) {
+				second = Math.max(second, best);
+				best = gain;
+				bestIndex = i;
+			} else if (gain > second) {
+				second = gain;
+			}
+		}
+		double range = Math.log(numClasses)/Math.log(2); // of the information gain
+		double epsilon = Math.sqrt(range*range*Math.log(1/delta)/(2.0*leaf.n));
+		if (best <= 0.0f || (best-second <= epsilon && epsilon >= tieThreshold))
+			return leaf;
+
+		int column = leaf.columns[bestIndex];
+		int numValues = attributes[column].numValues();
+		int mostCommon = leaf.mostCommon();
+		int[] childColumns = new int[leaf.columns.length-1];
+		for (int i = 0, j = 0; i < leaf.columns.length; i++) {
+			if (i != bestIndex) {
+				childColumns[j++] = leaf.columns[i];
+			}
+		}
+		SplitNode split = new SplitNode(column, numValues, mostCommon);
+		for (int v = 0; v < numValues; v++) {
+			int from = leaf.offsets[bestIndex] + v*numClasses;
+			int[] valueCounts = Arrays.copyOfRange(leaf.counts, from, from+numClasses);
+			int prior = Measures.mostCommon(valueCounts);
+			if (valueCounts[prior] == 0) {
+				prior = mostCommon;
+			}
+			split.children[v] = new LearningLeaf(leaf.depth+1, childColumns, attributes, numClasses, prior);
+		}
+		numInnerNodes++;
+		numLeaves += numValues-1;
+		return split;
+	}
+
+	/**
+	 * Classifies a dictionary-encoded row.
+	 * @return The ordinal of the predicted class value.
+	 */
+	public int classify(int[] row) {
+		TreeNode node = root;
+		while (node instanceof SplitNode) {
+			SplitNode split = (SplitNode) node;
+			int v = row[split.column];
+			if (v < 0)
+				return split.mostCommon;
+			node = split.children[v];
+		}
+		return ((LearningLeaf) node).mostCommon();
+	}
+
+	@Override
+	public Classifier classifier() {
+		if (root == null)
+			throw new IllegalStateException("The model has not been trained");
+		EnumAttribute<?>[] attributes = this.attributes;
+		return (instance, classAttribute) -> {
+			TreeNode node = root;
+			while (node instanceof SplitNode) {
+				SplitNode split = (SplitNode) node;
+				EnumAttribute<?> attribute = attributes[split.column];
+				int v = instance.hasAttribute(attribute)? attribute.indexOf(instance.value(attribute)) : -1;
+				if (v < 0)
+					return this.classAttribute.valueAt(split.mostCommon);
+				node = split.children[v];
+			}
+			return this.classAttribute.valueAt(((LearningLeaf) node).mostCommon());
+		};
+	}
+
+	/**
+	 * @return A snapshot of the current tree or null if the model has not been trained.
+	 */
+	public Node root() {
+		return root != null? snapshot(root) : null;
+	}
+
+	private Node snapshot(TreeNode node) {
+		if (node instanceof LearningLeaf)
+			return new Leaf(classAttribute.valueAt(((LearningLeaf) node).mostCommon()));
+		SplitNode split = (SplitNode) node;
+		InnerNode inner = new InnerNode();
+		EnumAttribute<?> attribute = attributes[split.column];
+		inner.decisionAttribute(attribute);
+		inner.mostCommonValue(classAttribute.valueAt(split.mostCommon));
+		for (int v = 0; v < split.children.length; v++) {
+			Value<?> value = attribute.valueAt(v);
+			inner.addChild(value, snapshot(split.children[v]));
+		}
+		return inner;
+	}
+
+	/**
+	 * Appends a snapshot of the current tree to a compiled forest, e.g. to serve it while learning continues.
+	 */
+	public void compile(TreeCompiler compiler) {
+		compiler.add(root());
+	}
+
+	@Override
+	public String toString() {
+		return new TreeStringBuilder().toString(root());
+	}
+
+}
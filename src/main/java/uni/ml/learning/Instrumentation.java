@@ -0,0 +1,39 @@
+package uni.ml.learning;
+
+import lombok.NonNull;
+
+/**
+ * Holds the training listener of this JVM. Instrumentation is disabled by default: 
+ * training then only compares the listener to {@link TrainingListener#NONE} once per tree or boosting round 
+ * and does not read the clock, so it can stay compiled in for production use.
+ */
+public final class Instrumentation {
+	
+	private static volatile TrainingListener listener = TrainingListener.NONE;
+	
+	private Instrumentation() {
+	}
+	
+	/**
+	 * Installs a listener, which replaces the current one. Trainings already in progress may keep notifying the previous listener.
+	 */
+	public static void listener(@NonNull TrainingListener listener) {
+		Instrumentation.listener = listener;
+	}
+	
+	public static TrainingListener listener() {
+		return listener;
+	}
+	
+	/**
+	 * Disables instrumentation.
+	 */
+	public static void disable() {
+		listener = TrainingListener.NONE;
+	}
+	
+	public static boolean enabled() {
+		return listener != TrainingListener.NONE;
+	}
+	
+}
@@ -101,4 +101,54 @@ public class Measures {
 		return informationGain(new DatasetIndexedView(dataset, indices), classAttribute, splitAttribute);
 	}
 	
+	/**
+	 * Computes the entropy from class value counts.
+	 * @param counts The number of instances per class value.
+	 * @param total The total number of instances.
+	 */
+	public static float entropy(int[] counts, int total) {
+		float entropy = 0.0f;
+		for (int count : counts) {
+			if (count != 0) { // avoid log(0)
+				float pv = (float) count/total;
+				entropy -= pv * Math.log(pv)/Math.log(2);
+			}
+		}
+		return entropy;
+	}
+	
+	/**
+	 * Computes the information gain from a count table.
+	 * @param table The number of instances per split-attribute value (first index) and class value (second index).
+	 * @param classCounts The number of instances per class value.
+	 * @param total The total number of instances.
+	 */
+	public static float informationGain(int[][] table, int[] classCounts, int total) {
+		float gain = entropy(classCounts, total);
+		for (int[] valueCounts : table) { // iterate over values of the split-attribute A
+			int numValue = 0; // |Sv|
+			for (int count : valueCounts) {
+				numValue += count;
+			}
+			if (numValue > 0) {
+				float weight = (float) numValue/total; // |Sv|/|S|
+				gain -= weight * entropy(valueCounts, numValue);
+			}
+		}
+		return gain;
+	}
+	
+	/**
+	 * @return The index of the most common value (the first one on ties).
+	 */
+	public static int mostCommon(int[] counts) {
+		int mcv = 0;
+		for (int v = 1; v < counts.length; v++) {
+			if (counts[v] > counts[mcv]) {
+				mcv = v;
+			}
+		}
+		return mcv;
+	}
+	
 }
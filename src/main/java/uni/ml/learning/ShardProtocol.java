@@ -0,0 +1,67 @@
+package uni.ml.learning;
+
+import uni.ml.dataset.EnumAttribute;
+
+/**
+ * The messages between a {@link TrainingCoordinator} and its {@link TrainingWorker}s.
+ * On connect, the worker sends the magic number, the version, its number of rows and its schema 
+ * (see {@link uni.ml.io.BinaryFormat#writeAttributes(java.io.DataOutput, EnumAttribute[])}).
+ * Then the coordinator sends commands, each answered by the worker (except {@link #CLOSE}):
+ * <pre>
+ * TREE     int class column, int sample size (-1 for all rows), long seed (unless all rows)
+ *          -&gt; int size, int class count (per class value)
+ * COUNT    int node, int number of attributes, int column (per attribute)
+ *          -&gt; int count (per attribute, value and class value)
+ * SPLIT    int node, int column, int first child
+ *          -&gt; per value: int size, int class count (per class value)
+ * TEST     tree (see {@link uni.ml.tree.TreeSerializer})
+ *          -&gt; int misclassified sample rows, double weight of the correctly classified rows
+ * WEIGHTS  int number of rows of all workers
+ *          -&gt; double weight sum
+ * REWEIGHT float factor of the correctly classified rows, float factor of all rows
+ *          -&gt; double weight sum
+ * CLOSE
+ * </pre>
+ * WEIGHTS sets the boosting weight of each row of the worker to one over the number of rows of all workers.
+ * The sample of a tree is drawn by the worker with replacement from its rows in proportion to their weights,
+ * using a generator seeded by the coordinator. REWEIGHT multiplies the weights of the rows correctly classified
+ * by the last tested tree by the first factor (e/(1-e) for error e) and all weights by the second (to normalize them),
+ * so no rows or weights are sent over the network.
+ * COUNT, SPLIT and TEST refer to the tree of the last TREE command, REWEIGHT to the last TEST command.
+ * The worker ends the session on a command that is not valid (e.g. before the first TREE or a sampled TREE before WEIGHTS)
+ * or that refers to a column or node it does not have.
+ */
+final class ShardProtocol {
+
+	static final int MAGIC = 0x53484152; // "SHAR"
+	static final int VERSION = 2;
+
+	static final byte TREE = 1;
+	static final byte COUNT = 2;
+	static final byte SPLIT = 3;
+	static final byte TEST = 4;
+	static final byte CLOSE = 5;
+	static final byte WEIGHTS = 6;
+	static final byte REWEIGHT = 7;
+
+	private ShardProtocol() {
+	}
+
+	/**
+	 * @return True if both schemas have the same attributes with the same values in the same order.
+	 */
+	static boolean sameSchema(EnumAttribute<?>[] a, EnumAttribute<?>[] b) {
+		if (a.length != b.length)
+			return false;
+		for (int i = 0; i < a.length; i++) {
+			if (!a[i].name().equals(b[i].name()) || a[i].numValues() != b[i].numValues())
+				return false;
+			for (int v = 0; v < a[i].numValues(); v++) {
+				if (!a[i].valueAt(v).value().equals(b[i].valueAt(v).value()))
+					return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,401 @@
+package uni.ml.learning;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.io.BinaryFormat;
+import uni.ml.tree.CompiledForest;
+import uni.ml.tree.TreeSerializer;
+
+/**
+ * Trains decision trees and boosted forests on a training set sharded horizontally over {@link TrainingWorker} processes.
+ * The coordinator grows the tree: for each node, the workers count the class values per attribute value of their examples 
+ * and the coordinator sums the count tables to select the split, which the workers then apply to their examples.
+ * Boosting keeps the instance weights on the workers: The coordinator only sends the number of rows each worker samples
+ * (drawn in proportion to the weight sums of the workers) with a seed, and the error of each tree to reweight the rows.
+ * <p>
+ * The coordinator has its own copy of the attributes (the schema of the workers), which the trained models refer to.
+ */
+public class TrainingCoordinator implements Closeable {
+
+	private static class Worker {
+		final Socket socket;
+		final DataInputStream in;
+		final DataOutputStream out;
+		final int numRows;
+		
+		Worker(Socket socket) throws IOException {
+			this.socket = socket;
+			socket.setTcpNoDelay(true);
+			in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			if (in.readInt() != ShardProtocol.MAGIC)
+				throw new IOException("Not a training worker: " + socket.getRemoteSocketAddress());
+			int version = in.readInt();
+			if (version != ShardProtocol.VERSION)
+				throw new IOException("Unsupported training worker version " + version);
+			numRows = in.readInt();
+		}
+	}
+	
+	private final Worker[] workers;
+	private final EnumAttribute<?>[] schema;
+	private final int numInstances;
+	
+	/**
+	 * Connects to the workers and checks that they have the same attributes.
+	 */
+	public TrainingCoordinator(List<InetSocketAddress> addresses) throws IOException {
+		if (addresses.isEmpty())
+			throw new IllegalArgumentException("No workers");
+		workers = new Worker[addresses.size()];
+		EnumAttribute<?>[] schema = null;
+		int offset = 0;
+		try {
+			for (int w = 0; w < workers.length; w++) {
+				Socket socket = new Socket();
+				try {
+					socket.connect(addresses.get(w));
+					workers[w] = new Worker(socket);
+				} catch (IOException e) {
+					socket.close();
+					throw e;
+				}
+				EnumAttribute<?>[] workerSchema = BinaryFormat.readAttributes(workers[w].in);
+				if (schema == null) {
+					schema = workerSchema;
+				} else if (!ShardProtocol.sameSchema(schema, workerSchema)) {
+					throw new IOException("The attributes of worker " + addresses.get(w) + " differ from the attributes of worker " + addresses.get(0));
+				}
+				offset = Math.addExact(offset, workers[w].numRows);
+			}
+		} catch (IOException | RuntimeException e) {
+			close();
+			throw e;
+		}
+		this.schema = schema;
+		this.numInstances = offset;
+	}
+	
+	/**
+	 * @return The attributes of the training set.
+	 */
+	public EnumAttribute<?>[] attributes() {
+		return schema.clone();
+	}
+	
+	public EnumAttribute<?> lastAttribute() {
+		return schema[schema.length-1];
+	}
+	
+	/**
+	 * @return The number of rows of the training set (of all workers).
+	 */
+	public int numInstances() {
+		return numInstances;
+	}
+	
+	public int numWorkers() {
+		return workers.length;
+	}
+	
+	private int column(EnumAttribute<?> attribute) {
+		for (int c = 0; c < schema.length; c++) {
+			if (schema[c] == attribute)
+				return c;
+		}
+		throw new IllegalArgumentException("Attribute " + attribute + " is not an attribute of the coordinator");
+	}
+	
+	private void flush() throws IOException {
+		for (Worker worker : workers) {
+			worker.out.flush();
+		}
+	}
+	
+	/**
+	 * The examples of a tree distributed over the workers. 
+	 * Each request is sent to all workers before the replies are read, so the workers count in parallel.
+	 */
+	private class ShardedExamples implements TreeExamples {
+		
+		private final EnumAttribute<?> classAttribute;
+		private final Set<EnumAttribute<?>> attributes = new HashSet<>();
+		private int size;
+		private final int[] classCounts;
+		
+		/**
+		 * Starts a tree on the workers.
+		 * @param sampleSizes The number of rows each worker samples from its weights or null for all rows.
+		 * @param seeds The seed of the generator each worker samples with.
+		 */
+		ShardedExamples(EnumAttribute<?> classAttribute, int[] sampleSizes, long[] seeds) throws IOException {
+			this.classAttribute = classAttribute;
+			attributes.addAll(Arrays.asList(schema));
+			attributes.remove(classAttribute);
+			int classColumn = column(classAttribute);
+			for (int w = 0; w < workers.length; w++) {
+				DataOutputStream out = workers[w].out;
+				out.writeByte(ShardProtocol.TREE);
+				out.writeInt(classColumn);
+				if (sampleSizes == null) {
+					out.writeInt(-1);
+				} else {
+					out.writeInt(sampleSizes[w]);
+					out.writeLong(seeds[w]);
+				}
+			}
+			flush();
+			classCounts = new int[classAttribute.numValues()];
+			for (Worker worker : workers) {
+				size += worker.in.readInt();
+				readCounts(worker.in, classCounts);
+			}
+		}
+		
+		private void readCounts(DataInputStream in, int[] counts) throws IOException {
+			for (int i = 0; i < counts.length; i++) {
+				counts[i] += in.readInt();
+			}
+		}
+		
+		@Override
+		public EnumAttribute<?> classAttribute() {
+			return classAttribute;
+		}
+		
+		@Override
+		public Set<EnumAttribute<?>> attributes() {
+			return attributes;
+		}
+		
+		@Override
+		public int size() {
+			return size;
+		}
+		
+		@Override
+		public int[] classCounts() {
+			return classCounts.clone();
+		}
+		
+		@Override
+		public void countTables(int node, EnumAttribute<?>[] attributes, int[][][] tables) {
+			try {
+				for (Worker worker : workers) {
+					worker.out.writeByte(ShardProtocol.COUNT);
+					worker.out.writeInt(node);
+					worker.out.writeInt(attributes.length);
+					for (EnumAttribute<?> attribute : attributes) {
+						worker.out.writeInt(column(attribute));
+					}
+				}
+				flush();
+				for (Worker worker : workers) {
+					for (int[][] table : tables) {
+						for (int[] counts : table) {
+							readCounts(worker.in, counts);
+						}
+					}
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		
+		@Override
+		public int[][] partition(int node, EnumAttribute<?> attribute, int firstChild, int[] sizes) {
+			try {
+				for (Worker worker : workers) {
+					worker.out.writeByte(ShardProtocol.SPLIT);
+					worker.out.writeInt(node);
+					worker.out.writeInt(column(attribute));
+					worker.out.writeInt(firstChild);
+				}
+				flush();
+				int[][] classCounts = new int[attribute.numValues()][classAttribute.numValues()];
+				for (Worker worker : workers) {
+					for (int v = 0; v < sizes.length; v++) {
+						sizes[v] += worker.in.readInt();
+						readCounts(worker.in, classCounts[v]);
+					}
+				}
+				return classCounts;
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+	
+	private DecisionTreeModel trainTree(int[] sampleSizes, long[] seeds, EnumAttribute<?> classAttribute, int maxDepth, 
+			AttributeSubspace subspace, long seed) throws IOException {
+		DecisionTreeModel model = new DecisionTreeModel(maxDepth).subspace(subspace).seed(seed);
+		try {
+			model.trainModel(new ShardedExamples(classAttribute, sampleSizes, seeds));
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		return model;
+	}
+	
+	/**
+	 * Trains a decision tree on all rows of the workers.
+	 * @param classAttribute The classification/target attribute, one of {@link #attributes()}.
+	 * @param seed The seed of the random number generator used to select attribute subspaces.
+	 */
+	public DecisionTreeModel trainTree(EnumAttribute<?> classAttribute, int maxDepth, AttributeSubspace subspace, long seed) throws IOException {
+		return trainTree(null, null, classAttribute, maxDepth, subspace, seed);
+	}
+	
+	/**
+	 * Generates a boosted sequence of decision trees like {@link Boosting#modelGeneration(uni.ml.dataset.DatasetView, int, EnumAttribute, int, AttributeSubspace, SplittableRandom)}:
+	 * Each tree is trained on a weighted bootstrap sample, its error is measured on the sample and 
+	 * the weights of the correctly classified rows are multiplied by e/(1-e). 
+	 * Boosting stops early if a tree has error 0 or at least 0.5.
+	 * The weights are kept and the rows are sampled by the workers, see {@link ShardProtocol}.
+	 * @param random The random number generator to distribute the sample over the workers and seed the workers and trees with.
+	 */
+	public List<DecisionTreeModel> boost(int numIterations, EnumAttribute<?> classAttribute, int maxDepth, AttributeSubspace subspace, 
+			SplittableRandom random) throws IOException {
+		TrainingListener listener = Instrumentation.listener();
+		boolean timed = listener != TrainingListener.NONE;
+		List<DecisionTreeModel> models = new ArrayList<>();
+		for (Worker worker : workers) {
+			worker.out.writeByte(ShardProtocol.WEIGHTS);
+			worker.out.writeInt(numInstances);
+		}
+		double[] weightSums = readWeightSums();
+		for (int i = 0; i < numIterations; i++) {
+			long start = timed? System.nanoTime() : 0L;
+			int[] sampleSizes = sampleSizes(weightSums, random);
+			long[] seeds = new long[workers.length];
+			for (int w = 0; w < seeds.length; w++) {
+				seeds[w] = random.nextLong();
+			}
+			if (timed) {
+				listener.sampled(numInstances, System.nanoTime()-start);
+			}
+			DecisionTreeModel model = trainTree(sampleSizes, seeds, classAttribute, maxDepth, subspace, random.nextLong());
+			
+			// test the model on the sample and sum the weights of the correctly classified rows
+			TreeSerializer serializer = new TreeSerializer(schema, classAttribute);
+			for (Worker worker : workers) {
+				worker.out.writeByte(ShardProtocol.TEST);
+				serializer.write(model.root(), worker.out);
+			}
+			flush();
+			int misclassified = 0;
+			double[] correctWeights = new double[workers.length];
+			for (int w = 0; w < workers.length; w++) {
+				misclassified += workers[w].in.readInt();
+				correctWeights[w] = workers[w].in.readDouble();
+			}
+			float e = 1.0f - (float) (numInstances-misclassified)/numInstances;
+			model.error(e);
+			if (e >= 0.5f)
+				break;
+			models.add(model);
+			if (timed) {
+				listener.roundCompleted(models.size(), e, Boosting.alpha(e));
+			}
+			if (e == 0.0f)
+				break;
+			
+			// the workers reweight their rows and normalize the weights with the sum computed from the weights before reweighting
+			start = timed? System.nanoTime() : 0L;
+			float factor = e/(1-e);
+			double sum = 0.0;
+			for (int w = 0; w < workers.length; w++) {
+				sum += weightSums[w] + (factor-1)*correctWeights[w];
+			}
+			for (Worker worker : workers) {
+				worker.out.writeByte(ShardProtocol.REWEIGHT);
+				worker.out.writeFloat(factor);
+				worker.out.writeFloat((float) (1/sum));
+			}
+			weightSums = readWeightSums();
+			if (timed) {
+				listener.reweighted(numInstances, System.nanoTime()-start);
+			}
+		}
+		return models;
+	}
+	
+	/**
+	 * Flushes the pending WEIGHTS or REWEIGHT commands.
+	 * @return The weight sum of each worker.
+	 */
+	private double[] readWeightSums() throws IOException {
+		flush();
+		double[] weightSums = new double[workers.length];
+		for (int w = 0; w < workers.length; w++) {
+			weightSums[w] = workers[w].in.readDouble();
+		}
+		return weightSums;
+	}
+	
+	/**
+	 * Distributes a bootstrap sample of the training set over the workers, 
+	 * each row is drawn from a worker with a probability proportional to the weight sum of the worker.
+	 * @return The number of rows each worker samples.
+	 */
+	private int[] sampleSizes(double[] weightSums, SplittableRandom random) {
+		double[] cumulative = new double[weightSums.length];
+		double sum = 0.0;
+		for (int w = 0; w < weightSums.length; w++) {
+			sum += weightSums[w];
+			cumulative[w] = sum;
+		}
+		int[] sizes = new int[workers.length];
+		for (int i = 0; i < numInstances; i++) {
+			double draw = random.nextDouble()*sum;
+			int w = 0;
+			while (w < workers.length-1 && cumulative[w] <= draw) {
+				w++;
+			}
+			sizes[w]++;
+		}
+		return sizes;
+	}
+	
+	/**
+	 * Compiles a sequence of boosted models (weighted by their alpha) for the attributes of the coordinator, 
+	 * e.g. to save it with {@link CompiledForest#save(java.io.File)}.
+	 */
+	public CompiledForest compile(List<DecisionTreeModel> models, EnumAttribute<?> classAttribute) {
+		return Boosting.compile(models, schema, classAttribute, Boosting.alphas(models));
+	}
+	
+	/**
+	 * Ends the sessions with the workers, which then accept the next coordinator.
+	 */
+	@Override
+	public void close() throws IOException {
+		for (Worker worker : workers) {
+			if (worker == null)
+				continue;
+			try {
+				worker.out.writeByte(ShardProtocol.CLOSE);
+				worker.out.flush();
+			} catch (IOException e) {
+				// the worker is gone
+			}
+			worker.socket.close();
+		}
+	}
+	
+}
@@ -0,0 +1,61 @@
+package uni.ml.learning;
+
+/**
+ * Is notified about the phases of training decision trees and boosted ensembles, e.g. to collect metrics.
+ * Listeners are installed globally with {@link Instrumentation#listener(TrainingListener)} and may be called
+ * from several training threads concurrently. All methods do nothing by default.
+ * @see TrainingMetrics
+ */
+public interface TrainingListener {
+	
+	/**
+	 * The listener of disabled instrumentation. Training does not measure any times while it is installed.
+	 */
+	public static final TrainingListener NONE = new TrainingListener() {};
+	
+	/**
+	 * A bootstrap sample has been drawn.
+	 * @param rows The number of sampled rows.
+	 */
+	public default void sampled(int rows, long nanos) {
+	}
+	
+	/**
+	 * The candidate attributes of an inner node have been evaluated.
+	 * @param rows The number of rows scanned to count the class values.
+	 * @param candidates The number of candidate attributes, i.e. information gain evaluations.
+	 */
+	public default void splitEvaluated(int rows, int candidates, long nanos) {
+	}
+	
+	/**
+	 * The rows of an inner node have been partitioned by its decision attribute.
+	 */
+	public default void partitioned(int rows, long nanos) {
+	}
+	
+	/**
+	 * A decision tree has been built.
+	 * @param innerNodes The number of inner nodes.
+	 * @param leaves The number of leaves.
+	 * @param nanos The total time to build the tree, including split evaluation and partitioning.
+	 */
+	public default void treeBuilt(int innerNodes, int leaves, long nanos) {
+	}
+	
+	/**
+	 * The instance weights have been updated after a boosting round.
+	 */
+	public default void reweighted(int rows, long nanos) {
+	}
+	
+	/**
+	 * A model has been added to a boosted ensemble.
+	 * @param round The number of models of the ensemble.
+	 * @param error The error of the model on its sample.
+	 * @param alpha The voting weight of the model.
+	 */
+	public default void roundCompleted(int round, float error, float alpha) {
+	}
+
+}
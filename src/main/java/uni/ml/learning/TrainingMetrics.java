@@ -0,0 +1,281 @@
+package uni.ml.learning;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * A training listener accumulating counters and phase timers with low contention ({@link LongAdder}), 
+ * so it can be shared by concurrent trainings. The metrics can be published as a JMX MBean.
+ * The error and alpha of the last {@link #HISTORY_SIZE} boosting rounds are kept in the order the rounds completed
+ * (rounds of concurrent trainings are interleaved), the error statistics cover all rounds since the last reset.
+ * <p>
+ * Usage: <code>TrainingMetrics metrics = TrainingMetrics.register();</code> installs the metrics as listener
+ * and publishes them as <code>uni.ml:type=TrainingMetrics</code>.
+ */
+public class TrainingMetrics implements TrainingListener, TrainingMetricsMBean {
+	
+	public static final String OBJECT_NAME = "uni.ml:type=TrainingMetrics";
+	/**
+	 * The maximum number of rounds in the per-round history.
+	 */
+	public static final int HISTORY_SIZE = 1024;
+	
+	private final LongAdder trees = new LongAdder();
+	private final LongAdder innerNodes = new LongAdder();
+	private final LongAdder leaves = new LongAdder();
+	private final LongAdder gainEvaluations = new LongAdder();
+	private final LongAdder rowsScanned = new LongAdder();
+	private final LongAdder rowsPartitioned = new LongAdder();
+	private final LongAdder rowsSampled = new LongAdder();
+	private final LongAdder treeBuildingNanos = new LongAdder();
+	private final LongAdder samplingNanos = new LongAdder();
+	private final LongAdder splitEvaluationNanos = new LongAdder();
+	private final LongAdder partitioningNanos = new LongAdder();
+	private final LongAdder reweightingNanos = new LongAdder();
+	private final LongAdder rounds = new LongAdder();
+	
+	// per-round history (ring buffer) and error statistics, guarded by this
+	private final float[] roundErrors = new float[HISTORY_SIZE];
+	private final float[] roundAlphas = new float[HISTORY_SIZE];
+	private long numRounds;
+	private float minRoundError = Float.NaN, maxRoundError = Float.NaN;
+	private double sumRoundErrors;
+	
+	/**
+	 * Creates metrics, installs them as the training listener and registers them with the platform MBean server.
+	 * A previously registered instance is unregistered.
+	 */
+	public static TrainingMetrics register() {
+		TrainingMetrics metrics = new TrainingMetrics();
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			synchronized (TrainingMetrics.class) {
+				if (server.isRegistered(name)) {
+					server.unregisterMBean(name);
+				}
+				server.registerMBean(metrics, name);
+			}
+		} catch (JMException e) {
+			throw new IllegalStateException("Could not register training metrics", e);
+		}
+		Instrumentation.listener(metrics);
+		return metrics;
+	}
+	
+	/**
+	 * Unregisters the metrics from the platform MBean server and disables instrumentation.
+	 */
+	public static void unregister() {
+		Instrumentation.disable();
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			synchronized (TrainingMetrics.class) {
+				if (server.isRegistered(name)) {
+					server.unregisterMBean(name);
+				}
+			}
+		} catch (JMException e) {
+			throw new IllegalStateException("Could not unregister training metrics", e);
+		}
+	}
+	
+	@Override
+	public void sampled(int rows, long nanos) {
+		rowsSampled.add(rows);
+		samplingNanos.add(nanos);
+	}
+	
+	@Override
+	public void splitEvaluated(int rows, int candidates, long nanos) {
+		rowsScanned.add(rows);
+		gainEvaluations.add(candidates);
+		splitEvaluationNanos.add(nanos);
+	}
+	
+	@Override
+	public void partitioned(int rows, long nanos) {
+		rowsPartitioned.add(rows);
+		partitioningNanos.add(nanos);
+	}
+	
+	@Override
+	public void treeBuilt(int innerNodes, int leaves, long nanos) {
+		trees.increment();
+		this.innerNodes.add(innerNodes);
+		this.leaves.add(leaves);
+		treeBuildingNanos.add(nanos);
+	}
+	
+	@Override
+	public void reweighted(int rows, long nanos) {
+		reweightingNanos.add(nanos);
+	}
+	
+	@Override
+	public void roundCompleted(int round, float error, float alpha) {
+		rounds.increment();
+		synchronized (this) {
+			int i = (int) (numRounds % HISTORY_SIZE);
+			roundErrors[i] = error;
+			roundAlphas[i] = alpha;
+			minRoundError = numRounds == 0? error : Math.min(minRoundError, error);
+			maxRoundError = numRounds == 0? error : Math.max(maxRoundError, error);
+			sumRoundErrors += error;
+			numRounds++;
+		}
+	}
+	
+	/**
+	 * @return The values of the history in the order the rounds completed.
+	 */
+	private synchronized float[] history(float[] values) {
+		int size = (int) Math.min(numRounds, HISTORY_SIZE);
+		float[] ordered = new float[size];
+		int start = (int) ((numRounds - size) % HISTORY_SIZE);
+		for (int k = 0; k < size; k++) {
+			ordered[k] = values[(start + k) % HISTORY_SIZE];
+		}
+		return ordered;
+	}
+	
+	private synchronized float last(float[] values) {
+		return numRounds == 0? Float.NaN : values[(int) ((numRounds-1) % HISTORY_SIZE)];
+	}
+	
+	private static double millis(LongAdder nanos) {
+		return nanos.sum()/1e6;
+	}
+
+	@Override
+	public long getTrees() {
+		return trees.sum();
+	}
+
+	@Override
+	public long getInnerNodes() {
+		return innerNodes.sum();
+	}
+
+	@Override
+	public long getLeaves() {
+		return leaves.sum();
+	}
+
+	@Override
+	public long getGainEvaluations() {
+		return gainEvaluations.sum();
+	}
+
+	@Override
+	public long getRowsScanned() {
+		return rowsScanned.sum();
+	}
+
+	@Override
+	public long getRowsPartitioned() {
+		return rowsPartitioned.sum();
+	}
+	
+	@Override
+	public long getRowsSampled() {
+		return rowsSampled.sum();
+	}
+
+	@Override
+	public double getTreeBuildingMillis() {
+		return millis(treeBuildingNanos);
+	}
+
+	@Override
+	public double getSamplingMillis() {
+		return millis(samplingNanos);
+	}
+
+	@Override
+	public double getSplitEvaluationMillis() {
+		return millis(splitEvaluationNanos);
+	}
+
+	@Override
+	public double getPartitioningMillis() {
+		return millis(partitioningNanos);
+	}
+
+	@Override
+	public double getReweightingMillis() {
+		return millis(reweightingNanos);
+	}
+
+	@Override
+	public long getRounds() {
+		return rounds.sum();
+	}
+
+	@Override
+	public float getLastRoundError() {
+		return last(roundErrors);
+	}
+
+	@Override
+	public float getLastRoundAlpha() {
+		return last(roundAlphas);
+	}
+	
+	@Override
+	public synchronized float getMinRoundError() {
+		return minRoundError;
+	}
+	
+	@Override
+	public synchronized float getMaxRoundError() {
+		return maxRoundError;
+	}
+	
+	@Override
+	public synchronized double getMeanRoundError() {
+		return numRounds == 0? Double.NaN : sumRoundErrors/numRounds;
+	}
+	
+	@Override
+	public float[] getRoundErrors() {
+		return history(roundErrors);
+	}
+	
+	@Override
+	public float[] getRoundAlphas() {
+		return history(roundAlphas);
+	}
+
+	@Override
+	public void reset() {
+		for (LongAdder adder : new LongAdder[] {trees, innerNodes, leaves, gainEvaluations, rowsScanned, rowsPartitioned, rowsSampled,
+				treeBuildingNanos, samplingNanos, splitEvaluationNanos, partitioningNanos, reweightingNanos, rounds}) {
+			adder.reset();
+		}
+		synchronized (this) {
+			numRounds = 0;
+			minRoundError = maxRoundError = Float.NaN;
+			sumRoundErrors = 0.0;
+			Arrays.fill(roundErrors, 0.0f);
+			Arrays.fill(roundAlphas, 0.0f);
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%d trees (%d inner nodes, %d leaves) in %.1f ms: split evaluation %.1f ms (%d gain evaluations, %d rows scanned), "
+				+ "partitioning %.1f ms (%d rows); %d boosting rounds: sampling %.1f ms (%d rows), reweighting %.1f ms, "
+				+ "error min %.4f mean %.4f max %.4f, last error %.4f, last alpha %.4f", 
+				getTrees(), getInnerNodes(), getLeaves(), getTreeBuildingMillis(), getSplitEvaluationMillis(), getGainEvaluations(), getRowsScanned(),
+				getPartitioningMillis(), getRowsPartitioned(), getRounds(), getSamplingMillis(), getRowsSampled(), getReweightingMillis(), 
+				getMinRoundError(), getMeanRoundError(), getMaxRoundError(), getLastRoundError(), getLastRoundAlpha());
+	}
+
+}
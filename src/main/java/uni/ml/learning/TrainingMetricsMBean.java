@@ -0,0 +1,44 @@
+package uni.ml.learning;
+
+/**
+ * The JMX management interface of {@link TrainingMetrics}.
+ */
+public interface TrainingMetricsMBean {
+	
+	public long getTrees();
+	public long getInnerNodes();
+	public long getLeaves();
+	public long getGainEvaluations();
+	public long getRowsScanned();
+	public long getRowsPartitioned();
+	public long getRowsSampled();
+	
+	public double getTreeBuildingMillis();
+	public double getSamplingMillis();
+	public double getSplitEvaluationMillis();
+	public double getPartitioningMillis();
+	public double getReweightingMillis();
+	
+	public long getRounds();
+	public float getLastRoundError();
+	public float getLastRoundAlpha();
+	public float getMinRoundError();
+	public float getMaxRoundError();
+	public double getMeanRoundError();
+	
+	/**
+	 * @return The error of each of the last (at most {@link TrainingMetrics#HISTORY_SIZE}) boosting rounds, oldest first.
+	 */
+	public float[] getRoundErrors();
+	
+	/**
+	 * @return The alpha of each of the last (at most {@link TrainingMetrics#HISTORY_SIZE}) boosting rounds, oldest first.
+	 */
+	public float[] getRoundAlphas();
+	
+	/**
+	 * Resets all counters, timers and the per-round history.
+	 */
+	public void reset();
+	
+}
@@ -0,0 +1,295 @@
+package uni.ml.learning;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import uni.ml.dataset.DatasetIndexedView;
+import uni.ml.dataset.DatasetView;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.Sampling;
+import uni.ml.io.BinaryFormat;
+import uni.ml.tree.CompiledForest;
+import uni.ml.tree.Node;
+import uni.ml.tree.TreeCompiler;
+import uni.ml.tree.TreeSerializer;
+
+/**
+ * Serves a horizontal shard of a training set to a {@link TrainingCoordinator}.
+ * The worker keeps the examples of the tree being built partitioned by node (as a local training would) 
+ * and answers the count tables and partitions of the nodes requested by the coordinator, 
+ * so only the statistics and no examples are sent over the network.
+ * For boosting, the worker keeps the weights of its rows, draws the sample of each tree from them 
+ * and reweights them with the error sent by the coordinator.
+ * Coordinators are served one after another, if serving a coordinator fails (e.g. the connection is lost
+ * or the coordinator violates the {@link ShardProtocol}), the error is passed to the {@link #errorHandler} 
+ * and the next coordinator is served.
+ * <p>
+ * Usage: <code>new Thread(new TrainingWorker(shard, port)).start()</code>
+ */
+@Accessors(fluent=true)
+public class TrainingWorker implements Runnable, Closeable {
+
+	private final DatasetView shard;
+	private final EnumAttribute<?>[] schema;
+	private final ServerSocket server;
+	/**
+	 * Receives the errors of failed coordinator sessions, ignores them by default.
+	 */
+	@Setter @NonNull
+	private Consumer<? super Exception> errorHandler = e -> {};
+
+	/**
+	 * @param shard The examples of this worker, all workers must have the same attributes (in the same order and with the same values).
+	 * @param port The port to listen on, 0 for any free port.
+	 */
+	public TrainingWorker(DatasetView shard, int port) throws IOException {
+		this(shard, new ServerSocket(port));
+	}
+
+	/**
+	 * @param server The socket to accept coordinators on, it is closed by {@link #close()}.
+	 */
+	public TrainingWorker(DatasetView shard, ServerSocket server) {
+		this.shard = shard;
+		this.server = server;
+		schema = new EnumAttribute<?>[shard.numAttributes()];
+		for (int i = 0; i < schema.length; i++) {
+			schema[i] = shard.attributeAt(i);
+		}
+	}
+
+	/**
+	 * Creates a worker listening on the loopback address.
+	 */
+	public static TrainingWorker local(DatasetView shard) throws IOException {
+		return new TrainingWorker(shard, new ServerSocket(0, 50, InetAddress.getLoopbackAddress()));
+	}
+
+	/**
+	 * @return The port this worker listens on.
+	 */
+	public int port() {
+		return server.getLocalPort();
+	}
+
+	/**
+	 * Serves coordinators until the worker is closed.
+	 */
+	@Override
+	public void run() {
+		while (!server.isClosed()) {
+			try (Socket socket = server.accept()) {
+				socket.setTcpNoDelay(true);
+				serve(new DataInputStream(new BufferedInputStream(socket.getInputStream())), 
+						new DataOutputStream(new BufferedOutputStream(socket.getOutputStream())));
+			} catch (IOException | RuntimeException e) {
+				// e.g. an UncheckedIOException of a chunked column store
+				if (!server.isClosed()) {
+					errorHandler.accept(e); // the coordinator fails, the next one is served
+				}
+			}
+		}
+	}
+
+	private void serve(DataInputStream in, DataOutputStream out) throws IOException {
+		out.writeInt(ShardProtocol.MAGIC);
+		out.writeInt(ShardProtocol.VERSION);
+		out.writeInt(shard.numInstances());
+		BinaryFormat.writeAttributes(out, schema);
+		out.flush();
+		
+		int[] sample = null; // the rows of the tree, null for all rows
+		EnumAttribute<?> classAttribute = null;
+		EncodedExamples examples = null;
+		int numNodes = 0; // the number of nodes of the tree
+		float[] weights = null; // the boosting weights of the rows
+		long[] correct = null; // the rows correctly classified by the last tested tree
+		while (true) {
+			byte command = in.readByte();
+			if (examples == null && (command == ShardProtocol.COUNT || command == ShardProtocol.SPLIT || command == ShardProtocol.TEST))
+				throw new IOException("Command " + command + " before the first tree");
+			if (correct == null && command == ShardProtocol.REWEIGHT)
+				throw new IOException("Command " + command + " before the first test");
+			switch (command) {
+			case ShardProtocol.TREE: {
+				classAttribute = attribute(in.readInt());
+				int size = in.readInt();
+				if (size < -1)
+					throw new IOException("Invalid sample size " + size);
+				if (size == -1) {
+					sample = null;
+					examples = new EncodedExamples(shard, classAttribute);
+				} else {
+					long seed = in.readLong();
+					if (weights == null || (size > 0 && weights.length == 0))
+						throw new IOException("Cannot sample " + size + " rows without weights");
+					sample = Sampling.weightedBootstrap(weights, size, new SplittableRandom(seed));
+					examples = new EncodedExamples(new DatasetIndexedView(shard, sample), classAttribute);
+				}
+				correct = null;
+				numNodes = 1;
+				out.writeInt(examples.size());
+				writeInts(out, examples.classCounts());
+				break;
+			}
+			case ShardProtocol.COUNT: {
+				int node = node(in.readInt(), numNodes);
+				int numAttributes = in.readInt();
+				if (numAttributes < 0 || numAttributes > schema.length)
+					throw new IOException("Invalid number of attributes " + numAttributes);
+				EnumAttribute<?>[] attributes = new EnumAttribute<?>[numAttributes];
+				int[][][] tables = new int[attributes.length][][];
+				for (int i = 0; i < attributes.length; i++) {
+					attributes[i] = attribute(in.readInt());
+					tables[i] = new int[attributes[i].numValues()][classAttribute.numValues()];
+				}
+				examples.countTables(node, attributes, tables);
+				for (int[][] table : tables) {
+					for (int[] counts : table) {
+						writeInts(out, counts);
+					}
+				}
+				break;
+			}
+			case ShardProtocol.SPLIT: {
+				int node = node(in.readInt(), numNodes);
+				EnumAttribute<?> attribute = attribute(in.readInt());
+				int firstChild = in.readInt();
+				if (firstChild <= node || firstChild > numNodes)
+					throw new IOException("Invalid first child " + firstChild + " of node " + node);
+				numNodes = Math.max(numNodes, firstChild + attribute.numValues());
+				int[] sizes = new int[attribute.numValues()];
+				int[][] classCounts = examples.partition(node, attribute, firstChild, sizes);
+				for (int v = 0; v < sizes.length; v++) {
+					out.writeInt(sizes[v]);
+					writeInts(out, classCounts[v]);
+				}
+				break;
+			}
+			case ShardProtocol.TEST: {
+				correct = new long[(shard.numInstances()+63)/64];
+				out.writeInt(test(new TreeSerializer(schema, classAttribute).read(in), classAttribute, sample, correct));
+				double correctWeight = 0.0;
+				for (int r = 0; weights != null && r < weights.length; r++) {
+					if ((correct[r >>> 6] & (1L << r)) != 0) {
+						correctWeight += weights[r];
+					}
+				}
+				out.writeDouble(correctWeight);
+				break;
+			}
+			case ShardProtocol.WEIGHTS: {
+				int numRows = in.readInt();
+				if (numRows < shard.numInstances())
+					throw new IOException("Invalid number of rows " + numRows);
+				weights = new float[shard.numInstances()];
+				Arrays.fill(weights, 1.0f/numRows);
+				out.writeDouble(sum(weights));
+				break;
+			}
+			case ShardProtocol.REWEIGHT: {
+				float factor = in.readFloat(), scale = in.readFloat();
+				if (weights == null)
+					throw new IOException("Cannot reweight without weights");
+				for (int r = 0; r < weights.length; r++) {
+					weights[r] *= (correct[r >>> 6] & (1L << r)) != 0? factor*scale : scale;
+				}
+				out.writeDouble(sum(weights));
+				break;
+			}
+			case ShardProtocol.CLOSE:
+				return;
+			default:
+				throw new IOException("Invalid command " + command);
+			}
+			out.flush();
+		}
+	}
+
+	/**
+	 * @return The attribute of a column sent by the coordinator.
+	 * @throws IOException If there is no such column.
+	 */
+	private EnumAttribute<?> attribute(int column) throws IOException {
+		if (column < 0 || column >= schema.length)
+			throw new IOException("Invalid column " + column);
+		return schema[column];
+	}
+
+	/**
+	 * @return A node sent by the coordinator.
+	 * @throws IOException If the tree has no such node.
+	 */
+	private static int node(int node, int numNodes) throws IOException {
+		if (node < 0 || node >= numNodes)
+			throw new IOException("Invalid node " + node);
+		return node;
+	}
+
+	private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+		for (int value : values) {
+			out.writeInt(value);
+		}
+	}
+
+	private static double sum(float[] weights) {
+		double sum = 0.0;
+		for (float w : weights) {
+			sum += w;
+		}
+		return sum;
+	}
+
+	/**
+	 * Classifies all rows of the shard with a tree.
+	 * @param correct The bits to set for the correctly classified rows of the shard (one per row).
+	 * @return The number of misclassified rows of the sample (counted with multiplicity).
+	 */
+	private int test(Node root, EnumAttribute<?> classAttribute, int[] sample, long[] correct) {
+		CompiledForest tree = new TreeCompiler(schema, classAttribute).add(root).toForest();
+		int classColumn = shard.indexOf(classAttribute);
+		int n = shard.numInstances();
+		int[] row = new int[schema.length];
+		for (int i = 0; i < n; i++) {
+			for (int c = 0; c < row.length; c++) {
+				row[c] = shard.ordinalAt(i, c);
+			}
+			int actual = row[classColumn];
+			if (actual >= 0 && tree.classifyTree(0, row) == actual) {
+				correct[i >>> 6] |= 1L << i;
+			}
+		}
+		int misclassified = 0;
+		int size = sample != null? sample.length : n;
+		for (int i = 0; i < size; i++) {
+			int r = sample != null? sample[i] : i;
+			if ((correct[r >>> 6] & (1L << r)) == 0) {
+				misclassified++;
+			}
+		}
+		return misclassified;
+	}
+
+	/**
+	 * Stops accepting coordinators.
+	 */
+	@Override
+	public void close() throws IOException {
+		server.close();
+	}
+
+}
@@ -0,0 +1,49 @@
+package uni.ml.learning;
+
+import java.util.Set;
+
+import uni.ml.dataset.EnumAttribute;
+
+/**
+ * The example set of a decision tree while it is built by {@link DecisionTreeModel}.
+ * The examples are addressed by node: node 0 holds all examples, and partitioning a node by an attribute
+ * moves the examples with value ordinal v to the node firstChild+v (examples with a missing value are dropped).
+ * Implemented for examples in memory ({@link EncodedExamples}) and for examples sharded over worker processes ({@link TrainingCoordinator}).
+ */
+interface TreeExamples {
+
+	/**
+	 * @return The classification/target attribute.
+	 */
+	EnumAttribute<?> classAttribute();
+
+	/**
+	 * @return The candidate attributes to split on (all attributes except the class attribute).
+	 */
+	Set<EnumAttribute<?>> attributes();
+
+	/**
+	 * @return The number of examples (of node 0).
+	 */
+	int size();
+
+	/**
+	 * @return The number of examples per class value (of node 0).
+	 */
+	int[] classCounts();
+
+	/**
+	 * Counts the examples of a node per value and class value of each attribute.
+	 * @param tables Receives the counts of each attribute, indexed by value ordinal and class value ordinal (initially zero).
+	 */
+	void countTables(int node, EnumAttribute<?>[] attributes, int[][][] tables);
+
+	/**
+	 * Partitions the examples of a node by their value of an attribute.
+	 * @param firstChild The node of the examples with the first value, the following values get consecutive nodes.
+	 * @param sizes Receives the number of examples of each child.
+	 * @return The number of examples per class value of each child.
+	 */
+	int[][] partition(int node, EnumAttribute<?> attribute, int firstChild, int[] sizes);
+
+}
@@ -0,0 +1,158 @@
+package uni.ml.serving;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import lombok.NonNull;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.io.TextRowReader;
+import uni.ml.tree.CompiledForest;
+
+/**
+ * Classifies a file of instances with a compiled forest in constant memory, writing one predicted class value per line.
+ * The calling thread reads batches of lines and writes the predictions,
+ * while a pool of worker threads encodes and classifies the batches.
+ * At most two batches per worker are in progress and their buffers are reused,
+ * the predictions are written in the order of the input.
+ * <p>
+ * Usage: <code>new BatchScorer(forest).batchSize(4096).threads(4).score(input, output)</code>
+ */
+public class BatchScorer {
+
+	private final CompiledForest forest;
+	private final String[] classValues;
+
+	private int batchSize = 4096;
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	public BatchScorer(@NonNull CompiledForest forest) {
+		this.forest = forest;
+		EnumAttribute<?> classAttribute = forest.classAttribute();
+		classValues = new String[classAttribute.numValues()];
+		for (int v = 0; v < classValues.length; v++) {
+			classValues[v] = classAttribute.valueAt(v).value().toString();
+		}
+	}
+
+	/**
+	 * Sets the number of instances classified by a worker at once.
+	 * @throws IllegalArgumentException If the batch size is not positive.
+	 */
+	public BatchScorer batchSize(int batchSize) {
+		if (batchSize < 1)
+			throw new IllegalArgumentException("batchSize must be positive");
+		this.batchSize = batchSize;
+		return this;
+	}
+
+	/**
+	 * Sets the number of worker threads.
+	 * @throws IllegalArgumentException If the number of threads is not positive.
+	 */
+	public BatchScorer threads(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("threads must be positive");
+		this.threads = threads;
+		return this;
+	}
+
+	private class Batch {
+		final String[] lines = new String[batchSize];
+		final int[][] rows = new int[batchSize][forest.numColumns()];
+		final int[] predictions = new int[batchSize];
+		int size;
+		Future<?> result;
+
+		void classify(TextRowReader in) {
+			for (int i = 0; i < size; i++) {
+				in.encode(lines[i], rows[i]);
+				lines[i] = null;
+			}
+			forest.classify(rows, 0, size, predictions);
+		}
+	}
+
+	/**
+	 * Classifies an ARFF or CSV file (see {@link TextRowReader}).
+	 * @return The number of classified instances.
+	 */
+	public long score(File input, File output) throws IOException {
+		try (TextRowReader in = new TextRowReader(input, schema());
+			 Writer out = new BufferedWriter(new FileWriter(output), 1 << 16)) {
+			return score(in, out);
+		}
+	}
+
+	/**
+	 * Classifies all remaining rows of a reader. The reader must use the schema of the forest ({@link #schema()}).
+	 * @param out The writer to write the predicted class values to (not closed).
+	 * @return The number of classified instances.
+	 */
+	public long score(TextRowReader in, Writer out) throws IOException {
+		int maxPending = 2*threads;
+		ArrayDeque<Batch> pending = new ArrayDeque<>(), free = new ArrayDeque<>();
+		ExecutorService workers = Executors.newFixedThreadPool(threads);
+		long n = 0;
+		try {
+			while (true) {
+				Batch batch = free.isEmpty()? new Batch() : free.poll();
+				batch.size = 0;
+				String line;
+				while (batch.size < batchSize && (line = in.readLine()) != null) {
+					batch.lines[batch.size++] = line;
+				}
+				if (batch.size == 0)
+					break;
+				batch.result = workers.submit(() -> batch.classify(in));
+				pending.add(batch);
+				if (pending.size() >= maxPending) {
+					n += write(pending.peek(), out);
+					free.add(pending.poll());
+				}
+			}
+			while (!pending.isEmpty()) {
+				n += write(pending.poll(), out);
+			}
+			out.flush();
+			return n;
+		} finally {
+			workers.shutdownNow();
+		}
+	}
+
+	private int write(Batch batch, Writer out) throws IOException {
+		try {
+			batch.result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause());
+		}
+		for (int i = 0; i < batch.size; i++) {
+			out.write(classValues[batch.predictions[i]]);
+			out.write('\n');
+		}
+		return batch.size;
+	}
+
+	/**
+	 * @return The attributes of the forest to read the input with.
+	 */
+	public EnumAttribute<?>[] schema() {
+		EnumAttribute<?>[] schema = new EnumAttribute<?>[forest.numColumns()];
+		for (int c = 0; c < schema.length; c++) {
+			schema[c] = forest.attributeAt(c);
+		}
+		return schema;
+	}
+
+}
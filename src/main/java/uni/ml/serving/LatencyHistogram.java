@@ -0,0 +1,97 @@
+package uni.ml.serving;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of latencies in nanoseconds with logarithmic buckets (8 per power of two),
+ * so percentiles are reported with a relative error of at most 12.5% in constant memory.
+ * Recording is safe from any number of threads.
+ */
+public class LatencyHistogram {
+	
+	private static final int SUB_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	private static final int LINEAR = 2*SUB_BUCKETS; // values below are counted exactly
+	private static final int NUM_BUCKETS = LINEAR + (63-SUB_BITS-1)*SUB_BUCKETS;
+	
+	private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	
+	private static int bucket(long nanos) {
+		if (nanos < LINEAR)
+			return (int) Math.max(nanos, 0);
+		int magnitude = 63 - Long.numberOfLeadingZeros(nanos); // >= SUB_BITS+1
+		int sub = (int) (nanos >>> (magnitude-SUB_BITS)) & (SUB_BUCKETS-1);
+		return LINEAR + (magnitude-SUB_BITS-1)*SUB_BUCKETS + sub;
+	}
+	
+	/**
+	 * @return The largest value counted by a bucket.
+	 */
+	private static long upperBound(int bucket) {
+		if (bucket < LINEAR)
+			return bucket;
+		int magnitude = (bucket-LINEAR)/SUB_BUCKETS + SUB_BITS + 1;
+		int sub = (bucket-LINEAR) % SUB_BUCKETS;
+		return ((long) (SUB_BUCKETS+sub+1) << (magnitude-SUB_BITS)) - 1;
+	}
+	
+	public void record(long nanos) {
+		buckets.incrementAndGet(bucket(nanos));
+		count.increment();
+		sum.add(nanos);
+	}
+	
+	public long count() {
+		return count.sum();
+	}
+	
+	/**
+	 * @return The mean latency in nanoseconds or 0 if nothing was recorded.
+	 */
+	public double mean() {
+		long n = count.sum();
+		return n == 0? 0.0 : (double) sum.sum()/n;
+	}
+	
+	/**
+	 * @param p The percentile between 0 and 100, e.g. 99.
+	 * @return The latency in nanoseconds (upper bound of its bucket) not exceeded by p percent of the recorded latencies,
+	 * 0 if nothing was recorded.
+	 */
+	public long percentile(double p) {
+		long[] counts = new long[NUM_BUCKETS];
+		long total = 0;
+		for (int b = 0; b < NUM_BUCKETS; b++) {
+			counts[b] = buckets.get(b);
+			total += counts[b];
+		}
+		if (total == 0)
+			return 0;
+		long rank = Math.max(1, (long) Math.ceil(p/100.0*total));
+		long cumulative = 0;
+		for (int b = 0; b < NUM_BUCKETS; b++) {
+			cumulative += counts[b];
+			if (cumulative >= rank)
+				return upperBound(b);
+		}
+		return upperBound(NUM_BUCKETS-1);
+	}
+	
+	public void reset() {
+		for (int b = 0; b < NUM_BUCKETS; b++) {
+			buckets.set(b, 0);
+		}
+		count.reset();
+		sum.reset();
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("count %d, mean %.1f us, p50 %.1f us, p99 %.1f us, p99.9 %.1f us", 
+				count(), mean()/1e3, percentile(50)/1e3, percentile(99)/1e3, percentile(99.9)/1e3);
+	}
+
+}
@@ -0,0 +1,183 @@
+package uni.ml.serving;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import uni.ml.tree.CompiledForest;
+
+/**
+ * Groups concurrently submitted classification requests into micro-batches for the batch path of a compiled forest.
+ * A batch is dispatched as soon as it contains at least batchSize rows or maxWait has passed since its first request arrived, 
+ * so a single request waits at most maxWait before it is classified.
+ * Batches are collected by one dispatcher thread and classified on the worker executor.
+ */
+public class MicroBatcher implements Closeable {
+	
+	private static class Request {
+		final int[][] rows;
+		final CompletableFuture<int[]> result = new CompletableFuture<>();
+		
+		Request(int[][] rows) {
+			this.rows = rows;
+		}
+	}
+	
+	private static final Request SHUTDOWN = new Request(new int[0][]);
+	
+	private final CompiledForest forest;
+	private final int batchSize;
+	private final long maxWaitNanos;
+	private final Executor workers;
+	private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+	private final Thread dispatcher;
+	private boolean closed; // guarded by queue
+	
+	private final LongAdder batches = new LongAdder();
+	private final LongAdder rows = new LongAdder();
+	
+	/**
+	 * @param forest The forest to classify with, it is shared by all batches.
+	 * @param batchSize The number of rows after which a batch is dispatched without waiting.
+	 * @param maxWait The maximum time to wait for more requests after the first request of a batch.
+	 * @param workers The executor classifying the batches.
+	 */
+	public MicroBatcher(CompiledForest forest, int batchSize, long maxWait, TimeUnit unit, Executor workers) {
+		if (batchSize < 1)
+			throw new IllegalArgumentException("batchSize must be positive");
+		if (maxWait < 0)
+			throw new IllegalArgumentException("maxWait must not be negative");
+		this.forest = forest;
+		this.batchSize = batchSize;
+		this.maxWaitNanos = unit.toNanos(maxWait);
+		this.workers = workers;
+		this.dispatcher = new Thread(this::dispatch, "micro-batcher");
+		dispatcher.setDaemon(true);
+		dispatcher.start();
+	}
+	
+	/**
+	 * Submits encoded instances for classification.
+	 * @return The predicted class ordinal of each row, completed when its batch has been classified.
+	 */
+	public CompletableFuture<int[]> submit(int[][] rows) {
+		Request request = new Request(rows);
+		synchronized (queue) {
+			if (closed) {
+				request.result.completeExceptionally(new RejectedExecutionException("The batcher is closed"));
+			} else {
+				queue.add(request);
+			}
+		}
+		return request.result;
+	}
+	
+	private void dispatch() {
+		List<Request> batch = new ArrayList<>();
+		try {
+			while (true) {
+				Request first = queue.take();
+				if (first == SHUTDOWN)
+					return;
+				batch.add(first);
+				int size = first.rows.length;
+				long deadline = System.nanoTime() + maxWaitNanos;
+				while (size < batchSize) {
+					Request next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+					if (next == null)
+						break;
+					if (next == SHUTDOWN) {
+						queue.add(SHUTDOWN); // handle after this batch
+						break;
+					}
+					batch.add(next);
+					size += next.rows.length;
+				}
+				Request[] requests = batch.toArray(new Request[batch.size()]);
+				batch.clear();
+				int numRows = size;
+				try {
+					workers.execute(() -> classify(requests, numRows));
+				} catch (RejectedExecutionException e) {
+					for (Request request : requests) {
+						request.result.completeExceptionally(e);
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			// fail the remaining requests
+			batch.addAll(queue);
+			for (Request request : batch) {
+				request.result.completeExceptionally(new RejectedExecutionException("The batcher is closed"));
+			}
+		}
+	}
+	
+	private void classify(Request[] requests, int numRows) {
+		try {
+			int[][] rows = new int[numRows][];
+			int n = 0;
+			for (Request request : requests) {
+				System.arraycopy(request.rows, 0, rows, n, request.rows.length);
+				n += request.rows.length;
+			}
+			int[] predictions = new int[numRows];
+			forest.classify(rows, 0, numRows, predictions);
+			batches.increment();
+			this.rows.add(numRows);
+			n = 0;
+			for (Request request : requests) {
+				int[] result = new int[request.rows.length];
+				System.arraycopy(predictions, n, result, 0, result.length);
+				n += result.length;
+				request.result.complete(result);
+			}
+		} catch (RuntimeException e) {
+			for (Request request : requests) {
+				request.result.completeExceptionally(e);
+			}
+		}
+	}
+	
+	/**
+	 * @return The number of batches classified so far.
+	 */
+	public long numBatches() {
+		return batches.sum();
+	}
+	
+	/**
+	 * @return The number of rows classified so far.
+	 */
+	public long numRows() {
+		return rows.sum();
+	}
+	
+	/**
+	 * Stops accepting requests. Requests already submitted are still classified, if the worker executor accepts them.
+	 */
+	@Override
+	public void close() {
+		synchronized (queue) {
+			if (closed)
+				return;
+			closed = true;
+			queue.add(SHUTDOWN);
+		}
+		try {
+			dispatcher.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
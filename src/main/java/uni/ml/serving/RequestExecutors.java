@@ -0,0 +1,61 @@
+package uni.ml.serving;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the executors handling scoring requests.
+ * Since the application is built for Java 8, virtual threads (Java 21+) are created by reflection if the running JVM supports them.
+ * With virtual threads, each request gets its own thread and a request blocked on slow I/O or on its micro-batch 
+ * does not hold a platform thread, so the number of requests in progress is not limited by a thread pool.
+ */
+public final class RequestExecutors {
+	
+	private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = lookup();
+	
+	private RequestExecutors() {
+	}
+	
+	private static Method lookup() {
+		try {
+			return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * @return True if the running JVM supports virtual threads.
+	 */
+	public static boolean virtualThreadsAvailable() {
+		return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+	}
+	
+	/**
+	 * @return An executor starting a new virtual thread for each task.
+	 * @throws UnsupportedOperationException If the running JVM does not support virtual threads.
+	 */
+	public static ExecutorService virtualThreadPerTask() {
+		if (NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR == null)
+			throw new UnsupportedOperationException("Virtual threads require Java 21 or later");
+		try {
+			return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+		} catch (IllegalAccessException | InvocationTargetException e) {
+			throw new UnsupportedOperationException("Virtual threads are not available", e);
+		}
+	}
+	
+	/**
+	 * @param virtualThreads Whether to use virtual threads if available.
+	 * @param poolSize The number of threads of the bounded pool used otherwise.
+	 * @return An executor with a virtual thread per task or a fixed pool of platform threads.
+	 */
+	public static ExecutorService create(boolean virtualThreads, int poolSize) {
+		if (virtualThreads && virtualThreadsAvailable())
+			return virtualThreadPerTask();
+		return Executors.newFixedThreadPool(Math.max(1, poolSize));
+	}
+
+}
@@ -0,0 +1,277 @@
+package uni.ml.serving;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.tree.CompiledForest;
+
+/**
+ * An embedded HTTP server classifying instances with a compiled forest.
+ * Concurrent requests are grouped into micro-batches ({@link MicroBatcher}).
+ * <ul>
+ * <li><code>POST /classify</code>: The body contains one instance per line, given by its comma-separated attribute values
+ * in the order of the schema of the forest ("?" for a missing value, trailing attributes such as the class may be omitted).
+ * The response contains the predicted class value of each instance, one per line.</li>
+ * <li><code>GET /metrics</code>: The number of requests, instances and batches and the request latency percentiles.</li>
+ * </ul>
+ * <p>
+ * The forest is immutable and shared by all requests, which keep no thread-local state, 
+ * so requests can be handled on virtual threads (see {@link #virtualThreads}).
+ * <p>
+ * Small responses are delayed by Nagle's algorithm unless the JDK HTTP server runs with <code>-Dsun.net.httpserver.nodelay=true</code>,
+ * see {@link #enableTcpNoDelay()}.
+ * <p>
+ * Usage: <code>new ScoringServer(forest).port(8080).batchSize(64).maxWaitMicros(500).start()</code>
+ */
+@Accessors(fluent=true)
+public class ScoringServer implements AutoCloseable {
+	
+	private static final int BAD_REQUEST = 400;
+	private static final int METHOD_NOT_ALLOWED = 405;
+	private static final int OK = 200;
+	private static final int INTERNAL_SERVER_ERROR = 500;
+	private static final int SERVICE_UNAVAILABLE = 503;
+	
+	private final CompiledForest forest;
+	private final List<Map<String, Integer>> dictionaries;
+	private final String[] classValues;
+	
+	@Setter
+	private String host = "localhost";
+	/**
+	 * The port to listen on, 0 for an arbitrary free port.
+	 */
+	@Setter
+	private int port = 8080;
+	/**
+	 * The number of instances after which a batch is classified without waiting for more requests.
+	 */
+	@Setter
+	private int batchSize = 64;
+	/**
+	 * The maximum time a request waits for other requests to join its batch.
+	 */
+	@Setter
+	private long maxWaitMicros = 500;
+	/**
+	 * The number of platform threads handling HTTP requests, if virtual threads are not used. 
+	 * Each thread handles one request at a time (including reading its body from a slow client),
+	 * so this limits the number of requests in progress.
+	 */
+	@Setter
+	private int requestThreads = 64;
+	/**
+	 * Whether to handle each request on its own virtual thread, if the JVM supports them (Java 21+).
+	 * Otherwise the requests are handled by a pool of {@link #requestThreads} platform threads.
+	 * Note that before Java 24, a virtual thread reading a request body from a slow client is pinned to its carrier thread,
+	 * since the body stream of the JDK HTTP server is synchronized.
+	 */
+	@Setter
+	private boolean virtualThreads;
+	/**
+	 * The number of threads classifying batches.
+	 */
+	@Setter
+	private int classificationThreads = Runtime.getRuntime().availableProcessors();
+	
+	@Getter
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private HttpServer server;
+	private ExecutorService requestExecutor, classificationExecutor;
+	@Getter
+	private MicroBatcher batcher;
+	
+	public ScoringServer(@NonNull CompiledForest forest) {
+		this.forest = forest;
+		dictionaries = new ArrayList<>(forest.numColumns());
+		for (int c = 0; c < forest.numColumns(); c++) {
+			EnumAttribute<?> attribute = forest.attributeAt(c);
+			Map<String, Integer> dictionary = new HashMap<>();
+			for (int v = 0; v < attribute.numValues(); v++) {
+				dictionary.put(attribute.valueAt(v).value().toString(), v);
+			}
+			dictionaries.add(dictionary);
+		}
+		EnumAttribute<?> classAttribute = forest.classAttribute();
+		classValues = new String[classAttribute.numValues()];
+		for (int v = 0; v < classValues.length; v++) {
+			classValues[v] = classAttribute.valueAt(v).value().toString();
+		}
+	}
+	
+	/**
+	 * Disables Nagle's algorithm for all JDK HTTP servers of the process by setting <code>sun.net.httpserver.nodelay</code>,
+	 * unless the property is already set (e.g. on the command line).
+	 * The JDK reads the property once, when the first HTTP server is created, so this has to be called before, 
+	 * typically at the start of main.
+	 */
+	public static void enableTcpNoDelay() {
+		if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+	}
+	
+	/**
+	 * Starts listening.
+	 */
+	public ScoringServer start() throws IOException {
+		if (server != null)
+			throw new IllegalStateException("The server has already been started");
+		classificationExecutor = Executors.newFixedThreadPool(Math.max(1, classificationThreads));
+		batcher = new MicroBatcher(forest, batchSize, maxWaitMicros, TimeUnit.MICROSECONDS, classificationExecutor);
+		requestExecutor = RequestExecutors.create(virtualThreads, requestThreads);
+		server = HttpServer.create(new InetSocketAddress(host, port), 0);
+		server.setExecutor(requestExecutor);
+		server.createContext("/classify", this::classify);
+		server.createContext("/metrics", this::metrics);
+		server.start();
+		return this;
+	}
+	
+	/**
+	 * @return True if the requests are handled on virtual threads.
+	 */
+	public boolean usesVirtualThreads() {
+		return virtualThreads && RequestExecutors.virtualThreadsAvailable();
+	}
+	
+	/**
+	 * @return The port the server listens on.
+	 */
+	public int boundPort() {
+		return server.getAddress().getPort();
+	}
+	
+	/**
+	 * Encodes a line of comma-separated attribute values.
+	 * @throws IllegalArgumentException If the line contains more values than the schema has attributes.
+	 */
+	int[] encode(String line) {
+		int[] row = new int[dictionaries.size()];
+		int column = 0, start = 0;
+		while (start <= line.length()) {
+			int end = line.indexOf(',', start);
+			if (end < 0) {
+				end = line.length();
+			}
+			if (column >= row.length)
+				throw new IllegalArgumentException("Expected at most " + row.length + " values: " + line);
+			Integer ordinal = dictionaries.get(column).get(line.substring(start, end).trim());
+			row[column++] = ordinal != null? ordinal : -1;
+			start = end+1;
+		}
+		for (; column < row.length; column++) {
+			row[column] = -1;
+		}
+		return row;
+	}
+	
+	private void classify(HttpExchange exchange) throws IOException {
+		long start = System.nanoTime();
+		try {
+			if (!"POST".equals(exchange.getRequestMethod())) {
+				respond(exchange, METHOD_NOT_ALLOWED, "Use POST\n");
+				return;
+			}
+			List<int[]> rows = new ArrayList<>();
+			try {
+				for (String line : new String(readAll(exchange.getRequestBody()), StandardCharsets.UTF_8).split("\n")) {
+					if (!line.trim().isEmpty()) {
+						rows.add(encode(line));
+					}
+				}
+			} catch (IllegalArgumentException e) {
+				respond(exchange, BAD_REQUEST, e.getMessage() + "\n");
+				return;
+			}
+			
+			int[] predictions;
+			try {
+				predictions = batcher.submit(rows.toArray(new int[rows.size()][])).get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				respond(exchange, INTERNAL_SERVER_ERROR, "The request was interrupted\n");
+				return;
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RejectedExecutionException) {
+					respond(exchange, SERVICE_UNAVAILABLE, e.getCause().getMessage() + "\n");
+				} else {
+					respond(exchange, INTERNAL_SERVER_ERROR, "Classification failed: " + e.getCause() + "\n");
+				}
+				return;
+			}
+			StringBuilder b = new StringBuilder(predictions.length*8);
+			for (int prediction : predictions) {
+				b.append(classValues[prediction]).append('\n');
+			}
+			respond(exchange, OK, b.toString());
+			latency.record(System.nanoTime()-start);
+		} finally {
+			exchange.close();
+		}
+	}
+	
+	private void metrics(HttpExchange exchange) throws IOException {
+		try {
+			respond(exchange, OK, "requests " + latency.count() + "\ninstances " + batcher.numRows() + "\nbatches " + batcher.numBatches() 
+					+ "\nlatency " + latency + "\n");
+		} finally {
+			exchange.close();
+		}
+	}
+	
+	private static byte[] readAll(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int n;
+		while ((n = in.read(buffer)) > 0) {
+			out.write(buffer, 0, n);
+		}
+		return out.toByteArray();
+	}
+	
+	private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+	
+	/**
+	 * Stops the server. Requests in progress are given up to one second to complete.
+	 */
+	@Override
+	public void close() {
+		if (server == null)
+			return;
+		server.stop(1);
+		batcher.close();
+		requestExecutor.shutdown();
+		classificationExecutor.shutdown();
+		server = null;
+	}
+
+}
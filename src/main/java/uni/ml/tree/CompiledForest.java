@@ -0,0 +1,282 @@
+package uni.ml.tree;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+import uni.ml.dataset.DatasetView;
+import uni.ml.dataset.EnumAttribute;
+import uni.ml.dataset.Instance;
+import uni.ml.dataset.Value;
+import uni.ml.jfr.BatchClassificationEvent;
+import uni.ml.jfr.Events;
+
+/**
+ * An immutable, flattened representation of one or more decision trees with weighted majority voting.
+ * Instances are encoded once into an array of value ordinals (one per schema column), 
+ * so classification only needs array lookups instead of hashing attributes and values at every node.
+ * Instances of this class can be shared between threads.
+ * <p>
+ * A forest can be saved to a compact binary file, which is loaded by memory-mapping the node array,
+ * so several processes scoring with the same model share its pages.
+ * @see TreeCompiler
+ * @see ForestFile
+ */
+public class CompiledForest implements Classifier {
+	
+	private final EnumAttribute<?>[] schema;
+	private final EnumAttribute<?> classAttribute;
+	private final IntBuffer nodes;
+	private final int[] roots;
+	private final float[] weights;
+	private final float[] errors;
+	
+	/**
+	 * @param nodes The flattened trees, only read with absolute indices (e.g. a heap buffer or a mapped file region).
+	 * @param errors The training error of each tree, NaN if unknown.
+	 */
+	CompiledForest(EnumAttribute<?>[] schema, EnumAttribute<?> classAttribute, IntBuffer nodes, int[] roots, float[] weights, float[] errors) {
+		this.schema = schema;
+		this.classAttribute = classAttribute;
+		this.nodes = nodes;
+		this.roots = roots;
+		this.weights = weights;
+		this.errors = errors;
+	}
+	
+	/**
+	 * Loads a forest from a file written by {@link #save(File)}. The node array is memory-mapped, not copied.
+	 * The schema and class attribute are recreated from the dictionaries of the file, 
+	 * they are equal to attributes of the same name, so instances of any dataset with these attributes can be classified.
+	 * Values are matched by value, not by ordinal, so the datasets may order the values of an attribute differently
+	 * (see {@link #ordinalMapping(EnumAttribute, EnumAttribute)}).
+	 * @throws IOException If the file is not a forest file or is corrupt.
+	 */
+	public static CompiledForest load(File file) throws IOException {
+		return ForestFile.map(file);
+	}
+	
+	/**
+	 * Saves this forest to a compact binary file.
+	 */
+	public void save(File file) throws IOException {
+		ForestFile.write(this, file);
+	}
+	
+	public int numTrees() {
+		return roots.length;
+	}
+	
+	public int numColumns() {
+		return schema.length;
+	}
+	
+	public EnumAttribute<?> classAttribute() {
+		return classAttribute;
+	}
+	
+	/**
+	 * @return The attribute of the specified schema column.
+	 */
+	public EnumAttribute<?> attributeAt(int column) {
+		return schema[column];
+	}
+	
+	/**
+	 * @return The number of entries of the flattened node array.
+	 */
+	public int numNodes() {
+		return nodes.limit();
+	}
+	
+	/**
+	 * @return The voting weight of the specified tree.
+	 */
+	public float weight(int tree) {
+		return weights[tree];
+	}
+	
+	/**
+	 * @return The training error of the specified tree or NaN if unknown.
+	 */
+	public float error(int tree) {
+		return errors[tree];
+	}
+	
+	/**
+	 * @return The offset of the root node of the specified tree within the node array, -1 if the tree has no root.
+	 */
+	int root(int tree) {
+		return roots[tree];
+	}
+	
+	IntBuffer nodes() {
+		return nodes;
+	}
+	
+	/**
+	 * Encodes an instance into an array of value ordinals, one per schema column.
+	 * Missing or unknown values are encoded as -1.
+	 * @param row The array to store the ordinals in (length must be at least numColumns()).
+	 * @return The row array.
+	 */
+	public int[] encode(Instance instance, int[] row) {
+		for (int c = 0; c < schema.length; c++) {
+			row[c] = schema[c].indexOf(instance.value(schema[c]));
+		}
+		return row;
+	}
+	
+	public int[] encode(Instance instance) {
+		return encode(instance, new int[schema.length]);
+	}
+	
+	/**
+	 * Classifies an encoded instance with a single tree of this forest.
+	 * @return The predicted class ordinal or -1 if the instance reaches an unknown value.
+	 */
+	public int classifyTree(int tree, int[] row) {
+		int p = roots[tree];
+		int column;
+		while (p >= 0 && (column = nodes.get(p)) >= 0) {
+			int ordinal = row[column];
+			if (ordinal < 0)
+				return -1;
+			p = nodes.get(p+1+ordinal);
+		}
+		return p < 0? -1 : ~nodes.get(p);
+	}
+	
+	/**
+	 * Accumulates the weighted votes of all trees for an encoded instance.
+	 * @param scores The array to add the votes to (length must be at least the number of class values).
+	 */
+	public void vote(int[] row, float[] scores) {
+		for (int t = 0; t < roots.length; t++) {
+			int c = classifyTree(t, row);
+			if (c >= 0) {
+				scores[c] += weights[t];
+			}
+		}
+	}
+	
+	/**
+	 * @return The index of the maximum score (the first one on ties).
+	 */
+	public static int argmax(float[] scores) {
+		int max = 0;
+		for (int c = 1; c < scores.length; c++) {
+			if (scores[c] > scores[max]) {
+				max = c;
+			}
+		}
+		return max;
+	}
+	
+	/**
+	 * Classifies an encoded instance by weighted majority vote.
+	 * @return The predicted class ordinal.
+	 */
+	public int classify(int[] row) {
+		float[] scores = new float[classAttribute.numValues()];
+		vote(row, scores);
+		return argmax(scores);
+	}
+	
+	@Override
+	public Value<?> classify(Instance instance, EnumAttribute<?> classAttribute) {
+		return this.classAttribute.valueAt(classify(encode(instance)));
+	}
+	
+	/**
+	 * Maps the schema columns of this forest to the attributes (columns) of a dataset(-view).
+	 * Attributes are matched by name, use {@link #ordinalMapping(EnumAttribute, EnumAttribute)} to map their values.
+	 * @return The column index within the dataset(-view) for each schema column, -1 if the dataset does not contain the attribute.
+	 */
+	public int[] columnMapping(DatasetView dataset) {
+		int[] columns = new int[schema.length];
+		for (int c = 0; c < schema.length; c++) {
+			columns[c] = dataset.indexOf(schema[c]);
+		}
+		return columns;
+	}
+	
+	/**
+	 * Maps the value ordinals of an attribute to the ordinals of the equal values of another attribute,
+	 * e.g. of an attribute of a dataset to the attribute of the same name in the schema of this forest,
+	 * whose values may be in a different order (or be a different set).
+	 * @return The ordinal within target for each ordinal of source (-1 if target does not allow the value)
+	 * or null if the ordinals of both attributes are the same.
+	 */
+	public static int[] ordinalMapping(EnumAttribute<?> source, EnumAttribute<?> target) {
+		if (source == target)
+			return null;
+		int[] ordinals = new int[source.numValues()];
+		boolean identity = true;
+		for (int v = 0; v < ordinals.length; v++) {
+			ordinals[v] = target.indexOf(source.valueAt(v));
+			identity &= ordinals[v] == v;
+		}
+		return identity? null : ordinals;
+	}
+	
+	/**
+	 * Classifies the instances from (inclusive) to (exclusive) of a dataset(-view) at once.
+	 * The instances are read through their encoded values, i.e. the encoding of the dataset is used if present.
+	 * Value ordinals of dataset attributes whose dictionary differs from the schema are mapped to the schema ordinals.
+	 * @param predictions The array to store the predicted class ordinals in, starting at index 0.
+	 */
+	public void classify(DatasetView dataset, int from, int to, int[] predictions) {
+		BatchClassificationEvent event = Events.AVAILABLE? new BatchClassificationEvent() : null;
+		int[] columns = columnMapping(dataset);
+		int[][] ordinals = new int[schema.length][];
+		for (int c = 0; c < schema.length; c++) {
+			if (columns[c] >= 0) {
+				ordinals[c] = ordinalMapping(dataset.attributeAt(columns[c]), schema[c]);
+			}
+		}
+		int[] row = new int[schema.length];
+		float[] scores = new float[classAttribute.numValues()];
+		for (int i = from; i < to; i++) {
+			for (int c = 0; c < row.length; c++) {
+				int ordinal = columns[c] >= 0? dataset.ordinalAt(i, columns[c]) : -1;
+				row[c] = ordinal >= 0 && ordinals[c] != null? ordinals[c][ordinal] : ordinal;
+			}
+			Arrays.fill(scores, 0.0f);
+			vote(row, scores);
+			predictions[i-from] = argmax(scores);
+		}
+		if (event != null) {
+			event.end(to-from, roots.length);
+		}
+	}
+	
+	/**
+	 * Classifies the encoded instances rows[from] (inclusive) to rows[to] (exclusive) at once.
+	 * @param predictions The array to store the predicted class ordinals in, starting at index 0.
+	 */
+	public void classify(int[][] rows, int from, int to, int[] predictions) {
+		BatchClassificationEvent event = Events.AVAILABLE? new BatchClassificationEvent() : null;
+		float[] scores = new float[classAttribute.numValues()];
+		for (int i = from; i < to; i++) {
+			Arrays.fill(scores, 0.0f);
+			vote(rows[i], scores);
+			predictions[i-from] = argmax(scores);
+		}
+		if (event != null) {
+			event.end(to-from, roots.length);
+		}
+	}
+	
+	/**
+	 * Classifies all instances of a dataset(-view) at once.
+	 * @return The predicted class ordinal of each instance.
+	 */
+	public int[] classify(DatasetView dataset) {
+		int[] predictions = new int[dataset.numInstances()];
+		classify(dataset, 0, predictions.length, predictions);
+		return predictions;
+	}
+
+}
@@ -0,0 +1,259 @@
+package uni.ml.tree;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import uni.ml.dataset.EnumAttribute;
+
+/**
+ * The binary file format of a {@link CompiledForest}. All numbers are little-endian.
+ * <pre>
+ * int     magic
+ * int     version
+ * int     number of schema columns
+ * per column: 
+ *   string  attribute name
+ *   int     number of values
+ *   string  value (per value)
+ * int     class column within the schema or -1, then the class attribute follows like a column
+ * int     number of trees
+ * int     number of node array entries
+ * padding to a multiple of 4 bytes
+ * int     root offset (per tree)
+ * float   voting weight, e.g. alpha (per tree)
+ * float   training error or NaN (per tree)
+ * int     node array (see {@link TreeCompiler})
+ * </pre>
+ * Strings are stored as their UTF-8 byte length (int) followed by the bytes.
+ * The node array is memory-mapped on loading instead of being copied, so it does not occupy heap memory
+ * and processes loading the same file share its pages.
+ * Loading validates the nodes reachable from the roots in one pass over the node array,
+ * so it takes time linear in the number of nodes and faults in every page of the array once.
+ */
+final class ForestFile {
+	
+	private static final int MAGIC = 0x54524F46; // "FORT"
+	private static final int VERSION = 1;
+	
+	private ForestFile() {
+	}
+	
+	/**
+	 * Writes a forest to a temporary file and atomically renames it to the specified file,
+	 * so processes loading the file never see a partially written model.
+	 */
+	static void write(CompiledForest forest, File file) throws IOException {
+		ByteArrayOutputStream header = new ByteArrayOutputStream();
+		ByteBuffer scratch = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+		writeInt(header, scratch, MAGIC);
+		writeInt(header, scratch, VERSION);
+		writeInt(header, scratch, forest.numColumns());
+		int classColumn = -1;
+		for (int c = 0; c < forest.numColumns(); c++) {
+			EnumAttribute<?> attribute = forest.attributeAt(c);
+			writeAttribute(header, scratch, attribute);
+			if (attribute.equals(forest.classAttribute()) && classColumn < 0) {
+				classColumn = c;
+			}
+		}
+		writeInt(header, scratch, classColumn);
+		if (classColumn < 0) {
+			writeAttribute(header, scratch, forest.classAttribute());
+		}
+		writeInt(header, scratch, forest.numTrees());
+		writeInt(header, scratch, forest.numNodes());
+		while (header.size() % 4 != 0) {
+			header.write(0);
+		}
+		
+		int numTrees = forest.numTrees();
+		ByteBuffer body = ByteBuffer.allocate(4*(3*numTrees + forest.numNodes())).order(ByteOrder.LITTLE_ENDIAN);
+		for (int t = 0; t < numTrees; t++) {
+			body.putInt(forest.root(t));
+		}
+		for (int t = 0; t < numTrees; t++) {
+			body.putFloat(forest.weight(t));
+		}
+		for (int t = 0; t < numTrees; t++) {
+			body.putFloat(forest.error(t));
+		}
+		IntBuffer nodes = forest.nodes();
+		for (int i = 0; i < nodes.limit(); i++) {
+			body.putInt(nodes.get(i));
+		}
+		body.flip();
+		
+		File tmp = new File(file.getPath() + ".tmp");
+		try (FileChannel channel = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ByteBuffer head = ByteBuffer.wrap(header.toByteArray());
+			while (head.hasRemaining()) {
+				channel.write(head);
+			}
+			while (body.hasRemaining()) {
+				channel.write(body);
+			}
+			channel.force(false);
+		}
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+	
+	private static void writeInt(ByteArrayOutputStream out, ByteBuffer scratch, int value) {
+		scratch.clear();
+		scratch.putInt(value);
+		out.write(scratch.array(), 0, 4);
+	}
+	
+	private static void writeString(ByteArrayOutputStream out, ByteBuffer scratch, String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeInt(out, scratch, bytes.length);
+		out.write(bytes, 0, bytes.length);
+	}
+	
+	private static void writeAttribute(ByteArrayOutputStream out, ByteBuffer scratch, EnumAttribute<?> attribute) {
+		writeString(out, scratch, attribute.name());
+		writeInt(out, scratch, attribute.numValues());
+		for (int v = 0; v < attribute.numValues(); v++) {
+			writeString(out, scratch, attribute.valueAt(v).value().toString());
+		}
+	}
+	
+	/**
+	 * Maps a forest file into memory. Only the dictionaries, roots, weights and errors are copied to the heap.
+	 * The nodes reachable from the roots are validated, so a corrupt file fails to load instead of failing while scoring.
+	 */
+	static CompiledForest map(File file) throws IOException {
+		MappedByteBuffer mapped;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); // the mapping outlives the channel
+		}
+		ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+		try {
+			if (buffer.getInt() != MAGIC)
+				throw new IOException("Not a forest file: " + file);
+			int version = buffer.getInt();
+			if (version != VERSION)
+				throw new IOException("Unsupported forest file version " + version + ": " + file);
+			
+			int numColumns = nonNegative(buffer.getInt());
+			if (numColumns > buffer.remaining()/8)
+				throw new BufferUnderflowException();
+			EnumAttribute<?>[] schema = new EnumAttribute<?>[numColumns];
+			for (int c = 0; c < schema.length; c++) {
+				schema[c] = readAttribute(buffer);
+			}
+			int classColumn = buffer.getInt();
+			if (classColumn >= schema.length)
+				throw new IOException("Invalid class column " + classColumn);
+			EnumAttribute<?> classAttribute = classColumn >= 0? schema[classColumn] : readAttribute(buffer);
+			int numTrees = nonNegative(buffer.getInt());
+			int numNodes = nonNegative(buffer.getInt());
+			buffer.position((buffer.position()+3) & ~3);
+			if (buffer.remaining()/4 < 3L*numTrees + numNodes)
+				throw new IOException("Truncated forest file: " + file);
+			
+			int[] roots = new int[numTrees];
+			float[] weights = new float[numTrees];
+			float[] errors = new float[numTrees];
+			for (int t = 0; t < numTrees; t++) {
+				roots[t] = buffer.getInt();
+				if (roots[t] < -1 || roots[t] >= numNodes)
+					throw new IOException("Invalid root offset " + roots[t]);
+			}
+			for (int t = 0; t < numTrees; t++) {
+				weights[t] = buffer.getFloat();
+			}
+			for (int t = 0; t < numTrees; t++) {
+				errors[t] = buffer.getFloat();
+			}
+			IntBuffer nodes = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+			nodes.limit(numNodes);
+			nodes = nodes.slice();
+			validate(nodes, roots, schema, classAttribute);
+			return new CompiledForest(schema, classAttribute, nodes, roots, weights, errors);
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Truncated forest file: " + file, e);
+		}
+	}
+	
+	/**
+	 * Checks that the trees only reference columns of the schema, class values of the class attribute 
+	 * and nodes within the node array. Children are stored after their parent, which rules out cycles.
+	 */
+	private static void validate(IntBuffer nodes, int[] roots, EnumAttribute<?>[] schema, EnumAttribute<?> classAttribute) throws IOException {
+		int numNodes = nodes.limit();
+		BitSet visited = new BitSet(numNodes);
+		int[] stack = new int[16];
+		for (int root : roots) {
+			if (root < 0)
+				continue;
+			int size = 0;
+			stack[size++] = root;
+			while (size > 0) {
+				int p = stack[--size];
+				if (visited.get(p))
+					continue;
+				visited.set(p);
+				int column = nodes.get(p);
+				if (column < 0) {
+					if (~column >= classAttribute.numValues())
+						throw new IOException("Invalid class ordinal " + ~column + " at node " + p);
+					continue;
+				}
+				if (column >= schema.length)
+					throw new IOException("Invalid column " + column + " at node " + p);
+				int numValues = schema[column].numValues();
+				if (numValues >= numNodes - p)
+					throw new IOException("Node " + p + " exceeds the node array");
+				for (int v = 0; v < numValues; v++) {
+					int child = nodes.get(p+1+v);
+					if (child == -1)
+						continue;
+					if (child <= p || child >= numNodes)
+						throw new IOException("Invalid child offset " + child + " at node " + p);
+					if (size == stack.length) {
+						stack = Arrays.copyOf(stack, 2*size);
+					}
+					stack[size++] = child;
+				}
+			}
+		}
+	}
+	
+	private static int nonNegative(int n) throws IOException {
+		if (n < 0)
+			throw new IOException("Invalid count " + n);
+		return n;
+	}
+	
+	private static String readString(ByteBuffer buffer) throws IOException {
+		int length = nonNegative(buffer.getInt());
+		if (length > buffer.remaining())
+			throw new BufferUnderflowException();
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	private static EnumAttribute<String> readAttribute(ByteBuffer buffer) throws IOException {
+		String name = readString(buffer);
+		String[] values = new String[nonNegative(buffer.getInt())];
+		for (int v = 0; v < values.length; v++) {
+			values[v] = readString(buffer);
+		}
+		return new EnumAttribute<>(name, values);
+	}
+
+}
@@ -23,11 +23,17 @@ import uni.ml.dataset.Value;
  */
 @RequiredArgsConstructor
 @Accessors(fluent=true)
-@ToString(includeFieldNames=false, exclude={"children"})
+@ToString(includeFieldNames=false, exclude={"children", "mostCommonValue"})
 public class InnerNode extends Node implements Iterable<Node> {
 	@Getter @Setter
 	private EnumAttribute<?> decisionAttribute;
 	private Map<Value<?>, Node> children = new HashMap<>();
+	/**
+	 * The most common class value of the training instances reaching this node, 
+	 * i.e. the value of a leaf replacing this node. May be null if unknown.
+	 */
+	@Getter @Setter
+	private Value<?> mostCommonValue;
 	
 	/**
 	 * Adds a new child to the node.
@@ -0,0 +1,131 @@
+package uni.ml.tree;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import uni.ml.dataset.Attribute;
+import uni.ml.dataset.EnumAttribute;
+
+/**
+ * Flattens decision trees into the integer node array of a {@link CompiledForest}.
+ * An inner node is stored as its decision column followed by one child offset per allowed value (ordinal),
+ * a leaf is stored as the bitwise complement of its class ordinal.
+ * Missing children and unknown class values are stored as offset -1.
+ */
+public class TreeCompiler implements NodeVisitor {
+
+	private EnumAttribute<?>[] schema;
+	private EnumAttribute<?> classAttribute;
+	private Map<Attribute<?>, Integer> columns = new HashMap<>();
+	private List<Integer> roots = new ArrayList<>();
+	private int[] nodes = new int[64];
+	private int size;
+	private int offset; // offset of the last compiled (sub-)tree
+	
+	/**
+	 * @param schema The attributes (columns) of the encoded instances the trees are evaluated on.
+	 * @param classAttribute The classification/target attribute.
+	 */
+	public TreeCompiler(EnumAttribute<?>[] schema, EnumAttribute<?> classAttribute) {
+		this.schema = schema;
+		this.classAttribute = classAttribute;
+		for (int i = 0; i < schema.length; i++) {
+			columns.put(schema[i], i);
+		}
+	}
+	
+	private int allocate(int n) {
+		if (size + n > nodes.length) {
+			nodes = Arrays.copyOf(nodes, Math.max(2*nodes.length, size + n));
+		}
+		int start = size;
+		size += n;
+		return start;
+	}
+
+	@Override
+	public void visit(InnerNode node) {
+		EnumAttribute<?> attribute = node.decisionAttribute();
+		Integer column = columns.get(attribute);
+		if (column == null)
+			throw new IllegalArgumentException("Decision attribute " + attribute + " is not part of the schema.");
+		
+		int start = allocate(1 + attribute.numValues());
+		nodes[start] = column;
+		for (int v = 0; v < attribute.numValues(); v++) {
+			Node child = node.child(attribute.valueAt(v));
+			if (child != null) {
+				child.accept(this);
+				nodes[start+1+v] = offset;
+			} else {
+				nodes[start+1+v] = -1;
+			}
+		}
+		offset = start;
+	}
+
+	@Override
+	public void visit(Leaf node) {
+		int classOrdinal = classAttribute.indexOf(node.value());
+		if (classOrdinal < 0) {
+			offset = -1;
+			return;
+		}
+		offset = allocate(1);
+		nodes[offset] = ~classOrdinal;
+	}
+	
+	/**
+	 * Appends a tree to the compiled forest.
+	 * @param root The root node of the tree.
+	 */
+	public TreeCompiler add(Node root) {
+		root.accept(this);
+		roots.add(offset);
+		return this;
+	}
+	
+	/**
+	 * @return The number of trees added so far.
+	 */
+	public int numTrees() {
+		return roots.size();
+	}
+	
+	/**
+	 * Creates the compiled forest from all trees added so far.
+	 * @param weights The voting weight of each tree.
+	 * @param errors The training error of each tree (NaN if unknown), which is kept for the model file.
+	 */
+	public CompiledForest toForest(float[] weights, float[] errors) {
+		if (weights.length != roots.size() || errors.length != roots.size())
+			throw new IllegalArgumentException("Expected " + roots.size() + " tree weights and errors, got " 
+					+ weights.length + " and " + errors.length + ".");
+		int[] r = roots.stream().mapToInt(i->i).toArray();
+		return new CompiledForest(schema, classAttribute, IntBuffer.wrap(Arrays.copyOf(nodes, size)), r, weights.clone(), errors.clone());
+	}
+	
+	/**
+	 * Creates the compiled forest from all trees added so far, the errors of the trees are unknown.
+	 * @param weights The voting weight of each tree.
+	 */
+	public CompiledForest toForest(float[] weights) {
+		float[] errors = new float[weights.length];
+		Arrays.fill(errors, Float.NaN);
+		return toForest(weights, errors);
+	}
+	
+	/**
+	 * Creates the compiled forest from all trees added so far, each tree having the same voting weight.
+	 */
+	public CompiledForest toForest() {
+		float[] weights = new float[roots.size()];
+		Arrays.fill(weights, 1.0f);
+		return toForest(weights);
+	}
+
+}
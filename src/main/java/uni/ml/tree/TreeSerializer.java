@@ -0,0 +1,119 @@
+package uni.ml.tree;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import uni.ml.dataset.Attribute;
+import uni.ml.dataset.EnumAttribute;
+
+/**
+ * Writes decision trees to and reads them from a compact binary format.
+ * Nodes are written in pre-order. Attributes and values are stored as schema column indices and value ordinals,
+ * so the reader has to provide the same schema (attributes in the same order with the same values).
+ */
+public class TreeSerializer implements NodeVisitor {
+
+	private static final byte LEAF = 0;
+	private static final byte INNER = 1;
+	private static final byte NONE = 2;
+	
+	private EnumAttribute<?>[] schema;
+	private EnumAttribute<?> classAttribute;
+	private Map<Attribute<?>, Integer> columns = new HashMap<>();
+	private DataOutput out;
+	
+	/**
+	 * @param schema The attributes (columns) to encode decision attributes with.
+	 * @param classAttribute The classification/target attribute to encode leaf values with.
+	 */
+	public TreeSerializer(EnumAttribute<?>[] schema, EnumAttribute<?> classAttribute) {
+		this.schema = schema;
+		this.classAttribute = classAttribute;
+		for (int i = 0; i < schema.length; i++) {
+			columns.put(schema[i], i);
+		}
+	}
+	
+	@Override
+	public void visit(InnerNode node) {
+		try {
+			Integer column = columns.get(node.decisionAttribute());
+			if (column == null)
+				throw new IllegalArgumentException("Decision attribute " + node.decisionAttribute() + " is not part of the schema.");
+			out.writeByte(INNER);
+			out.writeInt(column);
+			EnumAttribute<?> attribute = node.decisionAttribute();
+			for (int v = 0; v < attribute.numValues(); v++) {
+				Node child = node.child(attribute.valueAt(v));
+				if (child != null) {
+					child.accept(this);
+				} else {
+					out.writeByte(NONE);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void visit(Leaf node) {
+		try {
+			out.writeByte(LEAF);
+			out.writeInt(classAttribute.indexOf(node.value()));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/**
+	 * Writes a (sub-)tree.
+	 */
+	public void write(Node root, DataOutput out) throws IOException {
+		this.out = out;
+		try {
+			root.accept(this);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+	
+	/**
+	 * Reads a (sub-)tree.
+	 * @return The root node or null if the tree is empty.
+	 */
+	public Node read(DataInput in) throws IOException {
+		byte type = in.readByte();
+		switch (type) {
+			case LEAF: {
+				int ordinal = in.readInt();
+				if (ordinal < 0 || ordinal >= classAttribute.numValues())
+					throw new IOException("Invalid class value " + ordinal);
+				return new Leaf(classAttribute.valueAt(ordinal));
+			}
+			case INNER: {
+				int column = in.readInt();
+				if (column < 0 || column >= schema.length)
+					throw new IOException("Invalid attribute " + column);
+				InnerNode node = new InnerNode();
+				node.decisionAttribute(schema[column]);
+				for (int v = 0; v < schema[column].numValues(); v++) {
+					Node child = read(in);
+					if (child != null) {
+						node.addChild(schema[column].valueAt(v), child);
+					}
+				}
+				return node;
+			}
+			case NONE:
+				return null;
+			default:
+				throw new IOException("Invalid node type " + type);
+		}
+	}
+
+}
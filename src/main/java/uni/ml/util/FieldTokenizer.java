@@ -0,0 +1,144 @@
+package uni.ml.util;
+
+/**
+ * Splits a line of an ARFF or CSV file into its values.
+ * Values are separated by commas and may be quoted by ' or ", surrounding whitespace is ignored.
+ * Within a quoted value, CSV doubles the quote character (as read by {@link uni.ml.io.CsvDatasetReader}),
+ * whereas ARFF escapes quotes, backslashes and control characters by a backslash (as written by Weka).
+ * <p>
+ * Usage: <code>FieldTokenizer fields = new FieldTokenizer(line, false); while (fields.hasNext()) fields.next();</code>
+ */
+public class FieldTokenizer {
+
+	private final String line;
+	private final boolean arff;
+	private final int end;
+	private int position;
+
+	/**
+	 * @param arff True for ARFF (backslash escapes), false for CSV (doubled quotes).
+	 */
+	public FieldTokenizer(String line, boolean arff) {
+		this(line, 0, line.length(), arff);
+	}
+
+	/**
+	 * Splits the characters from (inclusive) to (exclusive) of a line, e.g. the entries of a sparse ARFF row between its braces.
+	 * @param arff True for ARFF (backslash escapes), false for CSV (doubled quotes).
+	 */
+	public FieldTokenizer(String line, int from, int to, boolean arff) {
+		this.line = line;
+		this.arff = arff;
+		this.position = from;
+		this.end = to;
+	}
+
+	private void skipWhitespace() {
+		while (position < end && Character.isWhitespace(line.charAt(position))) {
+			position++;
+		}
+	}
+
+	/**
+	 * @return True if there are characters other than whitespace left.
+	 */
+	public boolean hasNext() {
+		skipWhitespace();
+		return position < end;
+	}
+
+	/**
+	 * Reads the next value, which ends at the next comma (which is skipped) or at the end of the line.
+	 * @return The value without surrounding whitespace and quotes.
+	 * @throws IllegalArgumentException If a quoted value is not terminated or is followed by anything but a comma.
+	 */
+	public String next() {
+		skipWhitespace();
+		String value;
+		if (position < end && isQuote(line.charAt(position))) {
+			value = quoted();
+			skipWhitespace();
+			if (position < end && line.charAt(position) != ',')
+				throw new IllegalArgumentException("Unexpected character after quoted value at position " + position + ": " + line);
+		} else {
+			int start = position;
+			while (position < end && line.charAt(position) != ',') {
+				position++;
+			}
+			int stop = position;
+			while (stop > start && Character.isWhitespace(line.charAt(stop-1))) {
+				stop--;
+			}
+			value = line.substring(start, stop);
+		}
+		if (position < end) {
+			position++; // comma
+		}
+		return value;
+	}
+
+	/**
+	 * Reads the next word, which ends at whitespace, a comma or a brace (which is not skipped) unless it is quoted,
+	 * e.g. the index of a sparse ARFF entry or the name of an ARFF attribute.
+	 * @return The word without quotes.
+	 * @throws IllegalArgumentException If a quoted word is not terminated.
+	 */
+	public String nextWord() {
+		skipWhitespace();
+		if (position < end && isQuote(line.charAt(position)))
+			return quoted();
+		int start = position;
+		while (position < end && !isWordEnd(line.charAt(position))) {
+			position++;
+		}
+		return line.substring(start, position);
+	}
+
+	/**
+	 * @return The remaining characters without surrounding whitespace.
+	 */
+	public String rest() {
+		String rest = line.substring(position, end).trim();
+		position = end;
+		return rest;
+	}
+
+	/**
+	 * @return The position of the next character within the line.
+	 */
+	public int position() {
+		return position;
+	}
+
+	private static boolean isQuote(char c) {
+		return c == '\'' || c == '"';
+	}
+
+	private static boolean isWordEnd(char c) {
+		return Character.isWhitespace(c) || c == ',' || c == '{' || c == '}';
+	}
+
+	private String quoted() {
+		char quote = line.charAt(position++);
+		StringBuilder b = new StringBuilder();
+		while (position < end) {
+			char c = line.charAt(position++);
+			if (c == quote) {
+				if (arff || position == end || line.charAt(position) != quote)
+					return b.toString();
+				position++; // doubled quote
+			} else if (arff && c == '\\' && position < end) {
+				c = line.charAt(position++);
+				switch (c) {
+				case 'n': c = '\n'; break;
+				case 'r': c = '\r'; break;
+				case 't': c = '\t'; break;
+				default: break;
+				}
+			}
+			b.append(c);
+		}
+		throw new IllegalArgumentException("Unterminated quoted value: " + line);
+	}
+
+}